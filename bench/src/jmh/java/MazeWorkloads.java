@@ -0,0 +1,206 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * MazeWorkloads builds the operations the JMH benchmarks measure. JMH
+ * does not accept benchmark classes in the default package, and classes
+ * in a named package cannot refer to the maze classes, which are all in
+ * the default package; so the benchmarks look these factories up by
+ * reflection once per trial and then only call the IntSupplier they
+ * return. Each supplier returns a number derived from its work so that
+ * the benchmark can hand it to a Blackhole.
+ */
+public final class MazeWorkloads {
+
+    private MazeWorkloads() {
+    }
+
+    /**
+     * Writes a random square maze in the text format with MazeGenerator:
+     * each cell is a WALL with the given probability, and one open cell
+     * in a hundred holds a gold coin.
+     *
+     * @param file the file to write
+     * @param size the number of rows and columns
+     * @param density the probability that a cell is a WALL
+     * @param seed the random seed
+     */
+    public static void writeRandomMaze(String file, int size, double density, long seed) {
+        MazeGenerator generator = new MazeGenerator(MazeGenerator.Algorithm.RANDOM_FILL,
+            size, size, seed);
+        generator.setWallDensity(density);
+        generator.setCoinDensity(0.01);
+        try {
+            generator.writeText(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a random square maze as writeRandomMaze does, then gives
+     * every cell a random weight from 1 to maxWeight and writes it in the
+     * binary format, which keeps the weights.
+     *
+     * @param file the file to write
+     * @param size the number of rows and columns
+     * @param density the probability that a cell is a WALL
+     * @param maxWeight the largest weight of a cell
+     * @param seed the random seed
+     */
+    public static void writeWeightedMaze(String file, int size, double density,
+                                         int maxWeight, long seed) {
+        writeRandomMaze(file, size, density, seed);
+        try {
+            MazeParser parser;
+            try (InputStream in = new FileInputStream(file)) {
+                parser = new MazeParser(in);
+                parser.parse();
+            }
+            PackedGrid grid = parser.getGrid();
+            Random random = new Random(seed);
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    grid.setWeight(r, c, 1 + random.nextInt(maxWeight));
+                }
+            }
+            BinaryMazeFormat.write(grid, parser.getStart(), parser.getTarget(), file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an operation that reads a maze file with Maze.readFile.
+     *
+     * @param file the maze file
+     * @return the operation, returning the number of rows read
+     */
+    public static IntSupplier readFile(final String file) {
+        return () -> {
+            try {
+                MazeSolver maze = new MazeSolver();
+                maze.readFile(file);
+                return maze.getRows();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns an operation that puts back the grid of a MazeSolver as it
+     * was read, which traverse and pickupGoldCoins do before they run;
+     * measured alone it is their baseline.
+     *
+     * @param file the maze file
+     * @return the operation, returning the number of rows copied
+     */
+    public static IntSupplier restore(String file) {
+        final MazeSolver maze = new MazeSolver(file);
+        final Maze.CELL[][] saved = copy(maze.getGrid());
+        return () -> restore(maze, saved);
+    }
+
+    /**
+     * Returns an operation that restores the grid of a MazeSolver and
+     * runs MazeSolver.traverse on it.
+     *
+     * @param file the maze file
+     * @return the operation, returning 1 if the target was reached
+     */
+    public static IntSupplier traverse(String file) {
+        final MazeSolver maze = new MazeSolver(file);
+        final Maze.CELL[][] saved = copy(maze.getGrid());
+        return () -> {
+            restore(maze, saved);
+            try {
+                return maze.traverse() ? 1 : 0;
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns an operation that restores the grid of a MazeSolver and
+     * runs MazeSolver.pickupGoldCoins on it.
+     *
+     * @param file the maze file
+     * @return the operation, returning the number of coins picked up
+     */
+    public static IntSupplier pickupGoldCoins(String file) {
+        final MazeSolver maze = new MazeSolver(file);
+        final Maze.CELL[][] saved = copy(maze.getGrid());
+        return () -> {
+            restore(maze, saved);
+            try {
+                return maze.pickupGoldCoins();
+            }
+            catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns an operation that solves a maze with one of the search
+     * strategies. The maze is an ImmutableMaze, so nothing needs to be
+     * restored between runs.
+     *
+     * @param file the maze file
+     * @param strategy the name of a SearchStrategy
+     * @return the operation, returning the path length or -1
+     */
+    public static IntSupplier solve(String file, String strategy) {
+        final ImmutableMaze maze;
+        try {
+            maze = ImmutableMaze.readFile(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final SearchStrategy solver = SearchStrategy.fromName(strategy);
+        return () -> {
+            SearchResult result = maze.solve(solver);
+            return result.isFound() ? result.getPathLength() : -1;
+        };
+    }
+
+    /**
+     * Returns a copy of a grid.
+     *
+     * @param grid the grid
+     * @return a new grid with the same cells
+     */
+    private static Maze.CELL[][] copy(Maze.CELL[][] grid) {
+        Maze.CELL[][] result = new Maze.CELL[grid.length][];
+        for (int r = 0; r < grid.length; r++) {
+            result[r] = grid[r].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Copies saved back into the grid of a maze.
+     *
+     * @param maze the maze
+     * @param saved the cells to put back
+     * @return the number of rows copied
+     */
+    private static int restore(MazeSolver maze, Maze.CELL[][] saved) {
+        Maze.CELL[][] grid = maze.getGrid();
+        for (int r = 0; r < saved.length; r++) {
+            System.arraycopy(saved[r], 0, grid[r], 0, saved[r].length);
+        }
+        return saved.length;
+    }
+}
@@ -0,0 +1,67 @@
+package mazebench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of Maze.readFile, MazeSolver.traverse and
+ * MazeSolver.pickupGoldCoins on random square mazes from 10x10 to
+ * 4000x4000 with different wall densities. traverse and pickupGoldCoins
+ * mark the grid, so every call first copies the grid back as it was
+ * read; restore measures that copy alone.
+ */
+@State(Scope.Benchmark)
+public class MazeBenchmark {
+    @Param({ "10", "100", "1000", "4000" })
+    public int size;
+
+    @Param({ "0.1", "0.3", "0.45" })
+    public double density;
+
+    private File file;
+    private IntSupplier readFile;
+    private IntSupplier restore;
+    private IntSupplier traverse;
+    private IntSupplier pickupGoldCoins;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Workloads.randomMaze(size, density);
+        readFile = Workloads.get("readFile", file.getPath());
+        restore = Workloads.get("restore", file.getPath());
+        traverse = Workloads.get("traverse", file.getPath());
+        pickupGoldCoins = Workloads.get("pickupGoldCoins", file.getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int readFile() {
+        return readFile.getAsInt();
+    }
+
+    @Benchmark
+    public int restore() {
+        return restore.getAsInt();
+    }
+
+    @Benchmark
+    public int traverse() {
+        return traverse.getAsInt();
+    }
+
+    @Benchmark
+    public int pickupGoldCoins() {
+        return pickupGoldCoins.getAsInt();
+    }
+}
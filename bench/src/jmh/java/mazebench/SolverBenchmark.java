@@ -0,0 +1,48 @@
+package mazebench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of every SearchStrategy on the same random mazes as
+ * MazeBenchmark. The mazes are ImmutableMazes, so the searches leave
+ * the grid as it is and need no copy between calls. Every cell weighs 1
+ * here; see WeightedSolverBenchmark for DIJKSTRA on weighted mazes.
+ */
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+    @Param({ "10", "100", "1000", "4000" })
+    public int size;
+
+    @Param({ "0.1", "0.3", "0.45" })
+    public double density;
+
+    @Param({ "DFS", "BFS", "ASTAR", "JPS", "BIDIRECTIONAL", "PARALLEL_BFS", "DIJKSTRA" })
+    public String strategy;
+
+    private File file;
+    private IntSupplier solve;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Workloads.randomMaze(size, density);
+        solve = Workloads.get("solve", file.getPath(), strategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int solve() {
+        return solve.getAsInt();
+    }
+}
@@ -0,0 +1,51 @@
+package mazebench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of DIJKSTRA on random mazes whose cells weigh from 1 to
+ * maxWeight, the only mazes on which it does more than BFS. A heavier
+ * maximum spreads the priorities over more buckets of its queue. BFS,
+ * which ignores the weights, runs on the same mazes as a baseline.
+ */
+@State(Scope.Benchmark)
+public class WeightedSolverBenchmark {
+    @Param({ "100", "1000", "4000" })
+    public int size;
+
+    @Param({ "0.3" })
+    public double density;
+
+    @Param({ "1", "9", "255" })
+    public int maxWeight;
+
+    @Param({ "BFS", "DIJKSTRA" })
+    public String strategy;
+
+    private File file;
+    private IntSupplier solve;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Workloads.weightedMaze(size, density, maxWeight);
+        solve = Workloads.get("solve", file.getPath(), strategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int solve() {
+        return solve.getAsInt();
+    }
+}
@@ -0,0 +1,89 @@
+package mazebench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+/**
+ * Workloads calls the factories of MazeWorkloads, which lives in the
+ * default package with the maze classes, by reflection, and manages the
+ * temporary maze files the benchmarks run on.
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    /**
+     * Writes a random maze to a new temporary file.
+     *
+     * @param size the number of rows and columns
+     * @param density the probability that a cell is a WALL
+     * @return the file
+     * @throws IOException if the file cannot be created
+     */
+    static File randomMaze(int size, double density) throws IOException {
+        File file = File.createTempFile("maze" + size + "-", ".txt");
+        file.deleteOnExit();
+        call("writeRandomMaze", new Class<?>[] { String.class, int.class, double.class, long.class },
+            file.getPath(), size, density, 42L);
+        return file;
+    }
+
+    /**
+     * Writes a random maze whose cells weigh from 1 to maxWeight to a new
+     * temporary binary file.
+     *
+     * @param size the number of rows and columns
+     * @param density the probability that a cell is a WALL
+     * @param maxWeight the largest weight of a cell
+     * @return the file
+     * @throws IOException if the file cannot be created
+     */
+    static File weightedMaze(int size, double density, int maxWeight) throws IOException {
+        File file = File.createTempFile("maze" + size + "-", ".mazeb");
+        file.deleteOnExit();
+        call("writeWeightedMaze",
+            new Class<?>[] { String.class, int.class, double.class, int.class, long.class },
+            file.getPath(), size, density, maxWeight, 42L);
+        return file;
+    }
+
+    /**
+     * Returns one of the operations of MazeWorkloads.
+     *
+     * @param name the name of the factory method
+     * @param args its String arguments
+     * @return the operation
+     */
+    static IntSupplier get(String name, String... args) {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = String.class;
+        }
+        return (IntSupplier) call(name, types, (Object[]) args);
+    }
+
+    /**
+     * Calls a static method of MazeWorkloads.
+     *
+     * @param name the name of the method
+     * @param types its parameter types
+     * @param args its arguments
+     * @return what it returns
+     */
+    private static Object call(String name, Class<?>[] types, Object... args) {
+        try {
+            Method method = Class.forName("MazeWorkloads").getMethod(name, types);
+            return method.invoke(null, args);
+        }
+        catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BatchSolver solves many maze files in one JVM. Each maze, in text or
+ * binary form, is loaded and solved in its own task, at most a fixed number at a time, and one
+ * tab-separated result line is written per maze as soon as it finishes:
+ *
+ *     file  solved  pathLength  coins  milliseconds
+ *
+ * Tasks run on virtual threads when the JVM provides them, and on a
+ * fixed pool of platform threads otherwise.
+ */
+public class BatchSolver {
+
+    private final SearchStrategy strategy;
+    private final Neighborhood neighborhood;
+    private final int parallelism;
+    private final PrintStream out;
+
+    /**
+     * Constructs a batch solver.
+     *
+     * @param strategy the algorithm used to solve each maze
+     * @param neighborhood the moves the searches make in each maze
+     * @param parallelism the largest number of mazes solved at once
+     * @param out where the result lines are written
+     */
+    public BatchSolver(SearchStrategy strategy, Neighborhood neighborhood,
+                       int parallelism, PrintStream out)
+    {
+        this.strategy = strategy;
+        this.neighborhood = neighborhood;
+        this.parallelism = Math.max(1, parallelism);
+        this.out = out;
+    }
+
+    /**
+     * Returns the maze files named by path. If path is a directory,
+     * these are the regular files in it, sorted by name; otherwise path
+     * is a text file listing one maze file per line.
+     *
+     * @param path a directory or a file list
+     * @return the maze files to solve
+     * @throws IOException if the directory or list cannot be read
+     */
+    public static List<String> listInputs(String path) throws IOException
+    {
+        File file = new File(path);
+        List<String> inputs = new ArrayList<String>();
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                throw new IOException("Cannot list directory: " + path);
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isFile())
+                    inputs.add(child.getPath());
+            }
+        }
+        else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty())
+                        inputs.add(line);
+                }
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Solves every file in inputs and writes one result line for each.
+     * Returns once all of them are done.
+     *
+     * @param inputs the maze files to solve
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(List<String> inputs) throws InterruptedException
+    {
+        ExecutorService executor = newExecutor(parallelism);
+        Semaphore permits = new Semaphore(parallelism);
+        try {
+            for (final String input : inputs) {
+                permits.acquire();
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            String line = solve(input);
+                            synchronized (out) {
+                                out.println(line);
+                            }
+                        }
+                        finally {
+                            permits.release();
+                        }
+                    }
+                });
+            }
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            out.flush();
+        }
+    }
+
+    /**
+     * Loads and solves a single maze and formats its result line. The
+     * maze, text or binary, is read once into an ImmutableMaze, which is
+     * both solved and searched for coins on pooled SearchStates without
+     * being marked.
+     *
+     * @param input the maze file
+     * @return the result line for that maze
+     */
+    String solve(String input)
+    {
+        long begin = System.nanoTime();
+        try {
+            ImmutableMaze maze = ImmutableMaze.readFile(input, neighborhood);
+            SearchResult result = maze.solve(strategy);
+            int coins = maze.pickupGoldCoins(maze.getStartPosition());
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            return input + "\t" + result.isFound() + "\t" + result.getPathLength()
+                + "\t" + coins + "\t" + millis;
+        }
+        catch (IOException e) {
+            return input + "\terror\t" + e.getMessage();
+        }
+        catch (RuntimeException e) {
+            return input + "\terror\t" + e;
+        }
+    }
+
+    /**
+     * Returns an executor that starts a virtual thread per task when the
+     * JVM supports it, or a fixed pool of platform threads otherwise.
+     *
+     * @param threads the size of the fallback pool
+     * @return the executor for the batch
+     */
+    private static ExecutorService newExecutor(int threads)
+    {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+}
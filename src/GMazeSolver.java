@@ -11,6 +11,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 @SuppressWarnings("serial")
 
 /**
@@ -21,18 +25,15 @@ import java.awt.event.MouseEvent;
 
 public class GMazeSolver {
 
-    private final int BOX_WIDTH = 100;
-    private final int BORDER = 10;
-
     private JFrame win = null;
-    private JComponent drawArea;
+    private MazeView drawArea;
     private JLabel message;
 
 
     private boolean solved = false;
 
-    private MazeSolver maze;
-    private MazeSolver.CELL[][] savedGrid;
+    private ObservableMazeSolver maze;
+    private SolveAnimator animator;
 
 
     /**
@@ -41,8 +42,17 @@ public class GMazeSolver {
      */
     public GMazeSolver(String inFile) 
     {
-        maze = new MazeSolver(inFile);
-        savedGrid();
+        this(inFile, Neighborhood.FOUR);
+    }
+
+    /**
+     * GMazeSolver - creates the graphical user interface for a maze whose
+     * solvers move in the given neighborhood.
+     */
+    public GMazeSolver(String inFile, Neighborhood neighborhood)
+    {
+        maze = new ObservableMazeSolver(inFile);
+        maze.setNeighborhood(neighborhood);
 
         // create window
         win = new JFrame("Maze");
@@ -60,17 +70,20 @@ public class GMazeSolver {
         win.getContentPane().add(panel, BorderLayout.NORTH);
 
         // The south part of the border layout shows
-        // a row of buttons. Clear resets the grid to
-        // the value before the traverse was run.
+        // a row of buttons. Clear removes the marks left
+        // by the last traverse or pickup.
         // Traverse calls the traverse() method.
         // Pickup calls the pickupGoldCoins() method.
+        // Both run on a worker thread, animated in the
+        // maze; the second row of controls pauses, steps,
+        // cancels and sets the speed of the animation.
         panel = new JPanel();
         JButton clear = new JButton("Clear");
         clear.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent ae) {
+                animator.cancel();
                 resetGrid();
                 message.setText("");
-                drawArea.repaint();
                 solved = false;
             }
         });
@@ -79,19 +92,11 @@ public class GMazeSolver {
         JButton traverse = new JButton("Traverse");
         traverse.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent ae) {
-                resetGrid();
-                try {
-                    if (maze.traverse())
-                        message.setText("• Success");
-                    else
-                        message.setText("• Failed");
-                    drawArea.repaint();
-                }
-                catch (IllegalAccessException e)
-                {
-                    e.printStackTrace(System.out);
-                }
-                solved = true;
+                run(new SolveAnimator.Task() {
+                    public String run() throws IllegalAccessException {
+                        return maze.traverse() ? "• Success" : "• Failed";
+                    }
+                });
             }
         });
         panel.add(traverse);
@@ -99,109 +104,149 @@ public class GMazeSolver {
         JButton gold = new JButton("Pickup");
         gold.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent ae) {
-                resetGrid();
-                try {
-                    int coins = maze.pickupGoldCoins();
-                    message.setText("• Coins collected: "+coins);
-                    drawArea.repaint();
-                }
-                catch (IllegalAccessException e)
-                {
-                    e.printStackTrace(System.out);
-                }
-                solved = true;
+                run(new SolveAnimator.Task() {
+                    public String run() throws IllegalAccessException {
+                        return "• Coins collected: " + maze.pickupGoldCoins();
+                    }
+                });
             }
         });
         panel.add(gold);
-        win.getContentPane().add(panel, BorderLayout.SOUTH);
 
-        // The center part of the border layout contains
-        // the grid area of the maze.
-        drawArea = new JComponent() {
-            public void paintComponent(Graphics g) {
-                MazeSolver.CELL[][] grid = maze.getGrid();
-                for (int i = 0; i < grid.length; i++) {
-                    for (int j = 0; j < grid[i].length; j++) {
-                        // draw square
-                        drawCell(g, i, j);
-                    }
-                }
+        // Zoom in and out around the center of what is shown.
+        JButton zoomIn = new JButton("+");
+        zoomIn.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                drawArea.zoom(2, visibleCenter());
             }
+        });
+        panel.add(zoomIn);
+        JButton zoomOut = new JButton("-");
+        zoomOut.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                drawArea.zoom(0.5, visibleCenter());
+            }
+        });
+        panel.add(zoomOut);
+        JPanel south = new JPanel(new GridLayout(2, 1));
+        south.add(panel);
 
-            public void drawCell(Graphics g, int row, int col) {
-                MazeSolver.CELL[][] grid = maze.getGrid();
-                if (grid[row][col] == MazeSolver.CELL.OPEN)
-                    g.setColor(Color.white);
-                else if (grid[row][col] == MazeSolver.CELL.WALL)
-                    g.setColor(Color.black);
-                else if (grid[row][col] == MazeSolver.CELL.VISITED)
-                    g.setColor(Color.red);
-                else if (grid[row][col] == MazeSolver.CELL.PATH)
-                    g.setColor(Color.green);
-                else if (grid[row][col] == MazeSolver.CELL.GOLDCOIN)
-                    g.setColor(Color.yellow);
-
-                g.fillRect(BORDER + col * BOX_WIDTH, BORDER 
-                    + row * BOX_WIDTH, BOX_WIDTH, BOX_WIDTH);
-                g.setColor(Color.black);
-                g.drawRect(BORDER + col * BOX_WIDTH, BORDER 
-                    + row * BOX_WIDTH, BOX_WIDTH, BOX_WIDTH);
+        panel = new JPanel();
+        final JButton pause = new JButton("Pause");
+        pause.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                animator.setPaused(!animator.isPaused());
+                pause.setText(animator.isPaused() ? "Resume" : "Pause");
+            }
+        });
+        panel.add(pause);
+        JButton step = new JButton("Step");
+        step.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                animator.step();
+            }
+        });
+        panel.add(step);
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                if (animator.isRunning()) {
+                    animator.cancel();
+                    message.setText("• Cancelled");
+                }
+            }
+        });
+        panel.add(cancel);
+        // The slider goes from 1 to about 90000 cells a second,
+        // and to full speed at the right end.
+        final JLabel speedLabel = new JLabel("full speed");
+        final JSlider speed = new JSlider(0, 100, 100);
+        speed.addChangeListener(new ChangeListener() {
+            public void stateChanged(ChangeEvent ce) {
+                if (speed.getValue() == speed.getMaximum()) {
+                    animator.setSpeed(Double.POSITIVE_INFINITY);
+                    speedLabel.setText("full speed");
+                }
+                else {
+                    double cells = Math.pow(10, speed.getValue() / 20.0);
+                    animator.setSpeed(cells);
+                    speedLabel.setText(Math.round(cells) + " cells/s");
+                }
             }
-        };
+        });
+        panel.add(new JLabel("Speed"));
+        panel.add(speed);
+        panel.add(speedLabel);
+        south.add(panel);
+        win.getContentPane().add(south, BorderLayout.SOUTH);
+
+        // The center part of the border layout contains
+        // the grid area of the maze, in a scroll pane. Only
+        // the cells that change are drawn again.
+        drawArea = new MazeView(maze, MazeView.fitScale(maze, 900, 700));
+        animator = new SolveAnimator(maze, drawArea);
 
         // TODO Change this to cycle through all values of cells
         drawArea.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent arg0) {
-                if (!solved) {
-                    int col = (arg0.getX() - BORDER) / BOX_WIDTH;
-                    int row = (arg0.getY() - BORDER) / BOX_WIDTH;
-                    MazeSolver.CELL[][] grid = maze.getGrid();
-                    if (grid[row][col] == MazeSolver.CELL.OPEN)
-                        grid[row][col] = MazeSolver.CELL.WALL;
-                    else if (grid[row][col] == MazeSolver.CELL.WALL)
-                        grid[row][col] = MazeSolver.CELL.OPEN;
-                    savedGrid();
-                    drawArea.repaint();
+                Position p = drawArea.cellAt(arg0.getPoint());
+                if (!solved && p != null) {
+                    MazeSolver.CELL cell = maze.getCell(p.getRow(), p.getCol());
+                    if (cell == MazeSolver.CELL.OPEN)
+                        maze.setWall(p.getRow(), p.getCol(), true);
+                    else if (cell == MazeSolver.CELL.WALL)
+                        maze.setWall(p.getRow(), p.getCol(), false);
                 }
             }
         });
-        win.getContentPane().add(drawArea, BorderLayout.CENTER);
+        final JScrollPane scroll = new JScrollPane(drawArea);
+        // Ctrl+wheel zooms around the mouse; the plain wheel scrolls.
+        drawArea.addMouseWheelListener(new MouseWheelListener() {
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown())
+                    drawArea.zoom(Math.pow(1.25, -e.getPreciseWheelRotation()), e.getPoint());
+                else
+                    scroll.dispatchEvent(SwingUtilities.convertMouseEvent(drawArea, e, scroll));
+            }
+        });
+        win.getContentPane().add(scroll, BorderLayout.CENTER);
 
         // Set the window size to fit everything snuggly
-        win.setSize(
-            maze.getSize() * BOX_WIDTH + 2 * BORDER,
-            maze.getSize() * BOX_WIDTH + 4 * BORDER + 70);
+        win.pack();
         win.setVisible(true);
     }
 
     /**
-     * Saves the puzzle about to be used so that we can run the
-     * same puzzle multiple times.
+     * Runs a solve on the maze without the marks of the last one, animated,
+     * unless one is still running.
+     */
+    private void run(SolveAnimator.Task task) {
+        if (animator.isRunning())
+            return;
+        resetGrid();
+        solved = true;
+        message.setText("• Solving");
+        animator.start(task, new SolveAnimator.Done() {
+            public void finished(String text) {
+                message.setText(text);
+            }
+        });
+    }
+
+    /**
+     * Returns the center of the part of the maze that is shown, in the
+     * coordinates of the view.
      */
-    private void savedGrid() {
-        MazeSolver.CELL[][] grid = maze.getGrid();
-        // allocate new grid
-        savedGrid = new MazeSolver.CELL[maze.getSize()][maze.getSize()];
-
-        // ... and save the values
-        for (int row = 0; row < grid.length; row++) {
-            for (int column = 0; column < grid[row].length; column++)
-                savedGrid[row][column] = grid[row][column];
-        }
+    private Point visibleCenter() {
+        Rectangle visible = drawArea.getVisibleRect();
+        return new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
     }
 
     /**
-     * Copies back the saved grid into the grid variable.
+     * Removes the marks of the last solve and draws the maze again.
      */
     private void resetGrid() {
-        // Because g is returned as a reference, this
-        // actually changes the maze object... this is bad,
-        // it is a violation of encapsulation. Don't do
-        // this at home.
-        MazeSolver.CELL[][] g = maze.getGrid();
-        for (int row = 0; row < g.length; row++)
-            for (int column = 0; column < g[row].length; column++)
-                g[row][column] = savedGrid[row][column];
-        drawArea.repaint();
+        maze.clearMarks();
+        drawArea.gridChanged();
     }
 }
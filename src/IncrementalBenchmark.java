@@ -0,0 +1,100 @@
+import java.util.Random;
+
+/**
+ * IncrementalBenchmark measures what one wall edit costs when the path
+ * is repaired by IncrementalSearch, against solving again from scratch
+ * with A* and breadth-first search. It builds a random square grid with
+ * a quarter of the cells walls, then runs a number of ticks; each tick
+ * toggles one cell, every other tick a cell of the current path so that
+ * the path really has to change, and re-solves with all three.
+ *
+ *     java IncrementalBenchmark [size [ticks [seed]]]
+ *
+ * The averages per tick are printed in microseconds, with the cells
+ * each search expanded.
+ */
+public class IncrementalBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args size of the grid, number of ticks and random seed
+     */
+    public static void main(String[] args)
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Random random = new Random(seed);
+        PackedGrid grid = new PackedGrid(size, size);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                grid.set(r, c, random.nextInt(4) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+            }
+        }
+        // Keep the corners clear so the start and target are not walled in.
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 3; c++) {
+                grid.set(r, c, Maze.CELL.OPEN);
+                grid.set(size - 1 - r, size - 1 - c, Maze.CELL.OPEN);
+            }
+        }
+        int start = grid.index(0, 0);
+        int target = grid.index(size - 1, size - 1);
+
+        long begin = System.nanoTime();
+        IncrementalSearch incremental = new IncrementalSearch(PackedGrid.copyOf(grid), start, target);
+        SearchResult first = incremental.solve();
+        System.out.printf("%dx%d grid, first search: %s, %.1f ms%n", size, size, first,
+            (System.nanoTime() - begin) / 1e6);
+
+        SearchState state = new SearchState(grid.indexCount());
+        long incrementalTime = 0, astarTime = 0, bfsTime = 0;
+        long incrementalExpanded = 0, astarExpanded = 0, bfsExpanded = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            int cell;
+            if (tick % 2 == 0 && incremental.getPathCellCount() > 2) {
+                cell = incremental.getPathCell(1 + random.nextInt(incremental.getPathCellCount() - 2));
+            }
+            else {
+                do {
+                    cell = grid.index(random.nextInt(size), random.nextInt(size));
+                } while (cell == start || cell == target);
+            }
+            int row = grid.rowOf(cell);
+            int col = grid.colOf(cell);
+            boolean wall = grid.get(row, col) != Maze.CELL.WALL;
+            grid.set(row, col, wall ? Maze.CELL.WALL : Maze.CELL.OPEN);
+
+            long t0 = System.nanoTime();
+            incremental.setWall(row, col, wall);
+            SearchResult repaired = incremental.solve();
+            long t1 = System.nanoTime();
+            SearchResult astar = AStarSearch.solve(grid, start, target, state);
+            state.reset();
+            long t2 = System.nanoTime();
+            SearchResult bfs = BreadthFirstSearch.solve(grid, start, target, state);
+            state.reset();
+            long t3 = System.nanoTime();
+
+            if (repaired.getPathLength() != bfs.getPathLength()
+                || astar.getPathLength() != bfs.getPathLength()) {
+                throw new IllegalStateException("Tick " + tick + ": incremental " + repaired
+                    + ", A* " + astar + ", BFS " + bfs);
+            }
+            incrementalTime += t1 - t0;
+            astarTime += t2 - t1;
+            bfsTime += t3 - t2;
+            incrementalExpanded += repaired.getNodesExpanded();
+            astarExpanded += astar.getNodesExpanded();
+            bfsExpanded += bfs.getNodesExpanded();
+        }
+
+        System.out.printf("%-12s %12s %12s%n", "per tick", "microseconds", "expanded");
+        System.out.printf("%-12s %12.1f %12d%n", "incremental",
+            incrementalTime / 1e3 / ticks, incrementalExpanded / ticks);
+        System.out.printf("%-12s %12.1f %12d%n", "A*", astarTime / 1e3 / ticks, astarExpanded / ticks);
+        System.out.printf("%-12s %12.1f %12d%n", "BFS", bfsTime / 1e3 / ticks, bfsExpanded / ticks);
+    }
+}
@@ -1,3 +1,8 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
 /**
  * Main program to run a maze solver either in command line or
  * in a GUI
@@ -9,61 +14,382 @@ public class MazeMain {
     {
 
         if (args.length == 0) {
-            System.out.println("Usage:");
-            System.out.println(" java MazeMain [-gui] inputfile");
-            System.exit(1);
+            usage();
         }
 
         boolean gui = false;
+        boolean tour = false;
+        boolean stats = false;
+        SearchStrategy strategy = null;
+        Neighborhood neighborhood = Neighborhood.FOUR;
         String inFile = null;
+        String batch = null;
+        String outFile = null;
+        String convertTo = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int tiles = 0;
+        String[] generate = null;
+        long seed = 0;
+        double density = -1;
+        double coins = 0;
+        boolean binary = false;
         for (int i = 0; i < args.length; i++) {
             if (args[i].equalsIgnoreCase("-gui"))
                 gui = true;
+            else if (args[i].equalsIgnoreCase("-tour"))
+                tour = true;
+            else if (args[i].equalsIgnoreCase("-stats"))
+                stats = true;
+            else if (args[i].equalsIgnoreCase("-solver") && i + 1 < args.length) {
+                try {
+                    strategy = SearchStrategy.fromName(args[++i]);
+                }
+                catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-neighborhood") && i + 1 < args.length) {
+                try {
+                    neighborhood = Neighborhood.fromName(args[++i]);
+                }
+                catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-batch") && i + 1 < args.length)
+                batch = args[++i];
+            else if (args[i].equalsIgnoreCase("-convert") && i + 1 < args.length)
+                convertTo = args[++i];
+            else if (args[i].equalsIgnoreCase("-out") && i + 1 < args.length)
+                outFile = args[++i];
+            else if (args[i].equalsIgnoreCase("-threads") && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-generate") && i + 3 < args.length)
+                generate = new String[] { args[++i], args[++i], args[++i] };
+            else if (args[i].equalsIgnoreCase("-binary"))
+                binary = true;
+            else if (args[i].equalsIgnoreCase("-seed") && i + 1 < args.length) {
+                try {
+                    seed = Long.parseLong(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-density") && i + 1 < args.length) {
+                try {
+                    density = Double.parseDouble(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-coins") && i + 1 < args.length) {
+                try {
+                    coins = Double.parseDouble(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    usage();
+                }
+            }
+            else if (args[i].equalsIgnoreCase("-tiles") && i + 1 < args.length) {
+                try {
+                    tiles = Integer.parseInt(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    usage();
+                }
+            }
             else
                 inFile = args[i];
         }
 
+        if (batch != null) {
+            runBatch(batch, outFile, strategy == null ? SearchStrategy.DFS : strategy,
+                neighborhood, threads);
+            return;
+        }
+
         if (inFile == null) {
-            System.out.println("Usage:");
-            System.out.println(" java MazeMain [-gui] inputFile");
-            System.exit(1);
+            usage();
         }
 
-        if (gui) {
-            GMazeSolver labyrinth = new GMazeSolver(inFile);
+        if (generate != null) {
+            generate(generate, seed, density, coins, binary, inFile);
+            return;
         }
-        else {
+
+        if (convertTo != null) {
             try {
-                Maze maze = new MazeSolver(inFile);
-                System.out.println("TRAVERSE Maze:\n"+maze);
-                if (maze.traverse())
+                BinaryMazeFormat.convert(inFile, convertTo);
+            }
+            catch (IOException e) {
+                System.err.println("Cannot convert " + inFile + ": " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (stats)
+            SolverInstrumentation.setEnabled(true);
+
+        if (gui) {
+            GMazeSolver labyrinth = new GMazeSolver(inFile, neighborhood);
+        }
+        else if (tiles > 0) {
+            if (!BinaryMazeFormat.isBinary(inFile)) {
+                System.err.println("-tiles needs a binary maze file; convert " + inFile
+                    + " with -convert first");
+                System.exit(1);
+            }
+            runTiled(inFile, tiles, strategy, neighborhood, stats, tour);
+        }
+        else
+            run(inFile, strategy, neighborhood, stats, tour);
+    }
+
+    /**
+     * Reads a maze file once into an ImmutableMaze and runs every pass on
+     * it, each with a fresh SearchState: the traverse (or the solve with
+     * strategy), the coin pickup and, if tour is true, the gold tour. The
+     * marks of a pass are shown on a copy of the grid.
+     */
+    private static void run(String inFile, SearchStrategy strategy,
+                            Neighborhood neighborhood, boolean stats, boolean tour)
+    {
+        long begin = System.nanoTime();
+        ImmutableMaze maze;
+        try {
+            maze = ImmutableMaze.readFile(inFile, neighborhood);
+        }
+        catch (IOException e) {
+            System.err.println("Cannot read " + inFile + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long parseNanos = System.nanoTime() - begin;
+        Position start = maze.getStartPosition();
+        Position target = maze.getTargetPosition();
+
+        System.out.println("TRAVERSE Maze:\n"+show(maze, null));
+        SearchState state = maze.acquireState();
+        begin = System.nanoTime();
+        SearchResult result = maze.solve(strategy == null ? SearchStrategy.DFS : strategy,
+            start, target, state);
+        long solveNanos = System.nanoTime() - begin;
+        if (strategy != null)
+            System.out.println(strategy + " " + result);
+        if (result.isFound())
+            System.out.println("Maze solved\n"+show(maze, state));
+        else
+            System.out.println("Maze NOT solved\n"+show(maze, state));
+        if (stats)
+            System.out.println("Stats: "+publish(SolveStats.ofSearch(
+                strategy == null ? "traverse" : strategy.name(), result, state.getMaxFrontier(),
+                coinsOnPath(maze, state), parseNanos, solveNanos)));
+        maze.releaseState(state);
+
+        System.out.println("PICK UP COINS Maze:\n"+show(maze, null));
+        state = maze.acquireState();
+        begin = System.nanoTime();
+        int gold = maze.pickupGoldCoins(start, state);
+        solveNanos = System.nanoTime() - begin;
+        System.out.println("Picked up coins: "+gold+"\n"+show(maze, state));
+        if (stats)
+            System.out.println("Stats: "+publish(SolveStats.ofPickup(state.getVisitedCount(),
+                state.getMaxFrontier(), gold, parseNanos, solveNanos)));
+        maze.releaseState(state);
+
+        if (tour) {
+            GoldTourPlanner.Tour planned = GoldTourPlanner.plan(maze);
+            if (planned.isFound()) {
+                PackedGrid grid = maze.toPackedGrid(null);
+                planned.markPath(grid);
+                System.out.println("GOLD TOUR Maze: "+planned+"\n"
+                    +new GridMazeSolver(grid, start, target));
+            }
+            else
+                System.out.println("GOLD TOUR Maze: target not reachable");
+        }
+    }
+
+    /**
+     * Returns the text of a maze with the marks of state, or without
+     * marks if state is null.
+     */
+    private static String show(ImmutableMaze maze, SearchState state)
+    {
+        return new GridMazeSolver(maze.toPackedGrid(state), maze.getStartPosition(),
+            maze.getTargetPosition()).toString();
+    }
+
+    /**
+     * Returns the number of gold coins on the path traced in state.
+     */
+    private static int coinsOnPath(ImmutableMaze maze, SearchState state)
+    {
+        PackedGrid grid = maze.grid();
+        int coins = 0;
+        for (int i = 0; i < state.getPathCellCount(); i++) {
+            if (grid.getByte(state.getPathCell(i)) == PackedGrid.GOLDCOIN)
+                coins++;
+        }
+        return coins;
+    }
+
+    /**
+     * Publishes stats to the instrumentation and returns them.
+     */
+    private static SolveStats publish(SolveStats stats)
+    {
+        SolverInstrumentation.publish(stats);
+        return stats;
+    }
+
+    /**
+     * Opens a binary maze file through one TiledGrid holding at most tiles
+     * tiles and runs every pass on it, reverting the grid between passes:
+     * the traverse (or the solve with strategy), the coin pickup and, if
+     * tour is true, the gold tour. The grid and its scratch file are
+     * closed at the end.
+     */
+    private static void runTiled(String inFile, int tiles, SearchStrategy strategy,
+                                 Neighborhood neighborhood, boolean stats, boolean tour)
+    {
+        long begin = System.nanoTime();
+        try (TiledGrid grid = new TiledGrid(inFile, tiles)) {
+            GridMazeSolver maze = new GridMazeSolver(grid, grid.getHeader().getStart(),
+                grid.getHeader().getTarget());
+            maze.setParseNanos(System.nanoTime() - begin);
+            maze.setNeighborhood(neighborhood);
+            System.out.println("TRAVERSE Maze:\n"+maze);
+            if (strategy != null) {
+                SearchResult result = maze.solve(strategy);
+                System.out.println(strategy + " " + result);
+                if (result.isFound())
                     System.out.println("Maze solved\n"+maze);
                 else
                     System.out.println("Maze NOT solved\n"+maze);
-
-                maze = new MazeSolver(inFile);
-                System.out.println("PICK UP COINS Maze:\n"+maze);
-                int gold = maze.pickupGoldCoins();
-                System.out.println("Picked up coins: "+gold+"\n"+maze);
             }
-            catch (IllegalAccessException e)
-            {
-                e.printStackTrace(System.out);
+            else if (maze.traverse())
+                System.out.println("Maze solved\n"+maze);
+            else
+                System.out.println("Maze NOT solved\n"+maze);
+            if (stats)
+                System.out.println("Stats: "+maze.getLastStats());
+
+            grid.revert();
+            System.out.println("PICK UP COINS Maze:\n"+maze);
+            int gold = maze.pickupGoldCoins();
+            System.out.println("Picked up coins: "+gold+"\n"+maze);
+            if (stats)
+                System.out.println("Stats: "+maze.getLastStats());
+
+            if (tour) {
+                grid.revert();
+                GoldTourPlanner.Tour planned = maze.planGoldTour();
+                if (planned.isFound())
+                    System.out.println("GOLD TOUR Maze: "+planned+"\n"+maze);
+                else
+                    System.out.println("GOLD TOUR Maze: target not reachable");
             }
         }
+        catch (IOException e) {
+            System.err.println("Cannot read " + inFile + ": " + e.getMessage());
+            System.exit(1);
+        }
+        catch (IllegalAccessException e)
+        {
+            e.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Writes a generated maze to outFile. spec holds the algorithm name,
+     * the number of rows and the number of columns; density is the wall
+     * density of a random fill, or negative for the default.
+     */
+    private static void generate(String[] spec, long seed, double density,
+                                 double coins, boolean binary, String outFile)
+    {
+        try {
+            MazeGenerator generator = new MazeGenerator(MazeGenerator.Algorithm.fromName(spec[0]),
+                Integer.parseInt(spec[1]), Integer.parseInt(spec[2]), seed);
+            if (density >= 0)
+                generator.setWallDensity(density);
+            generator.setCoinDensity(coins);
+            if (binary)
+                generator.writeBinary(outFile);
+            else
+                generator.writeText(outFile);
+        }
+        catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            usage();
+        }
+        catch (IOException e) {
+            System.err.println("Cannot write " + outFile + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Solves every maze named by batch (a directory or a file list) and
+     * writes one result line per maze to outFile, or to standard output
+     * if outFile is null. The searches move in the given neighborhood.
+     */
+    private static void runBatch(String batch, String outFile, SearchStrategy strategy,
+                                 Neighborhood neighborhood, int threads)
+    {
+        PrintStream out = System.out;
+        try {
+            if (outFile != null)
+                out = new PrintStream(new BufferedOutputStream(new FileOutputStream(outFile)));
+            new BatchSolver(strategy, neighborhood, threads, out).run(BatchSolver.listInputs(batch));
+        }
+        catch (IOException e) {
+            System.err.println("Cannot run batch: " + e.getMessage());
+            System.exit(1);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if (out != System.out)
+                out.close();
+        }
+    }
+
+    /**
+     * Prints how to run the program and exits.
+     */
+    private static void usage()
+    {
+        StringBuilder solvers = new StringBuilder();
+        for (SearchStrategy s : SearchStrategy.values()) {
+            if (solvers.length() > 0)
+                solvers.append("|");
+            solvers.append(s.name().toLowerCase());
+        }
+        System.out.println("Usage:");
+        String neighborhoods = "4|8|eight_no_corner_cutting";
+        System.out.println(" java MazeMain [-gui] [-tour] [-stats] [-solver " + solvers + "]"
+            + " [-neighborhood " + neighborhoods + "] inputFile");
+        System.out.println(" java MazeMain [-solver " + solvers + "] [-neighborhood " + neighborhoods + "]"
+            + " -tiles n binaryInputFile");
+        System.out.println(" java MazeMain -convert binaryOutputFile textInputFile");
+        System.out.println(" java MazeMain -generate backtracker|kruskal|prim|random_fill|serpentine"
+            + " rows cols [-seed n] [-density d] [-coins d] [-binary] outputFile");
+        System.out.println(" java MazeMain -batch dir|listFile [-solver " + solvers + "]"
+            + " [-neighborhood " + neighborhoods + "] [-threads n] [-out resultFile]");
+        System.exit(1);
     }
 }
-/*
- * Copyright: This programming assignment specification and the provided sample
- * code are protected by copyright. The professor is the exclusive owner of
- * copyright of this material. You are encouraged to take notes and make copies
- * of the specification and the source code for your own educational use.
- * However, you may not, nor may you knowingly allow others to reproduce or
- * distribute the materials publicly without the express written consent of the
- * professor. This includes providing materials to commercial course material
- * suppliers such as CourseHero and other similar services. Students who
- * publicly distribute or display or help others publicly distribute or display
- * copies or modified copies of this material may be in violation of University
- * Policy 406, The Code of Student Responsibility
- * https://legal.charlotte.edu/policies/up-406.
- */
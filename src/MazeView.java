@@ -0,0 +1,413 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MazeView draws a Maze at any zoom inside a JScrollPane. The cells are
+ * rendered one pixel per cell into BufferedImage tiles of TILE x TILE
+ * pixels, which are drawn scaled to the zoom; only the tiles that meet
+ * the clip are drawn, or built if they are not cached yet, so a repaint
+ * costs the visible area and not the size of the maze. Below one pixel
+ * per cell a tile pixel samples one cell in every step x step block,
+ * step a power of two, so a zoomed-out view still needs only about one
+ * tile per TILE x TILE pixels of the screen. At most MAX_TILES tiles are
+ * kept, the least recently drawn ones are dropped first.
+ *
+ * When a cell changes, cellChanged sets its pixel in the cached tiles and
+ * repaints only the cell. The methods of the view must be called on the
+ * event dispatch thread.
+ */
+@SuppressWarnings("serial")
+public class MazeView extends JComponent implements Scrollable {
+
+    /**
+     * The number of cells along each side of a tile.
+     */
+    static final int TILE = 64;
+
+    /**
+     * The largest number of tiles cached, 16 MB of pixels.
+     */
+    private static final int MAX_TILES = 1024;
+
+    /**
+     * The smallest and largest number of pixels per cell.
+     */
+    static final double MIN_SCALE = 1.0 / 16;
+    static final double MAX_SCALE = 100;
+
+    /**
+     * log2 of the largest step between sampled cells, at MIN_SCALE.
+     */
+    private static final int MAX_SHIFT = 4;
+
+    /**
+     * Cells drawn at least this many pixels wide get an outline.
+     */
+    private static final double OUTLINE_SCALE = 8;
+
+    private static final int BORDER = 10;
+
+    private final Maze maze;
+    private double scale;
+    private final Map<Long, BufferedImage> tiles =
+        new LinkedHashMap<Long, BufferedImage>(64, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > MAX_TILES;
+            }
+        };
+
+    /**
+     * Constructs a view of a maze.
+     *
+     * @param maze the maze to draw
+     * @param scale the number of pixels per cell
+     */
+    public MazeView(Maze maze, double scale) {
+        this.maze = maze;
+        this.scale = clamp(scale);
+        setOpaque(true);
+        setBackground(Color.lightGray);
+    }
+
+    /**
+     * Returns the largest scale, up to the one the original view used,
+     * at which a maze fits in an area.
+     *
+     * @param maze the maze
+     * @param width the width of the area in pixels
+     * @param height the height of the area in pixels
+     * @return the number of pixels per cell
+     */
+    public static double fitScale(Maze maze, int width, int height) {
+        double fit = Math.min((width - 2.0 * BORDER) / Math.max(1, maze.getCols()),
+            (height - 2.0 * BORDER) / Math.max(1, maze.getRows()));
+        return clamp(fit);
+    }
+
+    /**
+     * Returns the number of pixels per cell.
+     *
+     * @return the scale of the view
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Multiplies the scale by a factor, keeping the cell under a point of
+     * the view where it is on the screen.
+     *
+     * @param factor the factor to zoom by, above 1 to zoom in
+     * @param anchor the point of the view to keep in place
+     */
+    public void zoom(double factor, Point anchor) {
+        double next = clamp(scale * factor);
+        if (next == scale)
+            return;
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        double cellX = (anchor.x - BORDER) / scale;
+        double cellY = (anchor.y - BORDER) / scale;
+        Point screen = anchor.getLocation();
+        if (viewport != null) {
+            Point position = viewport.getViewPosition();
+            screen.translate(-position.x, -position.y);
+        }
+        scale = next;
+        revalidate();
+        if (viewport != null) {
+            // The new size has to be known before the view can move.
+            viewport.validate();
+            Dimension size = getPreferredSize();
+            Dimension extent = viewport.getExtentSize();
+            int x = (int) Math.round(BORDER + cellX * scale) - screen.x;
+            int y = (int) Math.round(BORDER + cellY * scale) - screen.y;
+            x = Math.max(0, Math.min(x, size.width - extent.width));
+            y = Math.max(0, Math.min(y, size.height - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    /**
+     * Returns the cell drawn at a point of the view.
+     *
+     * @param point the point, in the coordinates of the view
+     * @return the position of the cell, or null if there is no cell there
+     */
+    public Position cellAt(Point point) {
+        if (point.x < BORDER || point.y < BORDER)
+            return null;
+        int col = (int) ((point.x - BORDER) / scale);
+        int row = (int) ((point.y - BORDER) / scale);
+        if (row >= maze.getRows() || col >= maze.getCols())
+            return null;
+        return Position.of(row, col);
+    }
+
+    /**
+     * Redraws one cell after it changed: its pixel is updated in the
+     * cached tile, if there is one, and only its area is repainted.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     */
+    public void cellChanged(int row, int col) {
+        int color = colorOf(maze.getCell(row, col));
+        for (int shift = 0; shift <= MAX_SHIFT; shift++) {
+            int mask = (1 << shift) - 1;
+            if ((row & mask) != 0 || (col & mask) != 0)
+                break; // not sampled at this step, nor at any larger one
+            int span = TILE << shift;
+            BufferedImage tile = tiles.get(tileKey(shift, row / span, col / span));
+            if (tile != null)
+                tile.setRGB((col >> shift) % TILE, (row >> shift) % TILE, color);
+        }
+        int x = toPixel(col);
+        int y = toPixel(row);
+        repaint(x, y, toPixel(col + 1) - x + 1, toPixel(row + 1) - y + 1);
+    }
+
+    /**
+     * Drops every cached tile and repaints the view, after many cells
+     * changed at once or the grid was replaced.
+     */
+    public void gridChanged() {
+        tiles.clear();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the size of the maze at the current scale.
+     *
+     * @return the preferred size of the view
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(toPixel(maze.getCols()) + BORDER, toPixel(maze.getRows()) + BORDER);
+    }
+
+    /**
+     * Draws the tiles that meet the clip, and the outlines of the visible
+     * cells when they are large enough to see.
+     *
+     * @param g the graphics context
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        if (rows == 0 || cols == 0)
+            return;
+
+        int firstRow = Math.max(0, toCell(clip.y));
+        int lastRow = Math.min(rows - 1, toCell(clip.y + clip.height));
+        int firstCol = Math.max(0, toCell(clip.x));
+        int lastCol = Math.min(cols - 1, toCell(clip.x + clip.width));
+        if (firstRow > lastRow || firstCol > lastCol)
+            return;
+
+        int shift = stepShift();
+        int span = TILE << shift;
+        for (int tileRow = firstRow / span; tileRow <= lastRow / span; tileRow++) {
+            for (int tileCol = firstCol / span; tileCol <= lastCol / span; tileCol++) {
+                BufferedImage tile = tile(shift, tileRow, tileCol);
+                int row = tileRow * span;
+                int col = tileCol * span;
+                int endRow = Math.min(rows, row + (tile.getHeight() << shift));
+                int endCol = Math.min(cols, col + (tile.getWidth() << shift));
+                g.drawImage(tile, toPixel(col), toPixel(row), toPixel(endCol), toPixel(endRow),
+                    0, 0, tile.getWidth(), tile.getHeight(), null);
+            }
+        }
+
+        if (scale >= OUTLINE_SCALE) {
+            g.setColor(Color.black);
+            int top = toPixel(firstRow);
+            int bottom = toPixel(lastRow + 1);
+            int left = toPixel(firstCol);
+            int right = toPixel(lastCol + 1);
+            for (int r = firstRow; r <= lastRow + 1; r++) {
+                g.drawLine(left, toPixel(r), right, toPixel(r));
+            }
+            for (int c = firstCol; c <= lastCol + 1; c++) {
+                g.drawLine(toPixel(c), top, toPixel(c), bottom);
+            }
+        }
+    }
+
+    /**
+     * Returns log2 of the step between the cells sampled by the tiles at
+     * the current scale: 0 from one pixel per cell up.
+     *
+     * @return the shift of the step
+     */
+    private int stepShift() {
+        int shift = 0;
+        while (shift < MAX_SHIFT && (1 << shift) * scale < 1) {
+            shift++;
+        }
+        return shift;
+    }
+
+    /**
+     * Returns the cached tile, building it from the maze if it is not
+     * cached.
+     *
+     * @param shift log2 of the step between the cells sampled
+     * @param tileRow the row of the tile
+     * @param tileCol the column of the tile
+     * @return the tile, one pixel per cell sampled
+     */
+    private BufferedImage tile(int shift, int tileRow, int tileCol) {
+        Long key = tileKey(shift, tileRow, tileCol);
+        BufferedImage tile = tiles.get(key);
+        if (tile != null)
+            return tile;
+        int step = 1 << shift;
+        int row = tileRow * (TILE << shift);
+        int col = tileCol * (TILE << shift);
+        int height = Math.min(TILE, (maze.getRows() - row + step - 1) >> shift);
+        int width = Math.min(TILE, (maze.getCols() - col + step - 1) >> shift);
+        tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                pixels[r * width + c] = colorOf(maze.getCell(row + (r << shift), col + (c << shift)));
+            }
+        }
+        tiles.put(key, tile);
+        return tile;
+    }
+
+    /**
+     * Returns the key of a tile in the cache.
+     *
+     * @param shift log2 of the step between the cells sampled
+     * @param tileRow the row of the tile
+     * @param tileCol the column of the tile
+     * @return the key
+     */
+    private static Long tileKey(int shift, int tileRow, int tileCol) {
+        return Position.pack(tileRow, tileCol) << 3 | shift;
+    }
+
+    /**
+     * Returns the color a cell is drawn in, as in the original view.
+     *
+     * @param cell the value of the cell
+     * @return the RGB color
+     */
+    private static int colorOf(Maze.CELL cell) {
+        switch (cell) {
+            case WALL:
+                return Color.black.getRGB();
+            case VISITED:
+                return Color.red.getRGB();
+            case PATH:
+                return Color.green.getRGB();
+            case GOLDCOIN:
+                return Color.yellow.getRGB();
+            default:
+                return Color.white.getRGB();
+        }
+    }
+
+    /**
+     * Returns the pixel where a row or column of cells starts. Tiles and
+     * single cells use the same rounding, so they meet without gaps.
+     *
+     * @param cell the row or column index
+     * @return the coordinate in the view
+     */
+    private int toPixel(int cell) {
+        return BORDER + (int) Math.floor(cell * scale);
+    }
+
+    /**
+     * Returns the row or column of cells under a coordinate of the view.
+     *
+     * @param pixel the coordinate
+     * @return the row or column index, possibly outside the maze
+     */
+    private int toCell(int pixel) {
+        return (int) Math.floor((pixel - BORDER) / scale);
+    }
+
+    /**
+     * Limits a scale to the range of the view.
+     *
+     * @param scale the number of pixels per cell
+     * @return the scale between MIN_SCALE and MAX_SCALE
+     */
+    private static double clamp(double scale) {
+        return Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+    }
+
+    /**
+     * Returns the size the scroll pane starts at: the whole maze if it is
+     * small, otherwise a window-sized part of it.
+     *
+     * @return the preferred size of the viewport
+     */
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension size = getPreferredSize();
+        return new Dimension(Math.min(size.width, 900), Math.min(size.height, 700));
+    }
+
+    /**
+     * Scrolls by one cell for the arrows of the scroll bars.
+     *
+     * @param visible the visible area
+     * @param orientation VERTICAL or HORIZONTAL
+     * @param direction the direction of the scroll
+     * @return the width of a cell in pixels
+     */
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return Math.max(1, (int) Math.ceil(scale));
+    }
+
+    /**
+     * Scrolls by one screen for the tracks of the scroll bars.
+     *
+     * @param visible the visible area
+     * @param orientation VERTICAL or HORIZONTAL
+     * @param direction the direction of the scroll
+     * @return the visible height or width
+     */
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    /**
+     * Keeps the width of the maze, so the view scrolls sideways.
+     *
+     * @return false
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    /**
+     * Keeps the height of the maze, so the view scrolls up and down.
+     *
+     * @return false
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * ObservableMazeSolver is a MazeSolver that tells a listener about every
+ * cell it changes. Every mark the solvers make (markAsVisited,
+ * markAsPath, the cells copied back by solve, setWall) goes through
+ * setCell, so the GUI can redraw just the cells that changed instead of
+ * the whole maze.
+ *
+ * The VISITED and PATH marks are kept in a SearchState apiece, over the
+ * grid, which only holds the walls, open cells and coins. clearMarks
+ * resets the two states, giving back the maze as it was before the
+ * solvers ran without saving a copy of it.
+ */
+public class ObservableMazeSolver extends MazeSolver {
+
+    /**
+     * Receives the changes of the cells of an ObservableMazeSolver, on
+     * the thread that made them.
+     */
+    public interface CellListener {
+
+        /**
+         * Called after a cell has been set.
+         *
+         * @param row the row of the cell
+         * @param col the column of the cell
+         * @param cell the new value of the cell
+         */
+        void cellChanged(int row, int col, CELL cell);
+    }
+
+    private volatile CellListener listener;
+    private SearchState visited;
+    private SearchState path;
+
+    /**
+     * Constructs an ObservableMazeSolver by reading the maze from the
+     * specified input file.
+     *
+     * @param inputFile the name of the file containing the maze
+     */
+    public ObservableMazeSolver(String inputFile) {
+        super(inputFile);
+    }
+
+    /**
+     * Sets the listener told about every cell change.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setCellListener(CellListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the maze grid, without marks.
+     *
+     * @param g the 2D array of CELL to set as the grid
+     */
+    @Override
+    public void setGrid(CELL[][] g) {
+        super.setGrid(g);
+        int cells = g == null || g.length == 0 ? 0 : g.length * g[0].length;
+        visited = new SearchState(cells);
+        path = new SearchState(cells);
+    }
+
+    /**
+     * Removes every VISITED and PATH mark, without telling the listener.
+     */
+    public void clearMarks() {
+        visited.reset();
+        path.reset();
+    }
+
+    /**
+     * Returns the mark of the cell at (row, col) if it has one, and its
+     * value in the grid otherwise.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the CELL value at that position
+     */
+    @Override
+    public CELL getCell(int row, int col) {
+        CELL cell = super.getCell(row, col);
+        int index = row * getCols() + col;
+        if (cell == CELL.WALL || !visited.isVisited(index))
+            return cell;
+        return path.isVisited(index) ? CELL.PATH : CELL.VISITED;
+    }
+
+    /**
+     * Stores a value in the cell at (row, col) and tells the listener.
+     * VISITED and PATH are stored as marks, anything else in the grid.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param cell the value to store
+     */
+    @Override
+    public void setCell(int row, int col, CELL cell) {
+        int index = row * getCols() + col;
+        if (cell == CELL.PATH) {
+            visited.visit(index);
+            path.visit(index);
+        }
+        else if (cell == CELL.VISITED)
+            visited.visit(index);
+        else
+            super.setCell(row, col, cell);
+        CellListener l = listener;
+        if (l != null)
+            l.cellChanged(row, col, cell);
+    }
+}
@@ -0,0 +1,300 @@
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SolveAnimator runs a solve of an ObservableMazeSolver on a worker
+ * thread, so the window stays responsive, and plays the cells it changes
+ * back to a MazeView. The worker only queues each change; a Swing timer
+ * drains the queue on the event dispatch thread at most FRAMES_PER_SECOND
+ * times a second, so a solve that changes a million cells costs the GUI a
+ * few dozen batches, not a million repaints. The worker can be slowed to
+ * a number of cells per second, paused, advanced one cell at a time and
+ * cancelled; it waits in the cell listener, between two cell changes.
+ *
+ * Changes made on the event dispatch thread itself, such as the walls
+ * set by a click, go to the view directly.
+ */
+public class SolveAnimator implements ObservableMazeSolver.CellListener {
+
+    /**
+     * Something to run on the worker: traverse, pickupGoldCoins, solve.
+     */
+    public interface Task {
+
+        /**
+         * Runs the solve.
+         *
+         * @return the message to show when it is done
+         * @throws IllegalAccessException if the solver reaches an invalid position
+         */
+        String run() throws IllegalAccessException;
+    }
+
+    /**
+     * Receives the message of a finished solve on the event dispatch
+     * thread.
+     */
+    public interface Done {
+
+        /**
+         * Called when a solve that was not cancelled has finished.
+         *
+         * @param message the message returned by the task
+         */
+        void finished(String message);
+    }
+
+    /**
+     * The most times a second the view is updated.
+     */
+    public static final int FRAMES_PER_SECOND = 60;
+
+    /**
+     * A batch larger than this redraws the visible tiles once instead of
+     * cell by cell.
+     */
+    private static final int LARGE_BATCH = 1 << 16;
+
+    private final MazeView view;
+    private final Object lock = new Object();
+    private IntQueue pending = new IntQueue();
+    private IntQueue draining = new IntQueue();
+    private final Timer timer;
+    private boolean paused;
+    private int steps;
+    private boolean cancelled;
+    private volatile double cellsPerSecond = Double.POSITIVE_INFINITY;
+    private long due;
+    private Thread worker;
+    private volatile boolean finished;
+    private String result;
+    private Done done;
+
+    /**
+     * Constructs an animator for a maze and the view that shows it, and
+     * sets itself as the listener of the maze.
+     *
+     * @param maze the maze the tasks will change
+     * @param view the view to update
+     */
+    public SolveAnimator(ObservableMazeSolver maze, MazeView view) {
+        this.view = view;
+        maze.setCellListener(this);
+        timer = new Timer(1000 / FRAMES_PER_SECOND, new ActionListener() {
+            public void actionPerformed(ActionEvent ae) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Starts a task on a new worker thread. Must be called on the event
+     * dispatch thread, when no task is running.
+     *
+     * @param task the solve to run
+     * @param done told the message of the task when it finishes
+     * @throws IllegalStateException if a task is running
+     */
+    public void start(final Task task, Done done) {
+        if (isRunning())
+            throw new IllegalStateException("A solve is already running");
+        synchronized (lock) {
+            cancelled = false;
+            steps = 0;
+            due = System.nanoTime();
+        }
+        this.done = done;
+        finished = false;
+        worker = new Thread(new Runnable() {
+            public void run() {
+                result = null;
+                try {
+                    result = task.run();
+                }
+                catch (CancellationException e) {
+                    // cancel is waiting for the thread to end
+                }
+                catch (IllegalAccessException e) {
+                    e.printStackTrace(System.out);
+                    result = e.toString();
+                }
+                finally {
+                    finished = true;
+                }
+            }
+        }, "maze-solver");
+        worker.setDaemon(true);
+        worker.start();
+        timer.start();
+    }
+
+    /**
+     * Returns true while a task is running or its last changes have not
+     * been shown yet.
+     *
+     * @return true if a task is running
+     */
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    /**
+     * Pauses or resumes the worker. A paused worker stops before its next
+     * cell change.
+     *
+     * @param pause true to pause, false to resume
+     */
+    public void setPaused(boolean pause) {
+        synchronized (lock) {
+            paused = pause;
+            due = System.nanoTime();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns true if the worker is paused.
+     *
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        synchronized (lock) {
+            return paused;
+        }
+    }
+
+    /**
+     * Lets a paused worker make one more cell change. Does nothing if the
+     * worker is not paused.
+     */
+    public void step() {
+        synchronized (lock) {
+            if (paused) {
+                steps++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Sets how many cells a second the worker may change.
+     *
+     * @param cellsPerSecond the speed, or Double.POSITIVE_INFINITY for
+     * full speed
+     */
+    public void setSpeed(double cellsPerSecond) {
+        this.cellsPerSecond = cellsPerSecond;
+        synchronized (lock) {
+            due = System.nanoTime();
+        }
+        Thread running = worker;
+        if (running != null)
+            LockSupport.unpark(running);
+    }
+
+    /**
+     * Stops the running task, if any, and waits for its worker to end.
+     * The changes it made are left in the maze, the ones not yet shown
+     * are dropped, and its Done is not told. Must be called on the event
+     * dispatch thread.
+     */
+    public void cancel() {
+        Thread running = worker;
+        if (running == null)
+            return;
+        synchronized (lock) {
+            cancelled = true;
+            lock.notifyAll();
+        }
+        LockSupport.unpark(running);
+        try {
+            running.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timer.stop();
+        synchronized (lock) {
+            pending.clear();
+        }
+        worker = null;
+        view.gridChanged();
+    }
+
+    /**
+     * Shows a change made on the event dispatch thread at once, and queues
+     * one made by the worker, then waits while the worker is paused or
+     * ahead of its speed.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param cell the new value of the cell
+     * @throws CancellationException on the worker once the task is cancelled
+     */
+    @Override
+    public void cellChanged(int row, int col, Maze.CELL cell) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            view.cellChanged(row, col);
+            return;
+        }
+        long wait;
+        synchronized (lock) {
+            pending.add(row);
+            pending.add(col);
+            while (paused && steps == 0 && !cancelled) {
+                try {
+                    lock.wait();
+                }
+                catch (InterruptedException e) {
+                    cancelled = true;
+                }
+            }
+            if (cancelled)
+                throw new CancellationException();
+            if (paused) {
+                steps--;
+                return;
+            }
+            double speed = cellsPerSecond;
+            if (speed == Double.POSITIVE_INFINITY)
+                return;
+            due += (long) (1e9 / speed);
+            wait = due - System.nanoTime();
+        }
+        // Sleeping for less than a millisecond is not precise; let the
+        // debt build up and pay it back in longer sleeps.
+        if (wait > 1000000)
+            LockSupport.parkNanos(wait);
+    }
+
+    /**
+     * Shows the changes queued since the last frame, and finishes the task
+     * once the worker has ended and everything it did is shown.
+     */
+    private void flush() {
+        boolean ended = finished;
+        IntQueue batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = draining;
+            draining = batch;
+        }
+        if (batch.size() / 2 > LARGE_BATCH) {
+            batch.clear();
+            view.gridChanged();
+        }
+        while (!batch.isEmpty()) {
+            view.cellChanged(batch.remove(), batch.remove());
+        }
+        if (ended) {
+            timer.stop();
+            worker = null;
+            if (result != null && done != null)
+                done.finished(result);
+        }
+    }
+}
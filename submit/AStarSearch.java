@@ -0,0 +1,122 @@
+/**
+ * AStarSearch finds a shortest path between two cells of a PackedGrid,
+ * expanding cells in order of f = g + h where g is the cost of the moves
+ * from the start and h is the Manhattan distance to the target, or the
+ * octile distance when the grid allows diagonal moves (see
+ * Neighborhood). Because
+ * the heuristic never overestimates, the path is as short as the one
+ * found by BreadthFirstSearch, but on open grids far fewer cells are
+ * expanded. Cells are visited when they are expanded; the costs and
+ * marks are kept in a SearchState.
+ */
+public final class AStarSearch {
+
+    private AStarSearch() {
+    }
+
+    /**
+     * Searches from start for target and marks the shortest path found.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches from start for target without changing the grid. The
+     * costs of the cells reached, the cells expanded and the shortest
+     * path found are recorded in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        Neighborhood neighborhood = grid.getNeighborhood();
+        int targetRow = grid.rowOf(target);
+        int targetCol = grid.colOf(target);
+
+        IntMinHeap open = state.heap();
+        state.reach(start, 0, start);
+        open.add(key(0, distance(grid, start, targetRow, targetCol)), start);
+
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            int cell = open.removeMin();
+            if (!state.visit(cell))
+                continue; // stale entry, already expanded with a lower g
+            expanded++;
+            if (cell == target) {
+                int length = state.tracePath(start, target);
+                return new SearchResult(true, length, state.costOf(target), expanded);
+            }
+            int g = state.costOf(cell);
+            for (int dir = 0; dir < moves; dir++) {
+                int next = cell + offsets[dir];
+                byte value = grid.getByte(next);
+                int nextG = g + neighborhood.stepCost(dir);
+                if ((value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN)
+                    && nextG < state.costOf(next) && grid.canMove(cell, dir)) {
+                    state.reach(next, nextG, cell);
+                    open.add(key(nextG, distance(grid, next, targetRow, targetCol)), next);
+                }
+            }
+        }
+        return SearchResult.notFound(expanded);
+    }
+
+    /**
+     * Builds a heap key ordered by f = g + h, breaking ties in favor of
+     * the cell closer to the target.
+     *
+     * @param g the cost from the start
+     * @param h the estimated cost to the target
+     * @return the heap key
+     */
+    static long key(int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    /**
+     * Returns the Manhattan distance from a cell to (row, col).
+     *
+     * @param grid the grid the cell belongs to
+     * @param cell the cell index
+     * @param row the target row
+     * @param col the target column
+     * @return the number of unit steps between them ignoring walls
+     */
+    static int manhattan(PackedGrid grid, int cell, int row, int col) {
+        return Math.abs(grid.rowOf(cell) - row) + Math.abs(grid.colOf(cell) - col);
+    }
+
+    /**
+     * Returns the distance from a cell to (row, col) in the neighborhood
+     * of the grid: the Manhattan distance in FOUR, the octile distance
+     * in the others.
+     *
+     * @param grid the grid the cell belongs to
+     * @param cell the cell index
+     * @param row the target row
+     * @param col the target column
+     * @return the cost of the cheapest moves between them ignoring walls
+     */
+    static int distance(PackedGrid grid, int cell, int row, int col) {
+        return grid.getNeighborhood().distance(grid.rowOf(cell) - row, grid.colOf(cell) - col);
+    }
+}
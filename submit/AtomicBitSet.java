@@ -0,0 +1,86 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * AtomicBitSet is a fixed-size set of bits that many threads can set at
+ * once. Bits are packed 64 to a long word and set with compare-and-set,
+ * so exactly one of several threads racing to set the same bit is told
+ * that it was the one to set it.
+ */
+public class AtomicBitSet {
+    private final AtomicLongArray words;
+    private final int size;
+
+    /**
+     * Constructs a set able to hold the bits 0 to size - 1, all clear.
+     *
+     * @param size the number of bits
+     */
+    public AtomicBitSet(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    /**
+     * Sets the bit at index i.
+     *
+     * @param i the index of the bit
+     * @return true if this call changed the bit, false if it was already set
+     */
+    public boolean set(int i) {
+        int w = i >>> 6;
+        long mask = 1L << i;
+        while (true) {
+            long old = words.get(w);
+            if ((old & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(w, old, old | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the bit at index i.
+     *
+     * @param i the index of the bit
+     * @return true if the bit is set
+     */
+    public boolean get(int i) {
+        return (words.get(i >>> 6) & (1L << i)) != 0;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after i, or -1 if
+     * there is none.
+     *
+     * @param i the index to start looking from
+     * @return the index of the next set bit, or -1
+     */
+    public int nextSetBit(int i) {
+        if (i >= size) {
+            return -1;
+        }
+        int w = i >>> 6;
+        long word = words.get(w) & (-1L << i);
+        while (true) {
+            if (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++w == words.length()) {
+                return -1;
+            }
+            word = words.get(w);
+        }
+    }
+
+    /**
+     * Returns the number of bits in the set.
+     *
+     * @return the size given to the constructor
+     */
+    public int size() {
+        return size;
+    }
+}
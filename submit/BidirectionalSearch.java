@@ -0,0 +1,152 @@
+/**
+ * BidirectionalSearch finds a shortest path by running two breadth-first
+ * searches at once, one from the start and one from the target, and
+ * stopping when their frontiers meet. Each round expands one whole level
+ * of the smaller frontier, so each search only has to reach about half
+ * of the distance and far fewer cells are explored on long corridors.
+ * Cells are visited as they are discovered by either side; the marks
+ * are kept in a SearchState.
+ */
+public final class BidirectionalSearch {
+    private BidirectionalSearch() {
+    }
+
+    /**
+     * Searches between start and target and marks the shortest path found.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches between start and target without changing the grid. The
+     * cells discovered by both sides and the shortest path found are
+     * recorded in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+        if (start == target) {
+            state.addToPath(start);
+            return new SearchResult(true, 0, 1);
+        }
+        byte last = grid.getByte(target);
+        if (last != PackedGrid.OPEN && last != PackedGrid.GOLDCOIN)
+            return SearchResult.notFound(0);
+
+        // The side of a discovered cell is the sign of its cost: the
+        // distance d from the start, or -1 - d for the distance from the
+        // target.
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        IntQueue forward = state.queue();
+        IntQueue backward = state.backwardQueue();
+        state.visit(start);
+        state.reach(start, 0, start);
+        state.visit(target);
+        state.reach(target, -1, target);
+        forward.add(start);
+        backward.add(target);
+
+        long expanded = 0;
+        int best = Integer.MAX_VALUE;
+        int meetForward = -1;
+        int meetBackward = -1;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            boolean expandForward = forward.size() <= backward.size();
+            IntQueue queue = expandForward ? forward : backward;
+
+            for (int level = queue.size(); level > 0; level--) {
+                int cell = queue.remove();
+                int dist = distance(state.costOf(cell));
+                expanded++;
+                for (int dir = 0; dir < moves; dir++) {
+                    int next = cell + offsets[dir];
+                    if (!grid.canMove(cell, dir))
+                        continue;
+                    if (state.isVisited(next)) {
+                        int cost = state.costOf(next);
+                        if ((cost >= 0) != expandForward) {
+                            int length = dist + 1 + distance(cost);
+                            if (length < best) {
+                                best = length;
+                                meetForward = expandForward ? cell : next;
+                                meetBackward = expandForward ? next : cell;
+                            }
+                        }
+                    }
+                    else {
+                        byte value = grid.getByte(next);
+                        if (value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN) {
+                            state.visit(next);
+                            state.reach(next, expandForward ? dist + 1 : -2 - dist, cell);
+                            queue.add(next);
+                        }
+                    }
+                }
+            }
+            // Every meeting edge touching this level has been seen, so the
+            // shortest of them is a shortest path.
+            if (best != Integer.MAX_VALUE)
+                break;
+        }
+
+        if (best == Integer.MAX_VALUE)
+            return SearchResult.notFound(expanded);
+        addPath(state, meetForward, meetBackward);
+        return new SearchResult(true, best, expanded);
+    }
+
+    /**
+     * Returns the number of steps from the root of its side encoded in
+     * the cost of a discovered cell.
+     *
+     * @param cost the cost recorded for the cell
+     * @return its distance from the start or from the target
+     */
+    private static int distance(int cost) {
+        return cost >= 0 ? cost : -1 - cost;
+    }
+
+    /**
+     * Adds the path through the meeting edge to the state, from the
+     * target back to the start.
+     *
+     * @param state the state holding the parent links of both sides
+     * @param meetForward the cell of the meeting edge on the start side
+     * @param meetBackward the cell of the meeting edge on the target side
+     */
+    private static void addPath(SearchState state, int meetForward, int meetBackward) {
+        IntStack half = new IntStack();
+        int cell = meetBackward;
+        half.push(cell);
+        while (state.parentOf(cell) != cell) {
+            cell = state.parentOf(cell);
+            half.push(cell);
+        }
+        while (!half.isEmpty()) {
+            state.addToPath(half.pop());
+        }
+        cell = meetForward;
+        state.addToPath(cell);
+        while (state.parentOf(cell) != cell) {
+            cell = state.parentOf(cell);
+            state.addToPath(cell);
+        }
+    }
+}
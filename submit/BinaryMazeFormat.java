@@ -0,0 +1,440 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BinaryMazeFormat defines a compact binary maze file that can be
+ * memory-mapped instead of parsed. The file is a fixed 64-byte header
+ * followed by the cells, one byte per cell holding the CELL ordinal, in
+ * row-major order. If the weights flag is set, the cells are followed by
+ * their weights, one unsigned byte per cell from 1 to
+ * PackedGrid.MAX_WEIGHT, in the same order. All header fields are
+ * little-endian:
+ *
+ *     offset  size  field
+ *          0     4  magic "MAZB"
+ *          4     4  version (1)
+ *          8     4  rows
+ *         12     4  columns
+ *         16     4  start row
+ *         20     4  start column
+ *         24     4  target row
+ *         28     4  target column
+ *         32     8  number of GOLDCOIN cells
+ *         40     4  flags: FLAG_WEIGHTS, or zero
+ *         44    20  reserved, zero
+ *
+ * Use convert to turn a text maze into this format, Writer to produce
+ * one row at a time, and Maze.readBinaryFile to map one.
+ */
+public final class BinaryMazeFormat {
+    /** Size of the header, in bytes; the cells start at this offset. */
+    public static final int HEADER_SIZE = 64;
+    /** Version written by this class. */
+    public static final int VERSION = 1;
+    /** Flag set when a block of cell weights follows the cells. */
+    public static final int FLAG_WEIGHTS = 1;
+
+    private static final int MAGIC = 'M' | 'A' << 8 | 'Z' << 16 | 'B' << 24;
+
+    private BinaryMazeFormat() {
+    }
+
+    /**
+     * The fields stored in the header of a binary maze file.
+     */
+    public static final class Header {
+        private final int rows;
+        private final int cols;
+        private final Position start;
+        private final Position target;
+        private final long coinCount;
+        private final int flags;
+
+        /**
+         * Constructs a header without flags.
+         *
+         * @param rows the number of rows
+         * @param cols the number of columns
+         * @param start the start position
+         * @param target the target position
+         * @param coinCount the number of GOLDCOIN cells
+         */
+        public Header(int rows, int cols, Position start, Position target, long coinCount) {
+            this(rows, cols, start, target, coinCount, 0);
+        }
+
+        /**
+         * Constructs a header.
+         *
+         * @param rows the number of rows
+         * @param cols the number of columns
+         * @param start the start position
+         * @param target the target position
+         * @param coinCount the number of GOLDCOIN cells
+         * @param flags FLAG_WEIGHTS, or zero
+         */
+        public Header(int rows, int cols, Position start, Position target, long coinCount,
+                      int flags) {
+            this.rows = rows;
+            this.cols = cols;
+            this.start = start;
+            this.target = target;
+            this.coinCount = coinCount;
+            this.flags = flags;
+        }
+
+        /** @return the number of rows */
+        public int getRows() {
+            return rows;
+        }
+
+        /** @return the number of columns */
+        public int getCols() {
+            return cols;
+        }
+
+        /** @return the start position */
+        public Position getStart() {
+            return start;
+        }
+
+        /** @return the target position */
+        public Position getTarget() {
+            return target;
+        }
+
+        /** @return the number of GOLDCOIN cells */
+        public long getCoinCount() {
+            return coinCount;
+        }
+
+        /** @return true if the cell weights follow the cells */
+        public boolean hasWeights() {
+            return (flags & FLAG_WEIGHTS) != 0;
+        }
+
+        /**
+         * Returns the number of cell bytes that follow the header.
+         *
+         * @return rows times columns
+         */
+        public long getCellCount() {
+            return (long) rows * cols;
+        }
+    }
+
+    /**
+     * Returns true if the file starts with the binary maze magic number.
+     *
+     * @param file the file to check
+     * @return true if it looks like a binary maze
+     */
+    public static boolean isBinary(String file) {
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            byte[] magic = new byte[4];
+            return in.read(magic) == 4
+                && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads and checks the header at the beginning of a channel.
+     *
+     * @param channel an open channel on a binary maze file
+     * @return the header
+     * @throws MazeFormatException if the header is invalid or does not
+     *     match the length of the file
+     * @throws IOException if the channel cannot be read
+     */
+    public static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0)
+                throw new MazeFormatException("truncated header", 0);
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC)
+            throw new MazeFormatException("not a binary maze file", 0);
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new MazeFormatException("unsupported version " + version, 0);
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        Position start = new Position(buffer.getInt(), buffer.getInt());
+        Position target = new Position(buffer.getInt(), buffer.getInt());
+        long coins = buffer.getLong();
+        int flags = buffer.getInt();
+        if (rows < 0 || cols < 0)
+            throw new MazeFormatException("invalid size " + rows + " x " + cols, 0);
+        if ((flags & ~FLAG_WEIGHTS) != 0)
+            throw new MazeFormatException("unsupported flags " + flags, 0);
+        checkInside("start", start, rows, cols);
+        checkInside("target", target, rows, cols);
+        Header header = new Header(rows, cols, start, target, coins, flags);
+        if (channel.size() < HEADER_SIZE + header.getCellCount())
+            throw new MazeFormatException("file holds fewer than " + rows + " x " + cols + " cells", 0);
+        if (header.hasWeights() && channel.size() < HEADER_SIZE + 2 * header.getCellCount())
+            throw new MazeFormatException("file holds fewer than " + rows + " x " + cols + " weights", 0);
+        return header;
+    }
+
+    /**
+     * Checks that a position read from a header lies inside the grid.
+     *
+     * @param name the name of the field, for the message
+     * @param pos the position
+     * @param rows the number of rows of the grid
+     * @param cols the number of columns of the grid
+     * @throws MazeFormatException if the position is outside the grid
+     */
+    private static void checkInside(String name, Position pos, int rows, int cols)
+        throws MazeFormatException {
+        if (pos.getRow() < 0 || pos.getRow() >= rows || pos.getCol() < 0 || pos.getCol() >= cols)
+            throw new MazeFormatException(name + " " + pos + " outside the " + rows + " x "
+                + cols + " grid", 0);
+    }
+
+    /**
+     * Returns the exception for a cell byte that is not a CELL ordinal,
+     * for the grids that read cells lazily to throw when they find one.
+     *
+     * @param value the byte read
+     * @param position the row-major position of the cell
+     * @param cols the number of columns of the grid
+     * @return an exception naming the value, row and column
+     */
+    static MazeFormatException invalidCell(int value, long position, int cols) {
+        return new MazeFormatException("invalid cell " + value + " at row " + position / cols
+            + " column " + position % cols, 0);
+    }
+
+    /**
+     * Reads the weights that follow the cells of a file whose header has
+     * FLAG_WEIGHTS, onto the heap.
+     *
+     * @param channel an open channel on the file
+     * @param header the header read by readHeader
+     * @return rows * cols weights in row-major order, as PackedGrid.setWeights takes
+     * @throws MazeFormatException if the file has no weights, too many to
+     *     hold in an array, or a weight of 0
+     * @throws IOException if the channel cannot be read
+     */
+    public static byte[] readWeights(FileChannel channel, Header header) throws IOException {
+        if (!header.hasWeights())
+            throw new MazeFormatException("no weights", 0);
+        long count = header.getCellCount();
+        if (count > Integer.MAX_VALUE - 8)
+            throw new MazeFormatException("too many weights to load: " + count, 0);
+        ByteBuffer buffer = ByteBuffer.allocate((int) count);
+        long position = HEADER_SIZE + count;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new MazeFormatException("truncated weights", 0);
+        }
+        byte[] weights = buffer.array();
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == 0)
+                throw new MazeFormatException("invalid weight 0 at row " + i / header.getCols()
+                    + " column " + i % header.getCols(), 0);
+        }
+        return weights;
+    }
+
+    /**
+     * Converts a text maze file into a binary maze file.
+     *
+     * @param textFile the maze to read, in the format of Maze.readFile
+     * @param binaryFile the file to write
+     * @throws IOException if either file cannot be used
+     */
+    public static void convert(String textFile, String binaryFile) throws IOException {
+        MazeParser parser;
+        try (InputStream in = Files.newInputStream(Paths.get(textFile))) {
+            parser = new MazeParser(in);
+            parser.parse();
+        }
+        write(parser.getGrid(), parser.getStart(), parser.getTarget(), binaryFile);
+    }
+
+    /**
+     * Writes a grid as a binary maze file, with its weights if it is a
+     * PackedGrid that has some.
+     *
+     * @param grid the cells to write
+     * @param start the start position
+     * @param target the target position
+     * @param binaryFile the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CellGrid grid, Position start, Position target,
+                             String binaryFile) throws IOException {
+        try (Writer writer = new Writer(binaryFile, grid.getRows(), grid.getCols())) {
+            byte[] row = new byte[grid.getCols()];
+            for (int r = 0; r < grid.getRows(); r++) {
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = (byte) grid.get(r, c).ordinal();
+                }
+                writer.writeRow(row);
+            }
+            if (grid instanceof PackedGrid && ((PackedGrid) grid).hasWeights()) {
+                PackedGrid packed = (PackedGrid) grid;
+                for (int r = 0; r < packed.getRows(); r++) {
+                    for (int c = 0; c < row.length; c++) {
+                        row[c] = (byte) packed.getWeight(r, c);
+                    }
+                    writer.writeWeightRow(row);
+                }
+            }
+            writer.setStart(start);
+            writer.setTarget(target);
+        }
+    }
+
+    /**
+     * Writer produces a binary maze file one row at a time, so grids far
+     * larger than the heap can be written. The weights, if any, are
+     * written the same way once every row of cells is. The header is
+     * completed with the start, target, coin count and flags when the
+     * writer is closed.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final int rows;
+        private final int cols;
+        private final ByteBuffer rowBuffer;
+        private int rowsWritten;
+        private int weightRowsWritten;
+        private long coinCount;
+        private Position start = new Position(0, 0);
+        private Position target;
+
+        /**
+         * Creates or truncates the file and reserves space for the header.
+         *
+         * @param binaryFile the file to write
+         * @param rows the number of rows that will be written
+         * @param cols the number of columns of each row
+         * @throws IOException if the file cannot be opened
+         */
+        public Writer(String binaryFile, int rows, int cols) throws IOException {
+            this.channel = FileChannel.open(Paths.get(binaryFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.rows = rows;
+            this.cols = cols;
+            this.rowBuffer = ByteBuffer.allocate(cols);
+            this.target = new Position(rows - 1, cols - 1);
+            channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Appends the next row of cells.
+         *
+         * @param row cols CELL ordinals
+         * @throws IOException if the row cannot be written
+         */
+        public void writeRow(byte[] row) throws IOException {
+            if (row.length != cols)
+                throw new IllegalArgumentException("Row has " + row.length + " cells, expected " + cols);
+            if (rowsWritten == rows)
+                throw new IllegalStateException("All " + rows + " rows already written");
+            for (byte cell : row) {
+                if (cell == PackedGrid.GOLDCOIN)
+                    coinCount++;
+            }
+            rowBuffer.clear();
+            rowBuffer.put(row);
+            rowBuffer.flip();
+            while (rowBuffer.hasRemaining()) {
+                channel.write(rowBuffer);
+            }
+            rowsWritten++;
+        }
+
+        /**
+         * Appends the next row of weights. Weights are written after all
+         * the rows of cells, and then must be written for every row.
+         *
+         * @param row cols weights, from 1 to PackedGrid.MAX_WEIGHT
+         * @throws IOException if the row cannot be written
+         */
+        public void writeWeightRow(byte[] row) throws IOException {
+            if (row.length != cols)
+                throw new IllegalArgumentException("Row has " + row.length + " weights, expected " + cols);
+            if (rowsWritten != rows)
+                throw new IllegalStateException("Only " + rowsWritten + " of " + rows + " rows written");
+            if (weightRowsWritten == rows)
+                throw new IllegalStateException("All " + rows + " weight rows already written");
+            for (int c = 0; c < cols; c++) {
+                if (row[c] == 0)
+                    throw new IllegalArgumentException("Invalid weight 0 at column " + c);
+            }
+            rowBuffer.clear();
+            rowBuffer.put(row);
+            rowBuffer.flip();
+            while (rowBuffer.hasRemaining()) {
+                channel.write(rowBuffer);
+            }
+            weightRowsWritten++;
+        }
+
+        /**
+         * Sets the start position stored in the header.
+         *
+         * @param start the start position
+         */
+        public void setStart(Position start) {
+            this.start = start;
+        }
+
+        /**
+         * Sets the target position stored in the header.
+         *
+         * @param target the target position
+         */
+        public void setTarget(Position target) {
+            this.target = target;
+        }
+
+        /**
+         * Writes the header and closes the file.
+         *
+         * @throws IOException if fewer rows of cells, or of weights once
+         *     some were written, than announced were written or the header
+         *     cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (rowsWritten != rows)
+                    throw new IOException("Only " + rowsWritten + " of " + rows + " rows written");
+                if (weightRowsWritten != 0 && weightRowsWritten != rows)
+                    throw new IOException("Only " + weightRowsWritten + " of " + rows + " weight rows written");
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols);
+                header.putInt(start.getRow()).putInt(start.getCol());
+                header.putInt(target.getRow()).putInt(target.getCol());
+                header.putLong(coinCount);
+                header.putInt(weightRowsWritten == 0 ? 0 : FLAG_WEIGHTS);
+                header.position(HEADER_SIZE);
+                header.flip();
+                long position = 0;
+                while (header.hasRemaining()) {
+                    position += channel.write(header, position);
+                }
+            }
+            finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for BinaryMazeFormat, MappedGrid and TiledGrid.
+ */
+public class BinaryMazeFormatTest {
+    private File binary;
+
+    /**
+     * Creates a temporary file for each test.
+     * @throws IOException
+     */
+    @Before
+    public void setUp() throws IOException {
+        binary = File.createTempFile("maze", ".mazeb");
+    }
+
+    /**
+     * Deletes the temporary file.
+     */
+    @After
+    public void tearDown() {
+        binary.delete();
+    }
+
+    /**
+     * Tests that a converted maze maps back to the same maze.
+     * @throws IOException
+     */
+    @Test
+    public void testConvertAndMap() throws IOException {
+        BinaryMazeFormat.convert("maze6.txt", binary.getPath());
+        assertTrue(BinaryMazeFormat.isBinary(binary.getPath()));
+        assertFalse(BinaryMazeFormat.isBinary("maze6.txt"));
+
+        MazeSolver text = new MazeSolver("maze6.txt");
+        GridMazeSolver mapped = new GridMazeSolver();
+        mapped.readBinaryFile(binary.getPath());
+        assertTrue(mapped.getCellGrid() instanceof MappedGrid);
+        assertEquals(text.getStartPosition(), mapped.getStartPosition());
+        assertEquals(text.getTargetPosition(), mapped.getTargetPosition());
+        assertEquals(text.toString(), mapped.toString());
+    }
+
+    /**
+     * Tests that the weights of a maze are written after its cells and
+     * read back by readBinaryFile.
+     * @throws IOException
+     */
+    @Test
+    public void testWeights() throws IOException {
+        MazeSolver text = new MazeSolver("maze0.txt");
+        PackedGrid grid = PackedGrid.fromCells(text.getGrid());
+        for (int r = 0; r < grid.getRows(); r++) {
+            grid.setWeight(r, r % grid.getCols(), 1 + r);
+        }
+        BinaryMazeFormat.write(grid, text.getStartPosition(), text.getTargetPosition(),
+            binary.getPath());
+        try (FileChannel channel = FileChannel.open(binary.toPath())) {
+            assertTrue(BinaryMazeFormat.readHeader(channel).hasWeights());
+        }
+
+        GridMazeSolver mapped = new GridMazeSolver();
+        mapped.readBinaryFile(binary.getPath());
+        assertTrue(mapped.hasWeights());
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                assertEquals(grid.getWeight(r, c), mapped.getWeight(r, c));
+            }
+        }
+        SearchResult expected = DijkstraSearch.solve(grid,
+            grid.index(text.getStartPosition().getRow(), text.getStartPosition().getCol()),
+            grid.index(text.getTargetPosition().getRow(), text.getTargetPosition().getCol()));
+        assertEquals(expected.getPathCost(), mapped.solve(SearchStrategy.DIJKSTRA).getPathCost());
+        assertEquals(expected.getPathCost(),
+            ImmutableMaze.readFile(binary.getPath()).solve(SearchStrategy.DIJKSTRA).getPathCost());
+
+        BinaryMazeFormat.convert("maze0.txt", binary.getPath());
+        GridMazeSolver plain = new GridMazeSolver();
+        plain.readBinaryFile(binary.getPath());
+        assertFalse(plain.hasWeights());
+    }
+
+    /**
+     * Tests the header fields, including the coin count.
+     * @throws IOException
+     */
+    @Test
+    public void testHeader() throws IOException {
+        BinaryMazeFormat.convert("maze.txt", binary.getPath());
+        try (FileChannel channel = FileChannel.open(binary.toPath())) {
+            BinaryMazeFormat.Header header = BinaryMazeFormat.readHeader(channel);
+            assertEquals(5, header.getRows());
+            assertEquals(5, header.getCols());
+            assertEquals(new Position(4, 4), header.getTarget());
+            assertEquals(2, header.getCoinCount());
+        }
+    }
+
+    /**
+     * Tests that solving a mapped maze does not change the file.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testSolvingDoesNotChangeFile() throws IOException, IllegalAccessException {
+        BinaryMazeFormat.convert("maze.txt", binary.getPath());
+        GridMazeSolver first = new GridMazeSolver();
+        first.readBinaryFile(binary.getPath());
+        assertEquals(2, first.pickupGoldCoins());
+
+        GridMazeSolver second = new GridMazeSolver();
+        second.readBinaryFile(binary.getPath());
+        assertTrue(second.positionHasGold(new Position(1, 2)));
+        assertTrue(second.traverse());
+        assertEquals(Maze.CELL.PATH, second.getCell(4, 4));
+    }
+
+    /**
+     * Tests that a maze file that cannot be written is solved on heap
+     * copies of the pages it marks, and stays unchanged.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testReadOnlyFile() throws IOException, IllegalAccessException {
+        BinaryMazeFormat.convert("maze.txt", binary.getPath());
+        byte[] before = Files.readAllBytes(binary.toPath());
+        assertTrue(binary.setWritable(false));
+
+        GridMazeSolver first = new GridMazeSolver();
+        first.readBinaryFile(binary.getPath());
+        assertEquals(2, first.pickupGoldCoins());
+        GridMazeSolver second = new GridMazeSolver();
+        second.readBinaryFile(binary.getPath());
+        assertTrue(second.traverse());
+        assertEquals(Maze.CELL.PATH, second.getCell(4, 4));
+        GridMazeSolver third = new GridMazeSolver();
+        third.readBinaryFile(binary.getPath());
+        assertTrue(third.solve(SearchStrategy.BFS).isFound());
+
+        // root can open any file for writing, so map it read-only directly too
+        try (FileChannel channel = FileChannel.open(binary.toPath())) {
+            BinaryMazeFormat.Header header = BinaryMazeFormat.readHeader(channel);
+            GridMazeSolver mapped = new GridMazeSolver(new MappedGrid(channel, header, false),
+                header.getStart(), header.getTarget());
+            assertTrue(mapped.traverse());
+            assertEquals(second.toString(), mapped.toString());
+        }
+        assertTrue(Arrays.equals(before, Files.readAllBytes(binary.toPath())));
+    }
+
+    /**
+     * Tests that a start or target outside the grid is rejected when the
+     * header is read.
+     * @throws IOException
+     */
+    @Test
+    public void testPositionOutsideGrid() throws IOException {
+        for (Position pos : new Position[] { new Position(2, 0), new Position(0, -1) }) {
+            for (boolean start : new boolean[] { true, false }) {
+                try (BinaryMazeFormat.Writer writer = new BinaryMazeFormat.Writer(binary.getPath(), 2, 2)) {
+                    writer.writeRow(new byte[] { PackedGrid.OPEN, PackedGrid.OPEN });
+                    writer.writeRow(new byte[] { PackedGrid.OPEN, PackedGrid.OPEN });
+                    if (start)
+                        writer.setStart(pos);
+                    else
+                        writer.setTarget(pos);
+                }
+                try {
+                    new GridMazeSolver().readBinaryFile(binary.getPath());
+                    fail("Expected MazeFormatException for " + pos);
+                } catch (MazeFormatException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains(start ? "start" : "target"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a cell byte that is not a CELL ordinal is reported as a
+     * MazeFormatException by every grid over the file.
+     * @throws IOException
+     */
+    @Test
+    public void testInvalidCell() throws IOException {
+        try (BinaryMazeFormat.Writer writer = new BinaryMazeFormat.Writer(binary.getPath(), 2, 2)) {
+            writer.writeRow(new byte[] { PackedGrid.OPEN, PackedGrid.OPEN });
+            writer.writeRow(new byte[] { 9, PackedGrid.OPEN });
+        }
+        GridMazeSolver mapped = new GridMazeSolver();
+        mapped.readBinaryFile(binary.getPath());
+        assertEquals(Maze.CELL.OPEN, mapped.getCell(0, 1));
+        try {
+            mapped.getCell(1, 0);
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause() instanceof MazeFormatException);
+            assertTrue(e.getMessage(), e.getMessage().contains("row 1 column 0"));
+        }
+        try (TiledGrid tiled = new TiledGrid(binary.getPath(), 8, 1)) {
+            tiled.get(0, 0);
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause() instanceof MazeFormatException);
+        }
+        try {
+            ImmutableMaze.readFile(binary.getPath());
+            fail("Expected MazeFormatException");
+        } catch (MazeFormatException e) {
+            assertTrue(e.getMessage().contains("invalid cell 9"));
+        }
+    }
+
+    /**
+     * Tests that a file that is not a binary maze is rejected.
+     * @throws IOException
+     */
+    @Test(expected = MazeFormatException.class)
+    public void testBadMagic() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(binary)) {
+            out.write(new byte[BinaryMazeFormat.HEADER_SIZE]);
+        }
+        new GridMazeSolver().readBinaryFile(binary.getPath());
+    }
+
+    /**
+     * Tests that a TiledGrid with a cache much smaller than the maze
+     * reads the same cells and is marked exactly like a CELL[][] maze,
+     * while the file stays unchanged.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTiledGridMatchesArray() throws IOException, IllegalAccessException {
+        Random random = new Random(12);
+        int rows = 37;
+        int cols = 53;
+        Maze.CELL[][] cells = new Maze.CELL[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int roll = random.nextInt(10);
+                cells[r][c] = roll < 3 ? Maze.CELL.WALL
+                    : roll == 3 ? Maze.CELL.GOLDCOIN : Maze.CELL.OPEN;
+            }
+        }
+        cells[0][0] = Maze.CELL.OPEN;
+        Position start = new Position(0, 0);
+        Position target = new Position(rows - 1, cols - 1);
+        PackedGrid original = PackedGrid.fromCells(cells);
+        BinaryMazeFormat.write(original, start, target, binary.getPath());
+
+        MazeSolver expected = new MazeSolver();
+        expected.setGrid(cells);
+        expected.setStartPosition(start);
+        expected.setTargetPosition(target);
+        try (TiledGrid tiled = new TiledGrid(binary.getPath(), 8, 3)) {
+            assertEquals(target, tiled.getHeader().getTarget());
+            GridMazeSolver maze = new GridMazeSolver(tiled, start, target);
+            assertEquals(expected.toString(), maze.toString());
+            assertEquals(expected.pickupGoldCoins(), maze.pickupGoldCoins());
+            assertEquals(expected.toString(), maze.toString());
+            assertTrue(tiled.getCachedTiles() <= 3);
+            assertTrue(tiled.getLoads() > 5 * 7);
+        }
+
+        GridMazeSolver mapped = new GridMazeSolver();
+        mapped.readBinaryFile(binary.getPath());
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++)
+                assertEquals(original.get(r, c), mapped.getCell(r, c));
+        }
+    }
+
+    /**
+     * Tests that a reverted TiledGrid forgets its marks, including those
+     * of tiles saved to the scratch file, and can be solved again.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTiledGridRevert() throws IOException, IllegalAccessException {
+        BinaryMazeFormat.convert("mazeg.txt", binary.getPath());
+        MazeSolver text = new MazeSolver("mazeg.txt");
+        String unmarked = text.toString();
+        int coins = text.pickupGoldCoins();
+        try (TiledGrid tiled = new TiledGrid(binary.getPath(), 2, 2)) {
+            GridMazeSolver maze = new GridMazeSolver(tiled, tiled.getHeader().getStart(),
+                tiled.getHeader().getTarget());
+            assertEquals(coins, maze.pickupGoldCoins());
+            assertFalse(unmarked.equals(maze.toString()));
+            tiled.revert();
+            assertEquals(0, tiled.getCachedTiles());
+            assertEquals(unmarked, maze.toString());
+            assertEquals(coins, maze.pickupGoldCoins());
+        }
+    }
+}
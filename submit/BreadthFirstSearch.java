@@ -0,0 +1,69 @@
+/**
+ * BreadthFirstSearch finds a shortest path between two cells of a
+ * PackedGrid. Cells are visited as they are discovered, the frontier
+ * is kept in an IntQueue and every discovered cell records the index of
+ * the cell it was reached from, so the optimal route can be walked back
+ * from the target. With diagonal moves every move counts as one step.
+ * The marks are kept in a SearchState and written to
+ * the grid as VISITED and PATH only by the in-place solve.
+ */
+public final class BreadthFirstSearch {
+
+    private BreadthFirstSearch() {
+    }
+
+    /**
+     * Searches from start for target and marks the shortest path found.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches from start for target without changing the grid. The
+     * cells discovered and the shortest path found are recorded in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        IntQueue queue = state.queue();
+        state.visit(start, start);
+        queue.add(start);
+
+        long expanded = 0;
+        while (!queue.isEmpty()) {
+            int cell = queue.remove();
+            expanded++;
+            if (cell == target) {
+                return new SearchResult(true, state.tracePath(start, target), expanded);
+            }
+            for (int dir = 0; dir < moves; dir++) {
+                int next = cell + offsets[dir];
+                byte value = grid.getByte(next);
+                if ((value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN)
+                    && grid.canMove(cell, dir) && state.visit(next, cell)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return SearchResult.notFound(expanded);
+    }
+}
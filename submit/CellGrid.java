@@ -0,0 +1,36 @@
+/**
+ * CellGrid is the cell-access abstraction for a maze grid. It lets the
+ * solvers read and write cells by row and column without depending on
+ * how the grid is stored (a CELL[][] array, a packed byte array, ...).
+ */
+public interface CellGrid {
+
+    /**
+     * Returns the number of rows in the grid.
+     * @return number of rows
+     */
+    int getRows();
+
+    /**
+     * Returns the number of columns in the grid.
+     * @return number of columns
+     */
+    int getCols();
+
+    /**
+     * Returns the value stored at (row, col). The position must be
+     * inside the grid.
+     * @param row the row index
+     * @param col the column index
+     * @return the cell value at that position
+     */
+    Maze.CELL get(int row, int col);
+
+    /**
+     * Stores a value at (row, col). The position must be inside the grid.
+     * @param row the row index
+     * @param col the column index
+     * @param cell the value to store
+     */
+    void set(int row, int col, Maze.CELL cell);
+}
@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * ComponentIndex labels the connected components of the open cells of a
+ * maze once, so that asking whether one cell can be reached from another
+ * is a comparison of two labels instead of a new traversal, and the
+ * number of coins pickupGoldCoins would collect is looked up instead of
+ * counted. Building the index reads the grid but never changes it.
+ *
+ * A cell is open if it is OPEN or GOLDCOIN, the cells traverse and
+ * pickupGoldCoins step on; walls and cells already marked VISITED or
+ * PATH get label 0 and belong to no component. The index describes the
+ * grid as it was when it was built and is immutable, so it can be shared
+ * by any number of threads.
+ */
+public final class ComponentIndex {
+    private final int rows;
+    private final int cols;
+    private final int stride;
+    private final int[] labels;
+    private final int componentCount;
+    private final long[] coins;
+    private final long[] sizes;
+
+    /**
+     * Labels the open cells of a grid with a flood fill from each cell
+     * not yet labeled, scanning the grid in row-major order. Components
+     * are numbered from 1 in the order their first cell is found.
+     *
+     * @param grid the grid to index; it is not modified
+     */
+    public ComponentIndex(PackedGrid grid) {
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.stride = cols + 2;
+        this.labels = new int[grid.indexCount()];
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+
+        long[] coinCounts = new long[16];
+        long[] cellCounts = new long[16];
+        int count = 0;
+        IntStack stack = new IntStack();
+        for (int r = 0; r < rows; r++) {
+            int base = grid.index(r, 0);
+            for (int i = base; i < base + cols; i++) {
+                if (labels[i] != 0 || !isOpen(grid.getByte(i)))
+                    continue;
+                int label = ++count;
+                if (label == coinCounts.length) {
+                    coinCounts = Arrays.copyOf(coinCounts, label * 2);
+                    cellCounts = Arrays.copyOf(cellCounts, label * 2);
+                }
+                labels[i] = label;
+                stack.push(i);
+                while (!stack.isEmpty()) {
+                    int cell = stack.pop();
+                    cellCounts[label]++;
+                    if (grid.getByte(cell) == PackedGrid.GOLDCOIN)
+                        coinCounts[label]++;
+                    for (int dir = 0; dir < moves; dir++) {
+                        int next = cell + offsets[dir];
+                        if (labels[next] == 0 && isOpen(grid.getByte(next)) && grid.canMove(cell, dir)) {
+                            labels[next] = label;
+                            stack.push(next);
+                        }
+                    }
+                }
+            }
+        }
+        this.componentCount = count;
+        this.coins = Arrays.copyOf(coinCounts, count + 1);
+        this.sizes = Arrays.copyOf(cellCounts, count + 1);
+    }
+
+    /**
+     * Returns the number of connected components of open cells.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Returns the label of the component holding (row, col), between 1
+     * and getComponentCount(), or 0 if the cell is not open or is
+     * outside the grid.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the component label of the cell
+     */
+    public int getLabel(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols)
+            return 0;
+        return labels[(row + 1) * stride + col + 1];
+    }
+
+    /**
+     * Returns the component label of a position.
+     *
+     * @param p the position
+     * @return the component label, or 0 if p is null, outside the grid or
+     *     not open
+     */
+    public int getLabel(Position p) {
+        return p == null ? 0 : getLabel(p.getRow(), p.getCol());
+    }
+
+    /**
+     * Returns true if there is a path of open cells from one position to
+     * the other, that is, if traverse from the first would reach the second.
+     *
+     * @param from the starting position
+     * @param to the target position
+     * @return true if both are open and in the same component
+     */
+    public boolean isReachable(Position from, Position to) {
+        int label = getLabel(from);
+        return label != 0 && label == getLabel(to);
+    }
+
+    /**
+     * Returns the number of gold coins in a component.
+     *
+     * @param label a component label
+     * @return the number of GOLDCOIN cells with that label, 0 for label 0
+     */
+    public long getCoins(int label) {
+        return label <= 0 || label > componentCount ? 0 : coins[label];
+    }
+
+    /**
+     * Returns the number of gold coins pickupGoldCoins would collect
+     * starting from an open position.
+     *
+     * @param p the starting position
+     * @return the number of coins reachable from p
+     */
+    public long getReachableCoins(Position p) {
+        return getCoins(getLabel(p));
+    }
+
+    /**
+     * Returns the number of cells in a component.
+     *
+     * @param label a component label
+     * @return the number of cells with that label, 0 for label 0
+     */
+    public long getSize(int label) {
+        return label <= 0 || label > componentCount ? 0 : sizes[label];
+    }
+
+    /**
+     * Returns true for the cell values traverse may step on.
+     *
+     * @param value a cell byte of a PackedGrid
+     * @return true if the cell is OPEN or GOLDCOIN
+     */
+    private static boolean isOpen(byte value) {
+        return value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN;
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+/**
+ * Test class for ComponentIndex.
+ */
+public class ComponentIndexTest {
+
+    /**
+     * Tests the labels and coins of the maze with coins.
+     */
+    @Test
+    public void testSampleMaze() {
+        MazeSolver maze = new MazeSolver("maze.txt");
+        String before = maze.toString();
+        ComponentIndex index = maze.indexComponents();
+        assertEquals(before, maze.toString());
+        assertTrue(index.isReachable(maze.getStartPosition(), maze.getTargetPosition()));
+        assertEquals(2, index.getReachableCoins(maze.getStartPosition()));
+        assertEquals(0, index.getLabel(-1, 0));
+        assertEquals(0, index.getLabel(null));
+        assertFalse(index.isReachable(null, maze.getTargetPosition()));
+    }
+
+    /**
+     * Tests reachability and coin counts against traverse and
+     * pickupGoldCoins for random pairs of cells on random grids.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testMatchesTraversal() throws IllegalAccessException {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 40; trial++) {
+            int rows = 3 + random.nextInt(20);
+            int cols = 3 + random.nextInt(20);
+            PackedGrid grid = new PackedGrid(rows, cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int roll = random.nextInt(10);
+                    grid.set(r, c, roll < 4 ? Maze.CELL.WALL
+                        : roll == 4 ? Maze.CELL.GOLDCOIN : Maze.CELL.OPEN);
+                }
+            }
+            ComponentIndex index = new ComponentIndex(grid);
+            for (int query = 0; query < 10; query++) {
+                Position from = new Position(random.nextInt(rows), random.nextInt(cols));
+                Position to = new Position(random.nextInt(rows), random.nextInt(cols));
+                if (index.getLabel(from) == 0)
+                    continue;
+                GridMazeSolver maze = new GridMazeSolver(PackedGrid.copyOf(grid), from, to);
+                assertEquals(maze.traverse(), index.isReachable(from, to));
+                maze = new GridMazeSolver(PackedGrid.copyOf(grid), from, to);
+                assertEquals(maze.pickupGoldCoins(), index.getReachableCoins(from));
+            }
+        }
+    }
+}
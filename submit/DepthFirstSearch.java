@@ -0,0 +1,164 @@
+/**
+ * DepthFirstSearch implements traverse and pickupGoldCoins directly on
+ * the int cell indices of a PackedGrid. The border of WALL sentinels
+ * around the grid means a neighbor is reached by adding an offset, with
+ * no bounds checks, and the explicit IntStack means nothing is allocated
+ * per step and the search depth is not limited by the call stack. Each
+ * method also has a form that only reads the grid and records its marks
+ * in a SearchState.
+ */
+public final class DepthFirstSearch {
+
+    private DepthFirstSearch() {
+    }
+
+    /**
+     * Searches from start for target, exploring neighbors in up, right,
+     * down, left order and marking every cell entered as VISITED. When
+     * the target is reached the cells from start to target are marked
+     * as PATH. The result is the same as MazeSolver.traverse.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return true if the target is reached, false otherwise
+     */
+    public static boolean traverse(PackedGrid grid, int start, int target) {
+        return search(grid, start, target).isFound();
+    }
+
+    /**
+     * Runs the same search as traverse and reports the length of the
+     * path and the number of cells entered.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult search(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = search(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Runs the same search as traverse without changing the grid. The
+     * cells entered and the path found are recorded in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult search(PackedGrid grid, int start, int target, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        IntStack stack = state.stack();
+        state.visit(start);
+        stack.push(start);
+        long expanded = 1;
+        if (start == target) {
+            addPath(state, stack);
+            return new SearchResult(true, 0, expanded);
+        }
+
+        int dir = 0;
+        while (!stack.isEmpty()) {
+            int cell = stack.peek();
+            boolean advanced = false;
+            for (; dir < moves; dir++) {
+                int next = cell + offsets[dir];
+                byte value = grid.getByte(next);
+                if ((value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN)
+                    && grid.canMove(cell, dir) && state.visit(next)) {
+                    stack.push(next);
+                    expanded++;
+                    if (next == target) {
+                        addPath(state, stack);
+                        return new SearchResult(true, stack.size() - 1, expanded);
+                    }
+                    dir = 0;
+                    advanced = true;
+                    break;
+                }
+            }
+
+            if (!advanced) {
+                int dead = stack.pop();
+                if (stack.isEmpty())
+                    break;
+                dir = grid.directionOf(stack.peek(), dead) + 1;
+            }
+        }
+        return SearchResult.notFound(expanded);
+    }
+
+    /**
+     * Flood fills from start, marking every reachable OPEN or GOLDCOIN
+     * cell as VISITED and counting the coins found. The start cell is
+     * always marked, as in MazeSolver.pickupGoldCoins.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @return the number of gold coins picked up
+     */
+    public static int pickupGoldCoins(PackedGrid grid, int start) {
+        SearchState state = new SearchState(grid.indexCount());
+        int coins = pickupGoldCoins(grid, start, state);
+        state.apply(grid);
+        return coins;
+    }
+
+    /**
+     * Runs the same flood fill as pickupGoldCoins without changing the
+     * grid, recording the cells reached in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param state a clear state for the search
+     * @return the number of gold coins that would be picked up
+     */
+    public static int pickupGoldCoins(PackedGrid grid, int start, SearchState state) {
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        int coins = grid.getByte(start) == PackedGrid.GOLDCOIN ? 1 : 0;
+        state.visit(start);
+
+        IntStack stack = state.stack();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int cell = stack.pop();
+            for (int dir = 0; dir < moves; dir++) {
+                int next = cell + offsets[dir];
+                byte value = grid.getByte(next);
+                if ((value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN)
+                    && grid.canMove(cell, dir) && state.visit(next)) {
+                    if (value == PackedGrid.GOLDCOIN)
+                        coins++;
+                    stack.push(next);
+                }
+            }
+        }
+        return coins;
+    }
+
+    /**
+     * Adds every cell index stored on the stack to the path, from the
+     * top of the stack (the target) down to the start.
+     *
+     * @param state the state to record the path in
+     * @param stack the traversal stack holding the path from the start
+     */
+    private static void addPath(SearchState state, IntStack stack) {
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            state.addToPath(stack.get(i));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+/**
+ * Test class for DijkstraSearch, the IntBucketQueue it keeps its open
+ * list in and the cell weights it reads.
+ */
+public class DijkstraSearchTest {
+
+    /**
+     * Tests that values come out of an IntBucketQueue by priority, first
+     * in first out within a priority, and that priorities beyond the step
+     * are refused.
+     */
+    @Test
+    public void testBucketQueue() {
+        IntBucketQueue queue = new IntBucketQueue(5);
+        queue.add(3, 30);
+        queue.add(0, 1);
+        queue.add(5, 50);
+        queue.add(0, 2);
+        assertEquals(4, queue.size());
+        assertEquals(1, queue.removeMin());
+        assertEquals(2, queue.removeMin());
+        assertEquals(30, queue.removeMin());
+        assertEquals(3, queue.currentPriority());
+        queue.add(8, 80);
+        queue.add(4, 40);
+        assertEquals(40, queue.removeMin());
+        assertEquals(50, queue.removeMin());
+        assertEquals(80, queue.removeMin());
+        assertTrue(queue.isEmpty());
+        assertEquals(4, queue.peak());
+        try {
+            queue.add(14, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // more than 5 above 8
+        }
+        queue.clear();
+        assertEquals(0, queue.currentPriority());
+    }
+
+    /**
+     * Tests a queue with a step of 0, which only holds values of the
+     * priority last removed, and that a negative step is refused.
+     */
+    @Test
+    public void testBucketQueueZeroStep() {
+        IntBucketQueue queue = new IntBucketQueue(0);
+        queue.add(0, 1);
+        queue.add(0, 2);
+        assertEquals(1, queue.removeMin());
+        assertEquals(2, queue.removeMin());
+        assertTrue(queue.isEmpty());
+        try {
+            queue.add(1, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // more than 0 above 0
+        }
+        try {
+            new IntBucketQueue(-1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // negative step
+        }
+    }
+
+    /**
+     * Tests that the cheapest path goes around cells that weigh more,
+     * even though it is longer.
+     */
+    @Test
+    public void testRoadBeatsMud() {
+        PackedGrid grid = new PackedGrid(3, 5);
+        for (int r = 0; r < 3; r++) {
+            for (int c = 0; c < 5; c++) {
+                grid.set(r, c, Maze.CELL.OPEN);
+            }
+        }
+        for (int c = 1; c < 4; c++) {
+            grid.setWeight(1, c, 9);
+        }
+        assertEquals(9, grid.getMaxWeight());
+
+        SearchResult bfs = BreadthFirstSearch.solve(PackedGrid.copyOf(grid),
+            grid.index(1, 0), grid.index(1, 4));
+        assertEquals(4, bfs.getPathLength());
+
+        SearchResult result = DijkstraSearch.solve(grid, grid.index(1, 0), grid.index(1, 4));
+        assertTrue(result.isFound());
+        assertEquals(6, result.getPathLength());
+        assertEquals(6, result.getPathCost());
+        assertEquals(Maze.CELL.PATH, grid.get(0, 2));
+        assertNotEquals(Maze.CELL.PATH, grid.get(1, 2));
+    }
+
+    /**
+     * Tests that on mazes without weights the path is as short as the one
+     * found by breadth-first search.
+     */
+    @Test
+    public void testUnweightedMatchesBfs() {
+        String[] files = { "maze.txt", "maze0.txt", "maze1.txt", "maze2.txt", "maze6.txt" };
+        for (String file : files) {
+            SearchResult bfs = new MazeSolver(file).solve(SearchStrategy.BFS);
+            SearchResult dijkstra = new MazeSolver(file).solve(SearchStrategy.DIJKSTRA);
+            assertEquals(file, bfs.isFound(), dijkstra.isFound());
+            assertEquals(file, bfs.getPathLength(), dijkstra.getPathLength());
+            assertEquals(file, dijkstra.getPathLength(), dijkstra.getPathCost());
+        }
+    }
+
+    /**
+     * Tests the cost found on random weighted grids, in every
+     * neighborhood, against costs computed by relaxing every cell until
+     * nothing changes.
+     */
+    @Test
+    public void testMatchesRelaxation() {
+        Random random = new Random(24);
+        Neighborhood[] neighborhoods = Neighborhood.values();
+        for (int round = 0; round < 60; round++) {
+            int rows = 1 + random.nextInt(12);
+            int cols = 1 + random.nextInt(12);
+            PackedGrid grid = new PackedGrid(rows, cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    grid.set(r, c, random.nextInt(4) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                    grid.setWeight(r, c, 1 + random.nextInt(round < 30 ? 9 : PackedGrid.MAX_WEIGHT));
+                }
+            }
+            grid.set(0, 0, Maze.CELL.OPEN);
+            grid.setNeighborhood(neighborhoods[round % neighborhoods.length]);
+            int start = grid.index(0, 0);
+            int target = grid.index(rows - 1, cols - 1);
+            int expected = relax(grid, start, target);
+
+            SearchState state = new SearchState(grid.indexCount());
+            SearchResult result = DijkstraSearch.solve(grid, start, target, state);
+            if (expected < 0) {
+                assertFalse(result.isFound());
+                continue;
+            }
+            assertTrue(result.isFound());
+            assertEquals(expected, result.getPathCost());
+            int cost = 0;
+            for (int i = 0; i < state.getPathCellCount() - 1; i++) {
+                int cell = state.getPathCell(i);
+                int dir = grid.directionOf(state.getPathCell(i + 1), cell);
+                cost += grid.weightAt(cell) * grid.getNeighborhood().stepCost(dir);
+            }
+            assertEquals(expected, cost);
+            assertEquals(result.getPathLength() + 1, state.getPathCellCount());
+        }
+    }
+
+    /**
+     * Tests that weights set on a maze are used by solve(DIJKSTRA) and
+     * ignored by the other strategies.
+     */
+    @Test
+    public void testMazeWeights() {
+        MazeSolver maze = new MazeSolver("maze0.txt");
+        assertFalse(maze.hasWeights());
+        SearchResult plain = maze.solve(SearchStrategy.DIJKSTRA);
+        assertTrue(plain.isFound());
+
+        maze = new MazeSolver("maze0.txt");
+        for (int r = 0; r < maze.getRows(); r++) {
+            for (int c = 0; c < maze.getCols(); c++) {
+                maze.setWeight(r, c, 3);
+            }
+        }
+        assertTrue(maze.hasWeights());
+        assertEquals(3, maze.getWeight(0, 0));
+        SearchResult weighted = maze.solve(SearchStrategy.DIJKSTRA);
+        assertEquals(plain.getPathLength(), weighted.getPathLength());
+        assertEquals(3 * plain.getPathLength(), weighted.getPathCost());
+        SearchResult bfs = new MazeSolver("maze0.txt").solve(SearchStrategy.BFS);
+        assertEquals(bfs.getPathLength(), bfs.getPathCost());
+
+        Maze[] mazes = { new MazeSolver("maze0.txt"), new GridMazeSolver("maze0.txt") };
+        for (Maze reloaded : mazes) {
+            reloaded.setWeight(0, 0, 3);
+            assertTrue(reloaded.hasWeights());
+            reloaded.setGrid(new MazeSolver("maze0.txt").getGrid());
+            assertFalse(reloaded.hasWeights());
+            assertEquals(plain.getPathCost(), reloaded.solve(SearchStrategy.DIJKSTRA).getPathCost());
+        }
+    }
+
+    /**
+     * Returns the cheapest cost from start to target by relaxing the cost
+     * of every open cell until none improves.
+     *
+     * @param grid the grid
+     * @param start the index of the start
+     * @param target the index of the target
+     * @return the cost, or -1 if the target cannot be reached
+     */
+    private static int relax(PackedGrid grid, int start, int target) {
+        int[] cost = new int[grid.indexCount()];
+        java.util.Arrays.fill(cost, Integer.MAX_VALUE);
+        cost[start] = 0;
+        int[] offsets = grid.neighborOffsets();
+        Neighborhood neighborhood = grid.getNeighborhood();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = 0; cell < cost.length; cell++) {
+                if (cost[cell] == Integer.MAX_VALUE)
+                    continue;
+                for (int dir = 0; dir < neighborhood.moves(); dir++) {
+                    int next = cell + offsets[dir];
+                    if (grid.getByte(next) != PackedGrid.OPEN || !grid.canMove(cell, dir))
+                        continue;
+                    int value = cost[cell] + grid.weightAt(next) * neighborhood.stepCost(dir);
+                    if (value < cost[next]) {
+                        cost[next] = value;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return grid.getByte(target) != PackedGrid.OPEN || cost[target] == Integer.MAX_VALUE
+            ? -1 : cost[target];
+    }
+}
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * DistanceService computes many-to-many shortest path distances on one
+ * ImmutableMaze: the number of steps from each of a list of sources to
+ * each of a list of targets, or between every pair of a list of
+ * waypoints. Each source gets one breadth-first search that stops as
+ * soon as every target has been reached. The searches of a query run in
+ * parallel on a ForkJoinPool and take their buffers from the maze's
+ * SearchStatePool, so each thread keeps reusing the same visited bitset
+ * and queue memory from one source to the next.
+ *
+ * An optional Cache shared by several services keeps, for the most
+ * recently used (maze id, source) pairs, the distances found to every
+ * target asked for so far; a query whose targets are all known for a
+ * source needs no search from it.
+ */
+public final class DistanceService {
+    /** The distance reported between cells with no path between them. */
+    public static final int UNREACHABLE = -1;
+
+    private final ImmutableMaze maze;
+    private final PackedGrid grid;
+    private final String mazeId;
+    private final Cache cache;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a service without a cache that runs on the common pool.
+     *
+     * @param maze the maze to measure distances on
+     */
+    public DistanceService(ImmutableMaze maze) {
+        this(maze, null, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param maze the maze to measure distances on
+     * @param mazeId the name of the maze in the cache; distinct mazes
+     *     sharing a cache need distinct ids
+     * @param cache the cache of distances, or null for none
+     * @param pool the pool the searches run on
+     */
+    public DistanceService(ImmutableMaze maze, String mazeId, Cache cache, ForkJoinPool pool) {
+        if (cache != null && mazeId == null)
+            throw new IllegalArgumentException("A cached service needs a maze id");
+        this.maze = maze;
+        this.grid = maze.grid();
+        this.mazeId = mazeId;
+        this.cache = cache;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the distance between every pair of waypoints.
+     *
+     * @param waypoints the positions to measure between
+     * @return a matrix whose entry [i][j] is the number of steps from
+     *     waypoint i to waypoint j, or UNREACHABLE
+     */
+    public int[][] distances(List<Position> waypoints) {
+        return distances(waypoints, waypoints);
+    }
+
+    /**
+     * Returns the distance from every source to every target. A source
+     * or target outside the grid or not OPEN or GOLDCOIN reaches nothing,
+     * except that a cell is always at distance 0 from itself.
+     *
+     * @param sources the positions to measure from
+     * @param targets the positions to measure to
+     * @return a matrix whose entry [i][j] is the number of steps from
+     *     source i to target j, or UNREACHABLE
+     */
+    public int[][] distances(List<Position> sources, List<Position> targets) {
+        final int[] targetCells = new int[targets.size()];
+        for (int j = 0; j < targetCells.length; j++) {
+            targetCells[j] = cellOf(targets.get(j));
+        }
+        final int[] wanted = distinct(targetCells);
+
+        final int[][] rows = new int[sources.size()][];
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            final int row = i;
+            final int source = cellOf(sources.get(i));
+            tasks[i] = pool.submit(new Runnable() {
+                public void run() {
+                    rows[row] = select(distancesFrom(source, wanted), targetCells, source);
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the distances from one source to a sorted set of target
+     * cells, from the cache when it knows them all.
+     *
+     * @param source the source cell, or -1 if it is not a valid cell
+     * @param wanted the distinct target cells, sorted, without -1
+     * @return the known distances, covering at least the wanted cells
+     */
+    private Row distancesFrom(int source, int[] wanted) {
+        if (source < 0)
+            return new Row(new int[0], new int[0]);
+        if (cache == null)
+            return search(source, wanted);
+        Row cached = cache.get(mazeId, source);
+        if (cached != null && cached.covers(wanted))
+            return cached;
+        int[] cells = cached == null ? wanted : distinct(concat(cached.cells, wanted));
+        Row row = search(source, cells);
+        cache.put(mazeId, source, row);
+        return row;
+    }
+
+    /**
+     * Runs a breadth-first search from source, one level at a time,
+     * until every target cell has been reached or nothing is left.
+     *
+     * @param source the source cell
+     * @param cells the distinct target cells, sorted
+     * @return the distance to every target cell
+     */
+    private Row search(int source, int[] cells) {
+        int[] dist = new int[cells.length];
+        Arrays.fill(dist, UNREACHABLE);
+        if (!isOpen(grid.getByte(source)))
+            return new Row(cells, dist);
+
+        // Walls can never be reached, so they are not waited for.
+        BitSet isTarget = new BitSet();
+        int remaining = 0;
+        for (int cell : cells) {
+            if (isOpen(grid.getByte(cell))) {
+                isTarget.set(cell);
+                remaining++;
+            }
+        }
+        int[] offsets = grid.neighborOffsets();
+        int moves = grid.moves();
+        SearchState state = maze.acquireState();
+        try {
+            IntQueue queue = state.queue();
+            state.visit(source);
+            queue.add(source);
+            int level = 0;
+            while (!queue.isEmpty() && remaining > 0) {
+                for (int count = queue.size(); count > 0; count--) {
+                    int cell = queue.remove();
+                    if (isTarget.get(cell)) {
+                        dist[Arrays.binarySearch(cells, cell)] = level;
+                        remaining--;
+                    }
+                    for (int dir = 0; dir < moves; dir++) {
+                        int next = cell + offsets[dir];
+                        if (isOpen(grid.getByte(next)) && grid.canMove(cell, dir) && state.visit(next)) {
+                            queue.add(next);
+                        }
+                    }
+                }
+                level++;
+            }
+        }
+        finally {
+            maze.releaseState(state);
+        }
+        return new Row(cells, dist);
+    }
+
+    /**
+     * Returns true for the cell values a path may go through.
+     *
+     * @param value a cell byte of a PackedGrid
+     * @return true if the cell is OPEN or GOLDCOIN
+     */
+    private static boolean isOpen(byte value) {
+        return value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN;
+    }
+
+    /**
+     * Lays out the distances of a row in the order of the targets asked for.
+     *
+     * @param row the distances known from the source
+     * @param targetCells the cell of every target, in order, or -1
+     * @param source the source cell, or -1
+     * @return one distance per target
+     */
+    private static int[] select(Row row, int[] targetCells, int source) {
+        int[] result = new int[targetCells.length];
+        for (int j = 0; j < result.length; j++) {
+            int cell = targetCells[j];
+            if (cell < 0)
+                result[j] = UNREACHABLE;
+            else if (cell == source)
+                result[j] = 0;
+            else
+                result[j] = row.distanceTo(cell);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cell index of a position, or -1 if it is outside the grid.
+     *
+     * @param p the position
+     * @return its cell index, or -1
+     */
+    private int cellOf(Position p) {
+        if (!maze.positionIsValid(p))
+            return -1;
+        return grid.index(p.getRow(), p.getCol());
+    }
+
+    /**
+     * Returns the distinct non-negative values of an array, sorted.
+     *
+     * @param values the values
+     * @return a new sorted array without duplicates or negative values
+     */
+    private static int[] distinct(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int value : sorted) {
+            if (value >= 0 && (count == 0 || sorted[count - 1] != value))
+                sorted[count++] = value;
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Returns the values of two arrays one after the other.
+     *
+     * @param a the first array
+     * @param b the second array
+     * @return a new array holding a then b
+     */
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * The distances from one source to a sorted set of target cells.
+     * A row is never changed once built, so the cache can hand it to
+     * several threads.
+     */
+    static final class Row {
+        final int[] cells;
+        final int[] dist;
+
+        Row(int[] cells, int[] dist) {
+            this.cells = cells;
+            this.dist = dist;
+        }
+
+        /**
+         * Returns true if the row has the distance to every given cell.
+         *
+         * @param wanted sorted cells
+         * @return true if all of them are in the row
+         */
+        boolean covers(int[] wanted) {
+            for (int cell : wanted) {
+                if (Arrays.binarySearch(cells, cell) < 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the distance to a cell of the row.
+         *
+         * @param cell a cell in the row
+         * @return the distance, or UNREACHABLE
+         */
+        int distanceTo(int cell) {
+            int i = Arrays.binarySearch(cells, cell);
+            return i < 0 ? UNREACHABLE : dist[i];
+        }
+    }
+
+    /**
+     * Cache is a thread-safe LRU cache of distance rows keyed by maze id
+     * and source cell, which several DistanceServices can share. It holds
+     * at most a fixed number of rows, each as large as the number of
+     * distinct targets asked for from its source.
+     */
+    public static final class Cache {
+        private final int maxEntries;
+        private final LinkedHashMap<String, Row> rows;
+
+        /**
+         * Constructs an empty cache.
+         *
+         * @param maxEntries the largest number of (maze, source) rows kept
+         */
+        public Cache(final int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.rows = new LinkedHashMap<String, Row>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Row> eldest) {
+                    return size() > Cache.this.maxEntries;
+                }
+            };
+        }
+
+        /**
+         * Returns the number of rows in the cache.
+         *
+         * @return the number of cached rows
+         */
+        public synchronized int size() {
+            return rows.size();
+        }
+
+        /**
+         * Removes every row.
+         */
+        public synchronized void clear() {
+            rows.clear();
+        }
+
+        /**
+         * Returns the row of a source, marking it most recently used.
+         *
+         * @param mazeId the maze id
+         * @param source the source cell
+         * @return the row, or null if it is not cached
+         */
+        synchronized Row get(String mazeId, int source) {
+            return rows.get(key(mazeId, source));
+        }
+
+        /**
+         * Stores the row of a source, evicting the least recently used
+         * row if the cache is full.
+         *
+         * @param mazeId the maze id
+         * @param source the source cell
+         * @param row the row to store
+         */
+        synchronized void put(String mazeId, int source, Row row) {
+            rows.put(key(mazeId, source), row);
+        }
+
+        /**
+         * Returns the map key of a (maze id, source) pair.
+         *
+         * @param mazeId the maze id
+         * @param source the source cell
+         * @return the key
+         */
+        private static String key(String mazeId, int source) {
+            return source + "@" + mazeId;
+        }
+    }
+}
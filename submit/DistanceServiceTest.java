@@ -0,0 +1,104 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for DistanceService.
+ */
+public class DistanceServiceTest {
+
+    /**
+     * Tests every distance against the path length found by BFS on
+     * random grids, with and without a cache.
+     */
+    @Test
+    public void testMatchesBreadthFirstSearch() {
+        Random random = new Random(3);
+        DistanceService.Cache cache = new DistanceService.Cache(8);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                int rows = 2 + random.nextInt(15);
+                int cols = 2 + random.nextInt(15);
+                PackedGrid grid = new PackedGrid(rows, cols);
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        grid.set(r, c, random.nextInt(4) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                    }
+                }
+                List<Position> waypoints = new ArrayList<Position>();
+                for (int i = 0; i < 6; i++) {
+                    waypoints.add(new Position(random.nextInt(rows), random.nextInt(cols)));
+                }
+                ImmutableMaze maze = new ImmutableMaze(grid, waypoints.get(0), waypoints.get(1));
+                int[][] plain = new DistanceService(maze).distances(waypoints);
+                DistanceService cached = new DistanceService(maze, "maze" + trial, cache, pool);
+                int[][] first = cached.distances(waypoints.subList(0, 3), waypoints);
+                int[][] second = cached.distances(waypoints);
+
+                for (int i = 0; i < waypoints.size(); i++) {
+                    for (int j = 0; j < waypoints.size(); j++) {
+                        Position from = waypoints.get(i);
+                        Position to = waypoints.get(j);
+                        SearchState state = maze.acquireState();
+                        SearchResult result = maze.solve(SearchStrategy.BFS, from, to, state);
+                        maze.releaseState(state);
+                        int expected = from.equals(to) ? 0
+                            : result.isFound() ? result.getPathLength() : DistanceService.UNREACHABLE;
+                        assertEquals(expected, plain[i][j]);
+                        assertEquals(expected, second[i][j]);
+                        if (i < 3)
+                            assertEquals(expected, first[i][j]);
+                    }
+                }
+                assertTrue(cache.size() <= 8);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the cache keeps a source's row and extends it when new
+     * targets are asked for.
+     * @throws IOException
+     */
+    @Test
+    public void testCacheRows() throws IOException {
+        ImmutableMaze maze = ImmutableMaze.readFile("maze.txt");
+        DistanceService.Cache cache = new DistanceService.Cache(2);
+        DistanceService service = new DistanceService(maze, "maze.txt", cache, ForkJoinPool.commonPool());
+        Position start = maze.getStartPosition();
+        Position target = maze.getTargetPosition();
+        int[][] d = service.distances(Arrays.asList(start), Arrays.asList(target));
+        assertEquals(8, d[0][0]);
+        assertEquals(1, cache.size());
+        d = service.distances(Arrays.asList(start, target));
+        assertArrayEquals(new int[] { 0, 8 }, d[0]);
+        assertArrayEquals(new int[] { 8, 0 }, d[1]);
+        assertEquals(2, cache.size());
+        service.distances(Arrays.asList(new Position(0, 1)), Arrays.asList(target));
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Tests the distance matrix of a Maze, which must not be marked.
+     */
+    @Test
+    public void testMazeDistances() {
+        MazeSolver maze = new MazeSolver("maze.txt");
+        String before = maze.toString();
+        int[][] d = maze.distances(Arrays.asList(maze.getStartPosition(),
+            maze.getTargetPosition(), new Position(-1, 0)));
+        assertEquals(8, d[0][1]);
+        assertEquals(DistanceService.UNREACHABLE, d[0][2]);
+        assertEquals(DistanceService.UNREACHABLE, d[2][2]);
+        assertEquals(before, maze.toString());
+    }
+}
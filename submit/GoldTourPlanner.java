@@ -0,0 +1,406 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GoldTourPlanner finds a short walk that starts at the start position,
+ * picks up every GOLDCOIN reachable from it and ends at the target. The
+ * distances between the start, the coins and the target are measured
+ * with a DistanceService, which turns the maze into a path version of
+ * the traveling salesman problem over those points:
+ *
+ * - with at most HELD_KARP_LIMIT coins the order is optimal, found with
+ *   the Held-Karp dynamic program in O(2^k k^2) time;
+ * - with more coins a nearest-neighbor order is improved with 2-opt
+ *   (reversing a run of stops) and or-opt (moving a run of one to three
+ *   stops elsewhere) until neither finds a shorter walk.
+ *
+ * The distance matrix holds (k + 2)^2 ints for k coins.
+ */
+public final class GoldTourPlanner {
+    /** The largest number of coins for which the tour is optimal. */
+    public static final int HELD_KARP_LIMIT = 15;
+
+    private GoldTourPlanner() {
+    }
+
+    /**
+     * A planned walk: the coins in the order they are picked up and the
+     * total number of steps from the start through all of them to the
+     * target.
+     */
+    public static final class Tour {
+        private final ImmutableMaze maze;
+        private final List<Position> stops;
+        private final long length;
+        private final boolean optimal;
+
+        Tour(ImmutableMaze maze, List<Position> stops, long length, boolean optimal) {
+            this.maze = maze;
+            this.stops = Collections.unmodifiableList(stops);
+            this.length = length;
+            this.optimal = optimal;
+        }
+
+        /**
+         * Returns true if the target can be reached, so there is a tour.
+         *
+         * @return true if a tour was found
+         */
+        public boolean isFound() {
+            return length >= 0;
+        }
+
+        /**
+         * Returns the number of steps of the tour.
+         *
+         * @return the length of the tour, or -1 if there is none
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the positions of the coins, in the order the tour
+         * picks them up.
+         *
+         * @return the coins of the tour
+         */
+        public List<Position> getStops() {
+            return stops;
+        }
+
+        /**
+         * Returns true if the tour is known to be the shortest one.
+         *
+         * @return true if the order was found by Held-Karp
+         */
+        public boolean isOptimal() {
+            return optimal;
+        }
+
+        /**
+         * Marks the cells walked by the tour as PATH, following a
+         * shortest path for every leg between two stops.
+         *
+         * @param grid a grid of the same size as the planned maze
+         */
+        public void markPath(PackedGrid grid) {
+            if (!isFound())
+                return;
+            List<Position> points = new ArrayList<Position>();
+            points.add(maze.getStartPosition());
+            points.addAll(stops);
+            points.add(maze.getTargetPosition());
+            SearchState state = maze.acquireState();
+            try {
+                for (int i = 0; i + 1 < points.size(); i++) {
+                    maze.solve(SearchStrategy.BFS, points.get(i), points.get(i + 1), state);
+                    for (int p = 0; p < state.getPathCellCount(); p++) {
+                        grid.setByte(state.getPathCell(p), PackedGrid.PATH);
+                    }
+                    state.reset();
+                }
+            }
+            finally {
+                maze.releaseState(state);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "tour length: " + length + ", coins: " + stops.size()
+                + (optimal ? "" : " (heuristic)");
+        }
+    }
+
+    /**
+     * Plans the tour from the start to the target of a maze.
+     *
+     * @param maze the maze
+     * @return the tour, which is not found if the target cannot be
+     *     reached from the start
+     */
+    public static Tour plan(ImmutableMaze maze) {
+        return plan(maze, new DistanceService(maze));
+    }
+
+    /**
+     * Plans the tour from the start to the target of a maze, measuring
+     * distances with the given service.
+     *
+     * @param maze the maze
+     * @param distances a distance service on the same maze
+     * @return the tour, which is not found if the target cannot be
+     *     reached from the start
+     */
+    public static Tour plan(ImmutableMaze maze, DistanceService distances) {
+        Position start = maze.getStartPosition();
+        Position target = maze.getTargetPosition();
+        List<Position> coins = reachableCoins(maze, start);
+        List<Position> points = new ArrayList<Position>(coins.size() + 2);
+        points.add(start);
+        points.addAll(coins);
+        points.add(target);
+        int[][] d = distances.distances(points);
+        int k = coins.size();
+        if (d[0][k + 1] == DistanceService.UNREACHABLE)
+            return new Tour(maze, new ArrayList<Position>(), -1, true);
+
+        int[] order = k <= HELD_KARP_LIMIT ? heldKarp(d, k) : improve(d, nearestNeighbor(d, k));
+        List<Position> stops = new ArrayList<Position>(k);
+        for (int i = 1; i <= k; i++) {
+            stops.add(points.get(order[i]));
+        }
+        return new Tour(maze, stops, length(d, order), k <= HELD_KARP_LIMIT);
+    }
+
+    /**
+     * Returns the GOLDCOIN cells reachable from a position, in row-major
+     * order, found with a flood fill that does not mark the maze.
+     *
+     * @param maze the maze
+     * @param from the position to start from
+     * @return the positions of the coins
+     */
+    static List<Position> reachableCoins(ImmutableMaze maze, Position from) {
+        List<Position> coins = new ArrayList<Position>();
+        if (!maze.positionIsValid(from))
+            return coins;
+        PackedGrid grid = maze.grid();
+        SearchState state = maze.acquireState();
+        try {
+            DepthFirstSearch.pickupGoldCoins(grid, grid.index(from.getRow(), from.getCol()), state);
+            for (int r = 0; r < grid.getRows(); r++) {
+                int base = grid.index(r, 0);
+                for (int c = 0; c < grid.getCols(); c++) {
+                    if (grid.getByte(base + c) == PackedGrid.GOLDCOIN && state.isVisited(base + c))
+                        coins.add(Position.of(r, c));
+                }
+            }
+        }
+        finally {
+            maze.releaseState(state);
+        }
+        return coins;
+    }
+
+    /**
+     * Finds the optimal order with the Held-Karp dynamic program. best[S][j]
+     * is the length of the shortest walk from the start through the coin
+     * set S ending at coin j.
+     *
+     * @param d the distances between the points: the start, the k coins
+     *     and the target
+     * @param k the number of coins
+     * @return the points in tour order, from 0 (the start) to k + 1
+     */
+    static int[] heldKarp(int[][] d, int k) {
+        int[] order = new int[k + 2];
+        order[k + 1] = k + 1;
+        if (k == 0)
+            return order;
+        int sets = 1 << k;
+        long[] best = new long[sets * k];
+        byte[] previous = new byte[sets * k];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int j = 0; j < k; j++) {
+            best[(1 << j) * k + j] = d[0][j + 1];
+        }
+        for (int set = 1; set < sets; set++) {
+            for (int j = 0; j < k; j++) {
+                long cost = best[set * k + j];
+                if (cost == Long.MAX_VALUE)
+                    continue;
+                for (int next = 0; next < k; next++) {
+                    if ((set & 1 << next) != 0)
+                        continue;
+                    int grown = set | 1 << next;
+                    long total = cost + d[j + 1][next + 1];
+                    if (total < best[grown * k + next]) {
+                        best[grown * k + next] = total;
+                        previous[grown * k + next] = (byte) j;
+                    }
+                }
+            }
+        }
+
+        int full = sets - 1;
+        int last = 0;
+        long shortest = Long.MAX_VALUE;
+        for (int j = 0; j < k; j++) {
+            long total = best[full * k + j] + d[j + 1][k + 1];
+            if (total < shortest) {
+                shortest = total;
+                last = j;
+            }
+        }
+        int set = full;
+        for (int i = k; i >= 1; i--) {
+            order[i] = last + 1;
+            int before = previous[set * k + last];
+            set &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    /**
+     * Builds an order by always walking to the nearest coin not yet
+     * picked up.
+     *
+     * @param d the distances between the points
+     * @param k the number of coins
+     * @return the points in tour order
+     */
+    static int[] nearestNeighbor(int[][] d, int k) {
+        int[] order = new int[k + 2];
+        boolean[] used = new boolean[k + 1];
+        int current = 0;
+        for (int i = 1; i <= k; i++) {
+            int nearest = -1;
+            for (int c = 1; c <= k; c++) {
+                if (!used[c] && (nearest < 0 || d[current][c] < d[current][nearest]))
+                    nearest = c;
+            }
+            used[nearest] = true;
+            order[i] = nearest;
+            current = nearest;
+        }
+        order[k + 1] = k + 1;
+        return order;
+    }
+
+    /**
+     * Applies 2-opt and or-opt moves to an order while either of them
+     * makes the walk shorter. The first and last points stay in place.
+     *
+     * @param d the distances between the points, which are symmetric
+     * @param order the points in tour order; it is changed in place
+     * @return order
+     */
+    static int[] improve(int[][] d, int[] order) {
+        boolean improved = true;
+        while (improved) {
+            improved = twoOpt(d, order) | orOpt(d, order);
+        }
+        return order;
+    }
+
+    /**
+     * Reverses every run of stops order[i..j] whose reversal shortens the
+     * walk.
+     *
+     * @param d the distances between the points
+     * @param order the points in tour order
+     * @return true if the order changed
+     */
+    private static boolean twoOpt(int[][] d, int[] order) {
+        boolean changed = false;
+        int last = order.length - 2;
+        for (int i = 1; i < last; i++) {
+            for (int j = i + 1; j <= last; j++) {
+                long delta = (long) d[order[i - 1]][order[j]] + d[order[i]][order[j + 1]]
+                    - d[order[i - 1]][order[i]] - d[order[j]][order[j + 1]];
+                if (delta < 0) {
+                    reverse(order, i, j);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Moves runs of one to three stops, forward or reversed, to the
+     * place between two other stops where the walk gets shorter.
+     *
+     * @param d the distances between the points
+     * @param order the points in tour order
+     * @return true if the order changed
+     */
+    private static boolean orOpt(int[][] d, int[] order) {
+        boolean changed = false;
+        int last = order.length - 2;
+        for (int size = 1; size <= 3; size++) {
+            for (int i = 1; i + size - 1 <= last; i++) {
+                int j = i + size - 1;
+                int first = order[i];
+                int end = order[j];
+                long removed = (long) d[order[i - 1]][first] + d[end][order[j + 1]]
+                    - d[order[i - 1]][order[j + 1]];
+                for (int p = 0; p <= last; p++) {
+                    if (p >= i - 1 && p <= j)
+                        continue;
+                    int a = order[p];
+                    int b = order[p + 1];
+                    long forward = (long) d[a][first] + d[end][b] - d[a][b];
+                    long backward = (long) d[a][end] + d[first][b] - d[a][b];
+                    long added = Math.min(forward, backward);
+                    if (added < removed) {
+                        move(order, i, j, p, backward < forward);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Moves order[i..j] to just after order[p], reversing it if asked.
+     *
+     * @param order the points in tour order
+     * @param i the first index of the run
+     * @param j the last index of the run
+     * @param p the index the run is placed after, outside [i - 1, j]
+     * @param reversed true to insert the run backwards
+     */
+    private static void move(int[] order, int i, int j, int p, boolean reversed) {
+        int[] run = Arrays.copyOfRange(order, i, j + 1);
+        if (reversed) {
+            reverse(run, 0, run.length - 1);
+        }
+        int size = run.length;
+        if (p > j) {
+            System.arraycopy(order, j + 1, order, i, p - j);
+            System.arraycopy(run, 0, order, p - size + 1, size);
+        }
+        else {
+            System.arraycopy(order, p + 1, order, p + 1 + size, i - p - 1);
+            System.arraycopy(run, 0, order, p + 1, size);
+        }
+    }
+
+    /**
+     * Reverses order[i..j].
+     *
+     * @param order the array
+     * @param i the first index
+     * @param j the last index
+     */
+    private static void reverse(int[] order, int i, int j) {
+        for (; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Returns the length of the walk through the points in order.
+     *
+     * @param d the distances between the points
+     * @param order the points in tour order
+     * @return the total number of steps
+     */
+    static long length(int[][] d, int[] order) {
+        long total = 0;
+        for (int i = 0; i + 1 < order.length; i++) {
+            total += d[order[i]][order[i + 1]];
+        }
+        return total;
+    }
+}
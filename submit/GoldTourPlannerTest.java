@@ -0,0 +1,155 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for GoldTourPlanner.
+ */
+public class GoldTourPlannerTest {
+
+    /**
+     * Returns a random grid with walls and a few coins.
+     *
+     * @param random the random source
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param coinOdds one cell in coinOdds is a coin
+     * @return the grid
+     */
+    private static PackedGrid randomGrid(Random random, int rows, int cols, int coinOdds) {
+        PackedGrid grid = new PackedGrid(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int roll = random.nextInt(coinOdds);
+                grid.set(r, c, roll == 0 ? Maze.CELL.GOLDCOIN
+                    : roll < coinOdds / 4 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the length of the shortest tour by trying every order.
+     *
+     * @param d the distances between start, coins and target
+     * @param order the points in tour order; permuted in place
+     * @param i the first index still to be permuted
+     * @return the shortest length
+     */
+    private static long bruteForce(int[][] d, int[] order, int i) {
+        if (i >= order.length - 2)
+            return GoldTourPlanner.length(d, order);
+        long best = Long.MAX_VALUE;
+        for (int j = i; j < order.length - 1; j++) {
+            int swap = order[i]; order[i] = order[j]; order[j] = swap;
+            best = Math.min(best, bruteForce(d, order, i + 1));
+            swap = order[i]; order[i] = order[j]; order[j] = swap;
+        }
+        return best;
+    }
+
+    /**
+     * Tests that the planned tour is as short as the best of every order
+     * of the coins, and that it visits each reachable coin once.
+     */
+    @Test
+    public void testHeldKarpIsOptimal() {
+        Random random = new Random(5);
+        int tours = 0;
+        for (int trial = 0; trial < 40; trial++) {
+            int rows = 3 + random.nextInt(10);
+            int cols = 3 + random.nextInt(10);
+            PackedGrid grid = randomGrid(random, rows, cols, 16);
+            Position start = new Position(random.nextInt(rows), random.nextInt(cols));
+            Position target = new Position(random.nextInt(rows), random.nextInt(cols));
+            ImmutableMaze maze = new ImmutableMaze(grid, start, target);
+            List<Position> coins = GoldTourPlanner.reachableCoins(maze, start);
+            if (coins.size() > 8)
+                continue;
+            GoldTourPlanner.Tour tour = GoldTourPlanner.plan(maze);
+            SearchResult direct = maze.solve(SearchStrategy.BFS);
+            assertEquals(direct.isFound(), tour.isFound());
+            if (!tour.isFound())
+                continue;
+            tours++;
+
+            List<Position> points = new ArrayList<Position>();
+            points.add(start);
+            points.addAll(coins);
+            points.add(target);
+            int[][] d = new DistanceService(maze).distances(points);
+            int[] order = new int[points.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            assertEquals(bruteForce(d, order, 1), tour.getLength());
+            assertTrue(tour.isOptimal());
+            assertEquals(coins.size(), tour.getStops().size());
+            assertTrue(tour.getStops().containsAll(coins));
+        }
+        assertTrue(tours > 10);
+    }
+
+    /**
+     * Tests that 2-opt and or-opt give a valid order no longer than the
+     * nearest-neighbor one on a maze with too many coins for Held-Karp.
+     */
+    @Test
+    public void testHeuristicTour() {
+        Random random = new Random(8);
+        PackedGrid grid = randomGrid(random, 40, 40, 12);
+        grid.set(0, 0, Maze.CELL.OPEN);
+        grid.set(39, 39, Maze.CELL.OPEN);
+        ImmutableMaze maze = new ImmutableMaze(grid, new Position(0, 0), new Position(39, 39));
+        List<Position> coins = GoldTourPlanner.reachableCoins(maze, maze.getStartPosition());
+        assertTrue(coins.size() > GoldTourPlanner.HELD_KARP_LIMIT);
+
+        List<Position> points = new ArrayList<Position>();
+        points.add(maze.getStartPosition());
+        points.addAll(coins);
+        points.add(maze.getTargetPosition());
+        int[][] d = new DistanceService(maze).distances(points);
+        int[] greedy = GoldTourPlanner.nearestNeighbor(d, coins.size());
+        long greedyLength = GoldTourPlanner.length(d, greedy);
+        int[] improved = GoldTourPlanner.improve(d, greedy.clone());
+        assertTrue(GoldTourPlanner.length(d, improved) <= greedyLength);
+        int[] sorted = improved.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i]);
+        }
+        assertEquals(0, improved[0]);
+        assertEquals(points.size() - 1, improved[improved.length - 1]);
+
+        GoldTourPlanner.Tour tour = GoldTourPlanner.plan(maze);
+        assertFalse(tour.isOptimal());
+        assertEquals(coins.size(), tour.getStops().size());
+        assertTrue(tour.getLength() <= greedyLength);
+    }
+
+    /**
+     * Tests that planGoldTour marks every coin and the target as PATH,
+     * on a walk no shorter than the direct route.
+     * @throws IOException
+     */
+    @Test
+    public void testPlanGoldTourMarksPath() throws IOException {
+        ImmutableMaze before = ImmutableMaze.readFile("mazeg.txt");
+        List<Position> coins = GoldTourPlanner.reachableCoins(before, before.getStartPosition());
+        assertEquals(before.pickupGoldCoins(before.getStartPosition()), coins.size());
+
+        GridMazeSolver maze = new GridMazeSolver("mazeg.txt");
+        GoldTourPlanner.Tour tour = maze.planGoldTour();
+        assertTrue(tour.isFound());
+        assertTrue(tour.getLength() >= before.solve(SearchStrategy.BFS).getPathLength());
+        for (Position coin : coins) {
+            assertEquals(Maze.CELL.PATH, maze.getCell(coin.getRow(), coin.getCol()));
+        }
+        Position target = maze.getTargetPosition();
+        assertEquals(Maze.CELL.PATH, maze.getCell(target.getRow(), target.getCol()));
+    }
+}
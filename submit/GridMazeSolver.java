@@ -0,0 +1,208 @@
+/**
+ * GridMazeSolver is a MazeSolver whose grid is stored in a CellGrid
+ * (a PackedGrid by default, or a MappedGrid after readBinaryFile)
+ * instead of a CELL[][] array. All of the
+ * solving routines go through getCell/setCell, so they behave exactly
+ * like MazeSolver while using a fraction of the memory. When the grid
+ * is a PackedGrid, traverse and pickupGoldCoins run on its cell indices
+ * through DepthFirstSearch instead.
+ *
+ * Because the grid is not a CELL[][] internally, getGrid() returns a
+ * copy: changes made to the returned array are not seen by the maze.
+ * Use setCell or setGrid to change the maze.
+ */
+public class GridMazeSolver extends MazeSolver {
+    private CellGrid cells;
+
+    /**
+     * Constructs a GridMazeSolver without a grid. Call readFile to load
+     * a maze and see its errors as exceptions.
+     */
+    public GridMazeSolver() {
+    }
+
+    /**
+     * Constructs a GridMazeSolver by reading the maze from the specified input file.
+     *
+     * @param inputFile the name of the file containing the maze
+     */
+    public GridMazeSolver(String inputFile) {
+        super(inputFile);
+    }
+
+    /**
+     * Constructs a GridMazeSolver around an existing grid.
+     *
+     * @param cells the grid of the maze
+     * @param start the starting position
+     * @param target the target position
+     */
+    public GridMazeSolver(CellGrid cells, Position start, Position target) {
+        this.cells = cells;
+        setStartPosition(start);
+        setTargetPosition(target);
+    }
+
+    /**
+     * Returns the grid backing this maze. Changes to it are seen by the maze.
+     *
+     * @return the CellGrid holding the maze
+     */
+    public CellGrid getCellGrid() {
+        return this.cells;
+    }
+
+    /**
+     * Replaces the grid backing this maze, without copying it.
+     *
+     * @param cells the new grid
+     */
+    @Override
+    public void setCellGrid(CellGrid cells) {
+        this.cells = cells;
+        clearWeights();
+    }
+
+    /**
+     * Returns a copy of the maze grid as a 2D array.
+     *
+     * @return a new 2D array of CELL with the content of the maze, or null
+     */
+    @Override
+    public CELL[][] getGrid() {
+        if (cells == null)
+            return null;
+        if (cells instanceof PackedGrid)
+            return ((PackedGrid) cells).toCells();
+        return PackedGrid.copyOf(cells).toCells();
+    }
+
+    /**
+     * Sets the maze grid, packing the given array.
+     *
+     * @param g the 2D array of CELL to set as the grid
+     */
+    @Override
+    public void setGrid(CELL[][] g) {
+        this.cells = g == null ? null : PackedGrid.fromCells(g);
+        clearWeights();
+    }
+
+    /**
+     * Returns true if the maze has a grid, without copying it.
+     *
+     * @return true if there is a grid
+     */
+    @Override
+    public boolean hasGrid() {
+        return cells != null;
+    }
+
+    @Override
+    public CELL getCell(int row, int col) {
+        return cells.get(row, col);
+    }
+
+    @Override
+    public void setCell(int row, int col, CELL cell) {
+        cells.set(row, col, cell);
+    }
+
+    /**
+     * Returns the number of rows of the grid without copying it.
+     *
+     * @return the number of rows of the grid
+     */
+    @Override
+    public int getRows() {
+        return cells.getRows();
+    }
+
+    /**
+     * Returns the number of columns of the grid without copying it.
+     *
+     * @return the number of columns of the grid
+     */
+    @Override
+    public int getCols() {
+        return cells.getCols();
+    }
+
+    /**
+     * Traverses the maze from the given position. On a PackedGrid this
+     * runs DepthFirstSearch on cell indices; otherwise it uses the
+     * MazeSolver implementation.
+     *
+     * @param p the starting Position for traversal
+     * @return true if the target is found, false otherwise
+     * @throws IllegalAccessException if an invalid position is encountered
+     */
+    @Override
+    public boolean traverse(Position p) throws IllegalAccessException {
+        if (!(cells instanceof PackedGrid))
+            return super.traverse(p);
+        recordSearch(0, -1, 0);
+        if (p == null || !positionIsValid(p))
+            return false;
+        PackedGrid packed = (PackedGrid) cells;
+        packed.setNeighborhood(getNeighborhood());
+        Position target = getTargetPosition();
+        int targetIndex = target != null && positionIsValid(target)
+            ? packed.index(target.getRow(), target.getCol()) : -1;
+        SearchState state = new SearchState(packed.indexCount());
+        SearchResult result = DepthFirstSearch.search(packed,
+            packed.index(p.getRow(), p.getCol()), targetIndex, state);
+        state.apply(packed);
+        recordSearch(state.getVisitedCount(), result.getPathLength(), state.getMaxFrontier());
+        return result.isFound();
+    }
+
+    /**
+     * Collects the gold coins reachable from the given position. On a
+     * PackedGrid this runs DepthFirstSearch on cell indices; otherwise it
+     * uses the MazeSolver implementation.
+     *
+     * @param p the starting Position to begin collecting gold coins
+     * @return the total number of gold coins collected
+     * @throws IllegalAccessException if an invalid position is encountered
+     */
+    @Override
+    public int pickupGoldCoins(Position p) throws IllegalAccessException {
+        if (!(cells instanceof PackedGrid))
+            return super.pickupGoldCoins(p);
+        recordSearch(0, -1, 0);
+        if (!positionIsValid(p))
+            return 0;
+        PackedGrid packed = (PackedGrid) cells;
+        packed.setNeighborhood(getNeighborhood());
+        SearchState state = new SearchState(packed.indexCount());
+        int coins = DepthFirstSearch.pickupGoldCoins(packed, packed.index(p.getRow(), p.getCol()), state);
+        state.apply(packed);
+        recordSearch(state.getVisitedCount(), -1, state.getMaxFrontier());
+        return coins;
+    }
+
+    /**
+     * Returns the backing grid itself when it is a PackedGrid, so that
+     * solve works on the maze in place.
+     *
+     * @return a PackedGrid with the content of the maze
+     */
+    @Override
+    protected PackedGrid toPackedGrid() {
+        if (cells instanceof PackedGrid)
+            return (PackedGrid) cells;
+        return PackedGrid.copyOf(cells);
+    }
+
+    /**
+     * Copies the solver's marks back unless they were made in place.
+     *
+     * @param packed the grid returned by toPackedGrid
+     */
+    @Override
+    protected void applyPackedGrid(PackedGrid packed) {
+        if (packed != cells)
+            super.applyPackedGrid(packed);
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+
+/**
+ * ImmutableMaze is a maze whose grid never changes once it is loaded.
+ * Searches on it record what they visit and the path they find in a
+ * SearchState instead of marking the grid, so one loaded maze can answer
+ * any number of queries, from any number of threads at once, without
+ * being copied or read again.
+ *
+ * States come from a SearchStatePool owned by the maze and are reset in
+ * time proportional to the cells the last query touched. Use
+ * toPackedGrid(state) to get a copy of the grid with the VISITED and
+ * PATH marks of a query, for example to print it.
+ */
+public final class ImmutableMaze {
+    private final PackedGrid grid;
+    private final Position start;
+    private final Position target;
+    private final SearchStatePool pool;
+
+    /**
+     * Constructs a maze from a copy of the given grid.
+     *
+     * @param cells the grid to copy
+     * @param start the start position
+     * @param target the target position
+     */
+    public ImmutableMaze(CellGrid cells, Position start, Position target) {
+        this(PackedGrid.copyOf(cells), start, target);
+    }
+
+    /**
+     * Constructs a maze that takes ownership of a grid nobody else holds.
+     * Being private, it is only chosen over the copying constructor from
+     * inside this class.
+     *
+     * @param grid the grid, which must not be changed afterwards
+     * @param start the start position
+     * @param target the target position
+     */
+    private ImmutableMaze(PackedGrid grid, Position start, Position target) {
+        this.grid = grid;
+        this.start = start;
+        this.target = target;
+        this.pool = new SearchStatePool(grid.indexCount());
+    }
+
+    /**
+     * Reads a maze file, in the text format of Maze.readFile or the
+     * binary format of BinaryMazeFormat, with the weights of its cells. A
+     * text maze is parsed straight into the grid of the maze, without a
+     * copy; a binary maze is mapped read-only and copied once.
+     *
+     * @param inFile name of the file
+     * @return the maze
+     * @throws MazeFormatException if the file is not a valid maze
+     * @throws IOException if the file cannot be read
+     */
+    public static ImmutableMaze readFile(String inFile) throws IOException {
+        return readFile(inFile, Neighborhood.FOUR);
+    }
+
+    /**
+     * Reads a maze file as readFile(inFile) does, for searches that move
+     * in the given neighborhood.
+     *
+     * @param inFile name of the file
+     * @param neighborhood the moves the searches on the maze may make
+     * @return the maze
+     * @throws MazeFormatException if the file is not a valid maze
+     * @throws IOException if the file cannot be read
+     */
+    public static ImmutableMaze readFile(String inFile, Neighborhood neighborhood)
+        throws IOException {
+        if (BinaryMazeFormat.isBinary(inFile)) {
+            try (FileChannel channel = FileChannel.open(Paths.get(inFile))) {
+                BinaryMazeFormat.Header header = BinaryMazeFormat.readHeader(channel);
+                PackedGrid grid = PackedGrid.copyOf(new MappedGrid(channel, header, false));
+                if (header.hasWeights())
+                    grid.setWeights(BinaryMazeFormat.readWeights(channel, header));
+                grid.setNeighborhood(neighborhood);
+                return new ImmutableMaze(grid, header.getStart(), header.getTarget());
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause(); // an invalid cell byte
+            }
+        }
+        MazeParser parser;
+        try (InputStream in = new FileInputStream(inFile)) {
+            parser = new MazeParser(in);
+            parser.parse();
+        }
+        PackedGrid grid = parser.getGrid();
+        grid.setNeighborhood(neighborhood);
+        return new ImmutableMaze(grid, parser.getStart(), parser.getTarget());
+    }
+
+    /**
+     * Returns the number of rows of the grid.
+     *
+     * @return number of rows
+     */
+    public int getRows() {
+        return grid.getRows();
+    }
+
+    /**
+     * Returns the number of columns of the grid.
+     *
+     * @return number of columns
+     */
+    public int getCols() {
+        return grid.getCols();
+    }
+
+    /**
+     * Returns the value of the cell at (row, col), as it was loaded.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the CELL value at that position
+     */
+    public Maze.CELL getCell(int row, int col) {
+        return grid.get(row, col);
+    }
+
+    /**
+     * Returns the moves the searches on the maze make.
+     *
+     * @return the neighborhood of the grid
+     */
+    public Neighborhood getNeighborhood() {
+        return grid.getNeighborhood();
+    }
+
+    /**
+     * Returns the start position.
+     *
+     * @return start position
+     */
+    public Position getStartPosition() {
+        return start;
+    }
+
+    /**
+     * Returns the target position.
+     *
+     * @return target position
+     */
+    public Position getTargetPosition() {
+        return target;
+    }
+
+    /**
+     * Returns the grid of the maze, for searches in this package. It
+     * must not be changed.
+     *
+     * @return the grid
+     */
+    PackedGrid grid() {
+        return grid;
+    }
+
+    /**
+     * Returns true if the position is inside the grid.
+     *
+     * @param pos position
+     * @return true if position is valid
+     */
+    public boolean positionIsValid(Position pos) {
+        return pos != null && pos.getRow() >= 0 && pos.getRow() < grid.getRows()
+            && pos.getCol() >= 0 && pos.getCol() < grid.getCols();
+    }
+
+    /**
+     * Takes a clear state from the pool of the maze, for queries whose
+     * marks the caller wants to look at. Give it back with releaseState.
+     *
+     * @return a clear state for this maze
+     */
+    public SearchState acquireState() {
+        return pool.acquire();
+    }
+
+    /**
+     * Resets a state obtained from acquireState and returns it to the pool.
+     *
+     * @param state the state, no longer used by the caller
+     */
+    public void releaseState(SearchState state) {
+        pool.release(state);
+    }
+
+    /**
+     * Solves the maze from the start position to the target position.
+     *
+     * @param strategy the search algorithm to use
+     * @return the result of the search
+     */
+    public SearchResult solve(SearchStrategy strategy) {
+        SearchState state = pool.acquire();
+        try {
+            return solve(strategy, start, target, state);
+        }
+        finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Searches from one position to another, recording the cells explored
+     * and the route found in state.
+     *
+     * @param strategy the search algorithm to use
+     * @param from the starting position
+     * @param to the target position
+     * @param state a clear state from acquireState
+     * @return the result of the search
+     */
+    public SearchResult solve(SearchStrategy strategy, Position from, Position to, SearchState state) {
+        if (!positionIsValid(from) || !positionIsValid(to))
+            return SearchResult.notFound(0);
+        return strategy.solve(grid, grid.index(from.getRow(), from.getCol()),
+            grid.index(to.getRow(), to.getCol()), state);
+    }
+
+    /**
+     * Returns the number of gold coins Maze.pickupGoldCoins would collect
+     * from a position, without picking them up.
+     *
+     * @param from the starting position
+     * @return the number of gold coins reachable from there
+     */
+    public int pickupGoldCoins(Position from) {
+        if (!positionIsValid(from))
+            return 0;
+        SearchState state = pool.acquire();
+        try {
+            return pickupGoldCoins(from, state);
+        }
+        finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Collects the gold coins reachable from a position as
+     * pickupGoldCoins(from) does, recording the cells reached in state.
+     *
+     * @param from the starting position
+     * @param state a clear state from acquireState
+     * @return the number of gold coins reachable from there
+     */
+    public int pickupGoldCoins(Position from, SearchState state) {
+        if (!positionIsValid(from))
+            return 0;
+        return DepthFirstSearch.pickupGoldCoins(grid,
+            grid.index(from.getRow(), from.getCol()), state);
+    }
+
+    /**
+     * Returns a copy of the grid with the marks recorded in a state: the
+     * cells visited as VISITED and the path as PATH.
+     *
+     * @param state the state of a query on this maze, or null for none
+     * @return a new grid
+     */
+    public PackedGrid toPackedGrid(SearchState state) {
+        PackedGrid copy = PackedGrid.copyOf(grid);
+        if (state != null)
+            state.apply(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,142 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for ImmutableMaze, SearchState and SearchStatePool.
+ */
+public class ImmutableMazeTest {
+    private static final String[] FILES = { "maze.txt", "maze0.txt", "maze1.txt", "maze2.txt",
+        "maze3.txt", "maze4.txt", "maze4x.txt", "maze5.txt", "maze6.txt", "maze-dead.txt",
+        "mazeg.txt" };
+
+    /**
+     * Tests that every strategy gives the same result and marks as when
+     * it solves a GridMazeSolver in place, and leaves the maze unchanged.
+     * @throws IOException
+     */
+    @Test
+    public void testMatchesInPlaceSolve() throws IOException {
+        for (String file : FILES) {
+            ImmutableMaze maze = ImmutableMaze.readFile(file);
+            Maze.CELL[][] before = maze.toPackedGrid(null).toCells();
+            for (SearchStrategy strategy : SearchStrategy.values()) {
+                GridMazeSolver expected = new GridMazeSolver(file);
+                SearchResult expectedResult = expected.solve(strategy);
+
+                SearchState state = maze.acquireState();
+                SearchResult result = maze.solve(strategy, maze.getStartPosition(),
+                    maze.getTargetPosition(), state);
+                String message = file + " " + strategy;
+                assertEquals(message, expectedResult.toString(), result.toString());
+                assertArrayEquals(message, expected.getGrid(), maze.toPackedGrid(state).toCells());
+                assertEquals(message, result.isFound() ? result.getPathLength() + 1 : 0,
+                    state.getPathCellCount());
+                maze.releaseState(state);
+            }
+            assertArrayEquals(file, before, maze.toPackedGrid(null).toCells());
+        }
+    }
+
+    /**
+     * Tests that the coins counted match pickupGoldCoins and that the
+     * maze can be queried again afterwards.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testPickupGoldCoins() throws IOException, IllegalAccessException {
+        ImmutableMaze maze = ImmutableMaze.readFile("mazeg.txt");
+        MazeSolver expected = new MazeSolver("mazeg.txt");
+        int coins = expected.pickupGoldCoins();
+        assertEquals(coins, maze.pickupGoldCoins(maze.getStartPosition()));
+        assertEquals(coins, maze.pickupGoldCoins(maze.getStartPosition()));
+        assertEquals(0, maze.pickupGoldCoins(new Position(-1, 0)));
+    }
+
+    /**
+     * Tests that a maze read in a neighborhood searches in it, and that
+     * one state can be reset and reused for the solve and the pickup.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testNeighborhoodAndState() throws IOException, IllegalAccessException {
+        ImmutableMaze maze = ImmutableMaze.readFile("mazeg.txt", Neighborhood.EIGHT);
+        assertEquals(Neighborhood.EIGHT, maze.getNeighborhood());
+        assertEquals(Neighborhood.FOUR, ImmutableMaze.readFile("mazeg.txt").getNeighborhood());
+        MazeSolver expected = new MazeSolver("mazeg.txt");
+        expected.setNeighborhood(Neighborhood.EIGHT);
+        assertEquals(expected.solve(SearchStrategy.BFS).getPathLength(),
+            maze.solve(SearchStrategy.BFS).getPathLength());
+
+        SearchState state = maze.acquireState();
+        assertTrue(maze.solve(SearchStrategy.DFS, maze.getStartPosition(),
+            maze.getTargetPosition(), state).isFound());
+        state.reset();
+        expected = new MazeSolver("mazeg.txt");
+        expected.setNeighborhood(Neighborhood.EIGHT);
+        assertEquals(expected.pickupGoldCoins(), maze.pickupGoldCoins(maze.getStartPosition(), state));
+        assertTrue(state.getVisitedCount() > 0);
+        maze.releaseState(state);
+    }
+
+    /**
+     * Tests that a reset state only clears what it touched and can be
+     * reused, whether the search touched few or most of the cells.
+     */
+    @Test
+    public void testStateReset() {
+        SearchState state = new SearchState(1000);
+        assertTrue(state.visit(3, 3));
+        assertFalse(state.visit(3, 1));
+        state.reach(900, 7, 3);
+        assertEquals(7, state.costOf(900));
+        assertEquals(Integer.MAX_VALUE, state.costOf(901));
+        assertEquals(1, state.getVisitedCount());
+        state.reset();
+        assertFalse(state.isVisited(3));
+        assertFalse(state.isReached(900));
+
+        for (int cell = 0; cell < 1000; cell++) {
+            state.visit(cell);
+        }
+        assertEquals(1000, state.getVisitedCount());
+        state.reset();
+        assertEquals(0, state.getVisitedCount());
+        assertTrue(state.visit(999));
+    }
+
+    /**
+     * Tests that many threads can solve the same maze at once.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final ImmutableMaze maze = ImmutableMaze.readFile("maze6.txt");
+        final int expected = maze.solve(SearchStrategy.BFS).getPathLength();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 200; i++) {
+                final SearchStrategy strategy = i % 2 == 0 ? SearchStrategy.BFS : SearchStrategy.ASTAR;
+                results.add(executor.submit(() -> {
+                    int length = maze.solve(strategy).getPathLength();
+                    maze.pickupGoldCoins(maze.getStartPosition());
+                    return length;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(expected, result.get().intValue());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
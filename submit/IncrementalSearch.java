@@ -0,0 +1,312 @@
+import java.util.Arrays;
+
+/**
+ * IncrementalSearch keeps a shortest path between two fixed cells of a
+ * PackedGrid up to date while cells change between WALL and open, with
+ * Lifelong Planning A* (Koenig and Likhachev). Every cell keeps g, its
+ * distance from the start as of the last search, and rhs, the distance
+ * its neighbors' g values imply. After an edit only the cells whose two
+ * values disagree are queued again, so a search repairs the region the
+ * edit affects instead of starting over. The first search expands the
+ * same cells as A* with the heuristic of the grid's Neighborhood, and
+ * distances are in its step costs.
+ *
+ * The queue is an IntMinHeap used lazily, as in AStarSearch: a cell is
+ * added again whenever its key changes, and entries that no longer match
+ * the cell's key, or whose cell is consistent again, are skipped. Cells
+ * that are not WALL are open, including cells marked VISITED or PATH.
+ */
+public final class IncrementalSearch {
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final PackedGrid grid;
+    private final int start;
+    private final int target;
+    private final int targetRow;
+    private final int targetCol;
+    private final int[] offsets;
+    private final int moves;
+    private final Neighborhood neighborhood;
+    private final int[] g;
+    private final int[] rhs;
+    private IntMinHeap open = new IntMinHeap();
+    private final IntStack path = new IntStack();
+
+    /**
+     * Constructs a search between two cells of a grid. The grid belongs
+     * to the search from then on; change it only through setWall.
+     *
+     * @param grid the grid to search
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     */
+    public IncrementalSearch(PackedGrid grid, int start, int target) {
+        this.grid = grid;
+        this.start = start;
+        this.target = target;
+        this.targetRow = grid.rowOf(target);
+        this.targetCol = grid.colOf(target);
+        this.offsets = grid.neighborOffsets();
+        this.moves = grid.moves();
+        this.neighborhood = grid.getNeighborhood();
+        this.g = new int[grid.indexCount()];
+        this.rhs = new int[grid.indexCount()];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        if (isOpen(start)) {
+            rhs[start] = 0;
+            enqueue(start);
+        }
+    }
+
+    /**
+     * Returns the grid of the search, with the edits made by setWall.
+     *
+     * @return the grid
+     */
+    public PackedGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns the index of the starting cell.
+     *
+     * @return the start cell
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the index of the target cell.
+     *
+     * @return the target cell
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Makes a cell a WALL or opens it, and records which cells the next
+     * solve has to look at again: the cell and its neighbors, which may
+     * have been reached through it or, without corner cutting, past its
+     * corner. Opening a GOLDCOIN or another open cell changes nothing.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param wall true to make the cell a WALL, false to make it OPEN
+     * @return true if the cell changed
+     */
+    public boolean setWall(int row, int col, boolean wall) {
+        int cell = grid.index(row, col);
+        if (wall != isOpen(cell))
+            return false;
+        if (wall) {
+            grid.setByte(cell, PackedGrid.WALL);
+            g[cell] = INF;
+            rhs[cell] = INF;
+        }
+        else {
+            grid.setByte(cell, PackedGrid.OPEN);
+            rhs[cell] = cell == start ? 0 : bestNeighbor(cell);
+            enqueue(cell);
+        }
+        for (int dir = 0; dir < moves; dir++) {
+            int next = cell + offsets[dir];
+            if (next != start && isOpen(next)) {
+                int best = bestNeighbor(next);
+                if (best != rhs[next]) {
+                    rhs[next] = best;
+                    enqueue(next);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Brings the distances up to date with the edits made since the last
+     * call and records the shortest path from start to target.
+     *
+     * @return the result; the cells expanded are those of this call only
+     */
+    public SearchResult solve() {
+        long expanded = 0;
+        int cell;
+        while ((cell = peek()) >= 0
+            && (open.peekKey() < key(target) || g[target] != rhs[target])) {
+            open.removeMin();
+            expanded++;
+            if (g[cell] > rhs[cell]) {
+                g[cell] = rhs[cell];
+                for (int dir = 0; dir < moves; dir++) {
+                    int next = cell + offsets[dir];
+                    int reached = g[cell] + neighborhood.stepCost(dir);
+                    if (next != start && isOpen(next) && reached < rhs[next]
+                        && grid.canMove(cell, dir)) {
+                        rhs[next] = reached;
+                        enqueue(next);
+                    }
+                }
+            }
+            else {
+                int old = g[cell];
+                g[cell] = INF;
+                enqueue(cell);
+                for (int dir = 0; dir < moves; dir++) {
+                    int next = cell + offsets[dir];
+                    if (next != start && isOpen(next)
+                        && rhs[next] == old + neighborhood.stepCost(dir)) {
+                        rhs[next] = bestNeighbor(next);
+                        enqueue(next);
+                    }
+                }
+            }
+        }
+        if (open.size() > g.length)
+            compact();
+
+        path.clear();
+        if (g[target] == INF)
+            return SearchResult.notFound(expanded);
+        for (cell = target; cell != start; cell = parentOf(cell)) {
+            path.push(cell);
+        }
+        path.push(start);
+        return new SearchResult(true, path.size() - 1, g[target], expanded);
+    }
+
+    /**
+     * Returns the number of cells on the path found by the last solve,
+     * which is one more than its length, or 0 if there was none.
+     *
+     * @return the number of path cells
+     */
+    public int getPathCellCount() {
+        return path.size();
+    }
+
+    /**
+     * Returns a cell of the path found by the last solve, counting from
+     * the target.
+     *
+     * @param i the position on the path, from 0 to getPathCellCount() - 1
+     * @return the cell index
+     */
+    public int getPathCell(int i) {
+        return path.get(i);
+    }
+
+    /**
+     * Returns true if the cell can be walked through.
+     *
+     * @param cell the cell index
+     * @return true if the cell is not a WALL
+     */
+    private boolean isOpen(int cell) {
+        return grid.getByte(cell) != PackedGrid.WALL;
+    }
+
+    /**
+     * Returns the distance to a cell implied by the g values of its
+     * neighbors.
+     *
+     * @param cell the cell index
+     * @return the smallest g of a neighbor plus the cost of the move
+     * from it, or INF
+     */
+    private int bestNeighbor(int cell) {
+        int best = INF;
+        for (int dir = 0; dir < moves; dir++) {
+            int d = g[cell + offsets[dir]];
+            if (d != INF && grid.canMove(cell, dir)) {
+                d += neighborhood.stepCost(dir);
+                if (d < best)
+                    best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the neighbor a cell on the shortest path is reached from.
+     *
+     * @param cell a cell with a finite g other than the start
+     * @return the neighbor whose g plus the cost of the move is smallest
+     */
+    private int parentOf(int cell) {
+        int parent = cell;
+        long best = g[cell];
+        for (int dir = 0; dir < moves; dir++) {
+            int next = cell + offsets[dir];
+            if (g[next] != INF && grid.canMove(cell, dir)) {
+                long d = (long) g[next] + neighborhood.stepCost(dir);
+                if (d < best || (d == best && parent == cell)) {
+                    best = d;
+                    parent = next;
+                }
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * Queues a cell under its current key if its g and rhs disagree.
+     *
+     * @param cell the cell index
+     */
+    private void enqueue(int cell) {
+        if (g[cell] != rhs[cell])
+            open.add(key(cell), cell);
+    }
+
+    /**
+     * Returns the first cell of the queue whose entry is still current,
+     * dropping the stale entries in front of it.
+     *
+     * @return the cell index, or -1 if the queue is empty
+     */
+    private int peek() {
+        while (!open.isEmpty()) {
+            int cell = open.peekValue();
+            if (g[cell] != rhs[cell] && open.peekKey() == key(cell))
+                return cell;
+            open.removeMin();
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the stale entries from the queue, which otherwise pile up
+     * behind the target's key over many edits.
+     */
+    private void compact() {
+        IntMinHeap current = new IntMinHeap(open.size());
+        long[] seen = new long[(g.length + 63) >>> 6];
+        while (!open.isEmpty()) {
+            int cell = open.peekValue();
+            long k = open.peekKey();
+            open.removeMin();
+            if (g[cell] != rhs[cell] && k == key(cell) && (seen[cell >>> 6] & 1L << cell) == 0) {
+                seen[cell >>> 6] |= 1L << cell;
+                current.add(k, cell);
+            }
+        }
+        open = current;
+    }
+
+    /**
+     * Returns the queue key of a cell: min(g, rhs) + h, then min(g, rhs),
+     * packed so that longs compare in that order.
+     *
+     * @param cell the cell index
+     * @return the key, or Long.MAX_VALUE if the cell is unreached
+     */
+    private long key(int cell) {
+        int d = Math.min(g[cell], rhs[cell]);
+        if (d == INF)
+            return Long.MAX_VALUE;
+        int h = AStarSearch.distance(grid, cell, targetRow, targetCol);
+        return ((long) (d + h) << 32) | d;
+    }
+}
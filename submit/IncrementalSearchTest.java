@@ -0,0 +1,145 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Test class for IncrementalSearch and Maze.solveIncremental.
+ */
+public class IncrementalSearchTest {
+
+    /**
+     * Tests that after every wall edit the repaired path is as short as
+     * a breadth-first search from scratch, and is a walk of open cells
+     * from the start to the target.
+     */
+    @Test
+    public void testMatchesSearchFromScratch() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 10; trial++) {
+            int rows = 5 + random.nextInt(25);
+            int cols = 5 + random.nextInt(25);
+            PackedGrid grid = new PackedGrid(rows, cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    grid.set(r, c, random.nextInt(4) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                }
+            }
+            int start = grid.index(random.nextInt(rows), random.nextInt(cols));
+            int target = grid.index(random.nextInt(rows), random.nextInt(cols));
+            IncrementalSearch search = new IncrementalSearch(PackedGrid.copyOf(grid), start, target);
+
+            for (int tick = 0; tick < 60; tick++) {
+                SearchResult result = search.solve();
+                SearchResult expected = BreadthFirstSearch.solve(grid, start, target,
+                    new SearchState(grid.indexCount()));
+                assertEquals(expected.isFound(), result.isFound());
+                if (result.isFound()) {
+                    assertEquals(expected.getPathLength(), result.getPathLength());
+                    assertEquals(result.getPathLength() + 1, search.getPathCellCount());
+                    assertEquals(target, search.getPathCell(0));
+                    assertEquals(start, search.getPathCell(search.getPathCellCount() - 1));
+                    for (int i = 0; i < search.getPathCellCount(); i++) {
+                        int cell = search.getPathCell(i);
+                        assertNotEquals(PackedGrid.WALL, grid.getByte(cell));
+                        if (i > 0)
+                            assertEquals(1, Math.abs(grid.rowOf(cell) - grid.rowOf(search.getPathCell(i - 1)))
+                                + Math.abs(grid.colOf(cell) - grid.colOf(search.getPathCell(i - 1))));
+                    }
+                }
+                else {
+                    assertEquals(0, search.getPathCellCount());
+                }
+
+                int row = random.nextInt(rows);
+                int col = random.nextInt(cols);
+                boolean wall = grid.get(row, col) != Maze.CELL.WALL;
+                grid.set(row, col, wall ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                assertTrue(search.setWall(row, col, wall));
+                assertFalse(search.setWall(row, col, wall));
+            }
+        }
+    }
+
+    /**
+     * Tests that a repair after one edit expands fewer cells than the
+     * first search on an open grid.
+     */
+    @Test
+    public void testRepairIsLocal() {
+        PackedGrid grid = new PackedGrid(60, 60);
+        for (int r = 0; r < 60; r++) {
+            for (int c = 0; c < 60; c++) {
+                grid.set(r, c, Maze.CELL.OPEN);
+            }
+        }
+        for (int r = 0; r < 50; r++) {
+            grid.set(r, 30, Maze.CELL.WALL);
+        }
+        IncrementalSearch search = new IncrementalSearch(grid, grid.index(0, 0), grid.index(0, 59));
+        SearchResult first = search.solve();
+        assertEquals(59 + 2 * 50, first.getPathLength());
+        search.setWall(55, 45, true);
+        SearchResult repaired = search.solve();
+        assertEquals(first.getPathLength(), repaired.getPathLength());
+        assertTrue(repaired.getNodesExpanded() < first.getNodesExpanded());
+        search.setWall(0, 30, false);
+        assertEquals(59, search.solve().getPathLength());
+    }
+
+    /**
+     * Tests that solveIncremental marks only the current path after walls
+     * are changed with setWall.
+     * @throws IOException
+     */
+    @Test
+    public void testMazeSolveIncremental() throws IOException {
+        GridMazeSolver maze = new GridMazeSolver("maze6.txt");
+        SearchResult result = maze.solveIncremental();
+        assertTrue(result.isFound());
+        assertEquals(result.getPathLength() + 1, countPath(maze));
+
+        Position start = maze.getStartPosition();
+        int opened = 0;
+        for (int r = 0; r < maze.getRows(); r++) {
+            for (int c = 0; c < maze.getCols(); c++) {
+                if (opened < 5 && maze.getCell(r, c) == Maze.CELL.WALL) {
+                    assertTrue(maze.setWall(r, c, false));
+                    opened++;
+                }
+            }
+        }
+        assertFalse(maze.setWall(start.getRow(), start.getCol(), false));
+        result = maze.solveIncremental();
+
+        GridMazeSolver expected = new GridMazeSolver("maze6.txt");
+        opened = 0;
+        for (int r = 0; r < expected.getRows(); r++) {
+            for (int c = 0; c < expected.getCols(); c++) {
+                if (opened < 5 && expected.getCell(r, c) == Maze.CELL.WALL) {
+                    expected.setWall(r, c, false);
+                    opened++;
+                }
+            }
+        }
+        assertEquals(expected.solve(SearchStrategy.BFS).getPathLength(), result.getPathLength());
+        assertEquals(result.getPathLength() + 1, countPath(maze));
+    }
+
+    /**
+     * Returns the number of cells of a maze marked as PATH.
+     *
+     * @param maze the maze
+     * @return the number of PATH cells
+     */
+    private static int countPath(Maze maze) {
+        int count = 0;
+        for (int r = 0; r < maze.getRows(); r++) {
+            for (int c = 0; c < maze.getCols(); c++) {
+                if (maze.getCell(r, c) == Maze.CELL.PATH)
+                    count++;
+            }
+        }
+        return count;
+    }
+}
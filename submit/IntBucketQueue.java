@@ -0,0 +1,135 @@
+/**
+ * IntBucketQueue is Dial's bucket queue: a priority queue of primitive
+ * ints for searches whose priorities never decrease and never grow by
+ * more than a small step past the lowest one, such as Dijkstra's
+ * algorithm on cells weighing at most maxStep. Each priority has its own
+ * IntQueue in a ring of more than maxStep buckets, so add and removeMin
+ * cost O(1), plus the empty buckets removeMin walks past, instead of the
+ * O(log n) of a heap. Values of equal priority come out first in, first
+ * out.
+ */
+public class IntBucketQueue {
+    private final IntQueue[] buckets;
+    private final int mask;
+    private final int maxStep;
+    private int current;
+    private int size;
+    private int peak;
+
+    /**
+     * Constructs an empty queue for priorities at most maxStep above the
+     * last one removed.
+     *
+     * @param maxStep the largest difference between a priority added and
+     *     the priority last removed
+     * @throws IllegalArgumentException if maxStep is negative
+     */
+    public IntBucketQueue(int maxStep) {
+        if (maxStep < 0)
+            throw new IllegalArgumentException("Invalid step " + maxStep);
+        int n = Integer.highestOneBit(Math.max(1, maxStep)) << 1;
+        this.buckets = new IntQueue[n];
+        for (int i = 0; i < n; i++) {
+            buckets[i] = new IntQueue(4);
+        }
+        this.mask = n - 1;
+        this.maxStep = maxStep;
+    }
+
+    /**
+     * Returns the largest step above the current priority the queue
+     * accepts.
+     *
+     * @return the maxStep it was constructed with
+     */
+    public int maxStep() {
+        return maxStep;
+    }
+
+    /**
+     * Adds a value with a priority.
+     *
+     * @param priority the priority, between the priority last removed
+     *     and maxStep above it
+     * @param value the value to add
+     * @throws IllegalArgumentException if the priority is out of range
+     */
+    public void add(int priority, int value) {
+        if (priority < current || priority - current > maxStep) {
+            throw new IllegalArgumentException("Priority " + priority + " outside "
+                + current + " to " + (current + maxStep));
+        }
+        buckets[priority & mask].add(value);
+        if (++size > peak)
+            peak = size;
+    }
+
+    /**
+     * Removes and returns a value with the lowest priority.
+     *
+     * @return the value
+     * @throws IllegalStateException if the queue is empty
+     */
+    public int removeMin() {
+        if (size == 0)
+            throw new IllegalStateException("Queue is empty");
+        IntQueue bucket = buckets[current & mask];
+        while (bucket.isEmpty()) {
+            current++;
+            bucket = buckets[current & mask];
+        }
+        size--;
+        return bucket.remove();
+    }
+
+    /**
+     * Returns the priority of the value last removed, which is the
+     * lowest priority add accepts.
+     *
+     * @return the current priority
+     */
+    public int currentPriority() {
+        return current;
+    }
+
+    /**
+     * Returns the number of values in the queue.
+     *
+     * @return the size of the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the queue holds no values.
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the largest number of values the queue has held since it
+     * was constructed or last cleared.
+     *
+     * @return the peak size of the queue
+     */
+    public int peak() {
+        return peak;
+    }
+
+    /**
+     * Removes every value from the queue and sets the current priority
+     * back to 0, keeping its capacity.
+     */
+    public void clear() {
+        for (IntQueue bucket : buckets) {
+            bucket.clear();
+        }
+        current = 0;
+        size = 0;
+        peak = 0;
+    }
+}
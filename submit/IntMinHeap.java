@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/**
+ * IntMinHeap is a binary min-heap of int values ordered by a long
+ * priority, stored in two parallel primitive arrays. The same value may
+ * be added more than once; callers that lower a priority simply add the
+ * value again and skip the stale entries when they are removed.
+ */
+public class IntMinHeap {
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int peak;
+
+    /**
+     * Constructs an empty heap with a small initial capacity.
+     */
+    public IntMinHeap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty heap with the given initial capacity.
+     *
+     * @param capacity the number of entries the heap can hold before growing
+     */
+    public IntMinHeap(int capacity) {
+        int n = Math.max(1, capacity);
+        this.keys = new long[n];
+        this.values = new int[n];
+    }
+
+    /**
+     * Adds a value with the given priority.
+     *
+     * @param key the priority; smaller keys are removed first
+     * @param value the value to add
+     */
+    public void add(long key, int value) {
+        if (size >= peak) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            peak = size + 1;
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Returns the smallest priority in the heap.
+     *
+     * @return the priority of the entry that removeMin would return
+     * @throws IllegalStateException if the heap is empty
+     */
+    public long peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return keys[0];
+    }
+
+    /**
+     * Returns the value with the smallest priority without removing it.
+     *
+     * @return the value that removeMin would return
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int peekValue() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return values[0];
+    }
+
+    /**
+     * Removes the entry with the smallest priority and returns its value.
+     *
+     * @return the value with the smallest priority
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int removeMin() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        int result = values[0];
+        size--;
+        long key = keys[size];
+        int value = values[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return result;
+    }
+
+    /**
+     * Returns the number of entries in the heap.
+     *
+     * @return the size of the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the heap holds no entries.
+     *
+     * @return true if the heap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the largest number of entries the heap has held since it
+     * was constructed or last cleared, stale entries included.
+     *
+     * @return the peak size of the heap
+     */
+    public int peak() {
+        return peak;
+    }
+
+    /**
+     * Removes every entry from the heap, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+        peak = 0;
+    }
+}
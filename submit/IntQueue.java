@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * IntQueue is a growable first-in first-out queue of primitive ints,
+ * stored in a ring buffer whose capacity is a power of two.
+ */
+public class IntQueue {
+    private int[] elements;
+    private int head;
+    private int size;
+    private int peak;
+
+    /**
+     * Constructs an empty queue with a small initial capacity.
+     */
+    public IntQueue() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty queue able to hold at least the given number
+     * of values before growing.
+     *
+     * @param capacity the initial capacity
+     */
+    public IntQueue(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.elements = new int[n];
+    }
+
+    /**
+     * Adds a value at the tail of the queue.
+     *
+     * @param value the value to add
+     */
+    public void add(int value) {
+        if (size >= peak) {
+            if (size == elements.length) {
+                grow();
+            }
+            peak = size + 1;
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes and returns the value at the head of the queue.
+     *
+     * @return the oldest value in the queue
+     * @throws IllegalStateException if the queue is empty
+     */
+    public int remove() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Returns the number of values in the queue.
+     *
+     * @return the size of the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the queue holds no values.
+     *
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the largest number of values the queue has held since it
+     * was constructed or last cleared.
+     *
+     * @return the peak size of the queue
+     */
+    public int peak() {
+        return peak;
+    }
+
+    /**
+     * Removes every value from the queue, keeping its capacity.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        peak = 0;
+    }
+
+    /**
+     * Doubles the capacity, unrolling the ring so the head is at index 0.
+     */
+    private void grow() {
+        int[] bigger = Arrays.copyOf(elements, elements.length * 2);
+        // The values before head wrapped around; move them after the old end.
+        System.arraycopy(elements, 0, bigger, elements.length, head);
+        System.arraycopy(bigger, head, bigger, 0, size);
+        elements = bigger;
+        head = 0;
+    }
+}
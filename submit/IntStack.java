@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/**
+ * IntStack is a growable last-in first-out stack of primitive ints.
+ * It is used by the iterative traversals so that deep searches keep
+ * their state on the heap instead of the thread's call stack.
+ */
+public class IntStack {
+    private int[] elements;
+    private int size;
+    private int peak;
+
+    /**
+     * Constructs an empty stack with a small initial capacity.
+     */
+    public IntStack() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty stack with the given initial capacity.
+     *
+     * @param capacity the number of elements the stack can hold before growing
+     */
+    public IntStack(int capacity) {
+        this.elements = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Pushes a value on top of the stack.
+     *
+     * @param value the value to push
+     */
+    public void push(int value) {
+        if (size >= peak) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+            peak = size + 1;
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * Removes and returns the value on top of the stack.
+     *
+     * @return the value on top of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return elements[--size];
+    }
+
+    /**
+     * Returns the value on top of the stack without removing it.
+     *
+     * @return the value on top of the stack
+     * @throws IllegalStateException if the stack is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        return elements[size - 1];
+    }
+
+    /**
+     * Returns the value at the given depth, where 0 is the bottom
+     * of the stack and size() - 1 is the top.
+     *
+     * @param i the index of the element
+     * @return the value stored at index i
+     */
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+        return elements[i];
+    }
+
+    /**
+     * Returns the number of values on the stack.
+     *
+     * @return the size of the stack
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the stack holds no values.
+     *
+     * @return true if the stack is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the largest number of values the stack has held since it
+     * was constructed or last cleared. It is kept as part of the check for
+     * a full array in push, so it costs nothing on the common path.
+     *
+     * @return the peak size of the stack
+     */
+    public int peak() {
+        return peak;
+    }
+
+    /**
+     * Removes every value from the stack, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+        peak = 0;
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * JumpPointSearch is an A* search for uniform-cost, 4-connected grids
+ * that only puts "jump points" on the open list. Shortest paths are
+ * taken in a canonical form where horizontal moves come first: a
+ * horizontal jump keeps going until a vertical scan from one of its
+ * cells finds something, and a vertical jump keeps going until it
+ * reaches a cell with a forced horizontal neighbor (an open side cell
+ * whose neighbor one step back is blocked) or the target. Long straight
+ * corridors and open areas are crossed without queueing their cells.
+ *
+ * Its pruning rules only hold for 4-connected moves, so on a grid whose
+ * Neighborhood allows diagonal moves it runs AStarSearch instead.
+ *
+ * The grid is only read while searching. The expanded jump points are
+ * visited in a SearchState, which also holds the path; the in-place
+ * solve marks them VISITED and PATH once the search ends.
+ */
+public final class JumpPointSearch {
+    private static final int UP = 0;
+    private static final int RIGHT = 1;
+    private static final int DOWN = 2;
+    private static final int LEFT = 3;
+
+    private final PackedGrid grid;
+    private final int[] offsets;
+    private final int target;
+    private final SearchState state;
+
+    private JumpPointSearch(PackedGrid grid, int target, SearchState state) {
+        this.grid = grid;
+        this.offsets = grid.neighborOffsets();
+        this.target = target;
+        this.state = state;
+    }
+
+    /**
+     * Searches from start for target and marks the shortest path found.
+     *
+     * @param grid the grid to search; it is modified once the search ends
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches from start for target without changing the grid. The
+     * jump points expanded and the shortest path found are recorded in
+     * state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+        if (grid.moves() != 4)
+            return AStarSearch.solve(grid, start, target, state);
+        return new JumpPointSearch(grid, target, state).run(start);
+    }
+
+    /**
+     * Runs the search from start.
+     *
+     * @param start the index of the starting cell
+     * @return the result of the search
+     */
+    private SearchResult run(int start) {
+        int targetRow = grid.rowOf(target);
+        int targetCol = grid.colOf(target);
+
+        IntMinHeap open = state.heap();
+        state.reach(start, 0, start);
+        open.add(AStarSearch.key(0, AStarSearch.manhattan(grid, start, targetRow, targetCol)), start);
+
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            int cell = open.removeMin();
+            if (!state.visit(cell))
+                continue;
+            expanded++;
+            if (cell == target)
+                return new SearchResult(true, addPath(start), expanded);
+            for (int dir = 0; dir < 4; dir++) {
+                if (!isSuccessorDirection(cell, state.parentOf(cell), dir))
+                    continue;
+                int jumpPoint = jump(cell, dir);
+                if (jumpPoint < 0 || state.isVisited(jumpPoint))
+                    continue;
+                int nextG = state.costOf(cell) + distance(cell, jumpPoint);
+                if (nextG < state.costOf(jumpPoint)) {
+                    state.reach(jumpPoint, nextG, cell);
+                    open.add(AStarSearch.key(nextG,
+                        AStarSearch.manhattan(grid, jumpPoint, targetRow, targetCol)), jumpPoint);
+                }
+            }
+        }
+        return SearchResult.notFound(expanded);
+    }
+
+    /**
+     * Returns true if the search should jump from cell in direction dir,
+     * given the jump point it was reached from. The start expands in
+     * every direction. A cell reached horizontally continues in that
+     * direction and turns up and down; a cell reached vertically
+     * continues in that direction and only turns toward forced neighbors.
+     *
+     * @param cell the cell being expanded
+     * @param from the jump point cell was reached from
+     * @param dir the candidate direction
+     * @return true if dir must be explored from cell
+     */
+    private boolean isSuccessorDirection(int cell, int from, int dir) {
+        if (cell == from)
+            return true;
+        int arrived = arrivalDirection(from, cell);
+        if (dir == arrived)
+            return true;
+        if (dir == (arrived + 2) % 4)
+            return false;
+        if (isHorizontal(arrived))
+            return true;
+        return isForced(cell, arrived, dir);
+    }
+
+    /**
+     * Returns true if, moving vertically in direction arrived, the side
+     * cell of cell in direction side is open while the side cell of the
+     * previous cell is blocked, so the turn cannot be made earlier.
+     *
+     * @param cell the current cell
+     * @param arrived the vertical direction of travel
+     * @param side a horizontal direction
+     * @return true if the side neighbor is forced
+     */
+    private boolean isForced(int cell, int arrived, int side) {
+        int behind = cell - offsets[arrived];
+        return isOpen(cell + offsets[side]) && !isOpen(behind + offsets[side]);
+    }
+
+    /**
+     * Jumps from cell in direction dir and returns the next jump point,
+     * or -1 if a wall is reached first.
+     *
+     * @param cell the cell to jump from
+     * @param dir the direction of travel
+     * @return the index of the jump point, or -1
+     */
+    private int jump(int cell, int dir) {
+        if (isHorizontal(dir)) {
+            while (true) {
+                cell += offsets[dir];
+                if (!isOpen(cell))
+                    return -1;
+                if (cell == target)
+                    return cell;
+                if (jumpVertical(cell, UP) >= 0 || jumpVertical(cell, DOWN) >= 0)
+                    return cell;
+            }
+        }
+        return jumpVertical(cell, dir);
+    }
+
+    /**
+     * Jumps vertically from cell and returns the first cell that is the
+     * target or has a forced horizontal neighbor, or -1 if a wall is
+     * reached first.
+     *
+     * @param cell the cell to jump from
+     * @param dir UP or DOWN
+     * @return the index of the jump point, or -1
+     */
+    private int jumpVertical(int cell, int dir) {
+        while (true) {
+            cell += offsets[dir];
+            if (!isOpen(cell))
+                return -1;
+            if (cell == target || isForced(cell, dir, LEFT) || isForced(cell, dir, RIGHT))
+                return cell;
+        }
+    }
+
+    /**
+     * Adds the cells between consecutive jump points on the path from
+     * target back to start to the path of the state.
+     *
+     * @param start the index of the starting cell
+     * @return the number of steps on the path
+     */
+    private int addPath(int start) {
+        int length = 0;
+        int cell = target;
+        state.addToPath(cell);
+        while (cell != start) {
+            int from = state.parentOf(cell);
+            int step = offsets[arrivalDirection(from, cell)];
+            while (cell != from) {
+                cell -= step;
+                state.addToPath(cell);
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the direction of travel of a straight jump from one cell
+     * to another in the same row or column.
+     *
+     * @param from the first cell
+     * @param to the second cell
+     * @return UP, RIGHT, DOWN or LEFT
+     */
+    private int arrivalDirection(int from, int to) {
+        if (grid.rowOf(from) == grid.rowOf(to))
+            return to > from ? RIGHT : LEFT;
+        return to > from ? DOWN : UP;
+    }
+
+    /**
+     * Returns the number of steps of a straight jump between two cells.
+     *
+     * @param from the first cell
+     * @param to the second cell
+     * @return the distance between them
+     */
+    private int distance(int from, int to) {
+        return Math.abs(grid.rowOf(from) - grid.rowOf(to))
+            + Math.abs(grid.colOf(from) - grid.colOf(to));
+    }
+
+    /**
+     * Returns true if the cell can be entered.
+     *
+     * @param cell the cell index
+     * @return true if the cell is OPEN or holds a GOLDCOIN
+     */
+    private boolean isOpen(int cell) {
+        byte value = grid.getByte(cell);
+        return value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN;
+    }
+
+    /**
+     * Returns true for the LEFT and RIGHT directions.
+     *
+     * @param dir a direction index
+     * @return true if dir is horizontal
+     */
+    private static boolean isHorizontal(int dir) {
+        return dir == LEFT || dir == RIGHT;
+    }
+}
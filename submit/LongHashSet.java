@@ -0,0 +1,149 @@
+import java.util.Arrays;
+
+/**
+ * LongHashSet is a set of primitive longs, such as positions packed with
+ * Position.pack, stored in one open-addressing array with linear
+ * probing. Nothing is boxed and a lookup reads consecutive slots of one
+ * array, where a HashSet of Position follows a pointer to a node and
+ * another to the key. The table doubles when it is half full. Values are
+ * only added; clear empties the set.
+ */
+public class LongHashSet {
+    /**
+     * The value that marks an empty slot. The set holds it too, in
+     * containsEmpty rather than in the table.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int shift;
+    private int size;
+    private boolean containsEmpty;
+
+    /**
+     * Constructs an empty set with a small initial capacity.
+     */
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty set able to hold at least the given number of
+     * values before growing.
+     *
+     * @param capacity the expected number of values
+     */
+    public LongHashSet(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, 2 * capacity) - 1) << 1;
+        keys = new long[n];
+        Arrays.fill(keys, EMPTY);
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * Returns the slot where a value belongs: the top bits of the value
+     * multiplied by the golden ratio, which spreads nearby positions over
+     * the whole table.
+     *
+     * @param key the value
+     * @param shift 64 minus the number of bits of the table size
+     * @return the index of its first slot
+     */
+    static int slot(long key, int shift) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param key the value to add
+     * @return true if the value was not in the set before
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty)
+                return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key)
+                return false;
+            if (k == EMPTY) {
+                keys[i] = key;
+                if (++size * 2 > keys.length)
+                    grow();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the set holds the value.
+     *
+     * @param key the value to look for
+     * @return true if it was added
+     */
+    public boolean contains(long key) {
+        if (key == EMPTY)
+            return containsEmpty;
+        int mask = keys.length - 1;
+        for (int i = slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key)
+                return true;
+            if (k == EMPTY)
+                return false;
+        }
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the set holds no values.
+     *
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value from the set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    /**
+     * Doubles the table and adds the values again.
+     */
+    private void grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        Arrays.fill(keys, EMPTY);
+        shift--;
+        int mask = keys.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = slot(key, shift);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.util.Arrays;
+
+/**
+ * LongIntHashMap maps primitive long keys, such as positions packed with
+ * Position.pack, to int values, in two parallel open-addressing arrays
+ * with linear probing, like LongHashSet. A sparse search uses it to give
+ * each cell it reaches a small int id, and keeps the parent and cost of
+ * the cell in plain arrays indexed by that id. The table doubles when it
+ * is half full. Entries are only added or replaced; clear empties the
+ * map.
+ */
+public class LongIntHashMap {
+    /**
+     * The key that marks an empty slot. Its own value is kept in
+     * emptyValue rather than in the table.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int shift;
+    private int size;
+    private boolean containsEmpty;
+    private int emptyValue;
+
+    /**
+     * Constructs an empty map with a small initial capacity.
+     */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty map able to hold at least the given number of
+     * entries before growing.
+     *
+     * @param capacity the expected number of entries
+     */
+    public LongIntHashMap(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, 2 * capacity) - 1) << 1;
+        keys = new long[n];
+        values = new int[n];
+        Arrays.fill(keys, EMPTY);
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @param missing the value to return if the key is not in the map
+     * @return the value of the key, or missing
+     */
+    public int get(long key, int missing) {
+        if (key == EMPTY)
+            return containsEmpty ? emptyValue : missing;
+        int mask = keys.length - 1;
+        for (int i = LongHashSet.slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key)
+                return values[i];
+            if (k == EMPTY)
+                return missing;
+        }
+    }
+
+    /**
+     * Returns true if the map holds the key.
+     *
+     * @param key the key
+     * @return true if a value was put for it
+     */
+    public boolean containsKey(long key) {
+        if (key == EMPTY)
+            return containsEmpty;
+        int mask = keys.length - 1;
+        for (int i = LongHashSet.slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key)
+                return true;
+            if (k == EMPTY)
+                return false;
+        }
+    }
+
+    /**
+     * Maps a key to a value, replacing any value it had.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+            emptyValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongHashSet.slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                insert(i, key, value);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Maps a key to a value unless it already has one.
+     *
+     * @param key the key
+     * @param value the value to give a new key
+     * @return the value the key has now: its old value if it had one,
+     * otherwise value
+     */
+    public int putIfAbsent(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                containsEmpty = true;
+                emptyValue = value;
+                size++;
+            }
+            return emptyValue;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongHashSet.slot(key, shift); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key)
+                return values[i];
+            if (k == EMPTY) {
+                insert(i, key, value);
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the map holds no keys.
+     *
+     * @return true if the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry from the map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    /**
+     * Stores a new entry in an empty slot, growing the table if it is now
+     * half full.
+     *
+     * @param i the empty slot
+     * @param key the key
+     * @param value the value
+     */
+    private void insert(int i, long key, int value) {
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    /**
+     * Doubles the table and adds the entries again.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        shift--;
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = LongHashSet.slot(key, shift);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * MappedGrid is a CellGrid whose cells live in a memory-mapped binary
+ * maze file (see BinaryMazeFormat) rather than on the heap. Opening one
+ * only maps the file, so even a multi-gigabyte maze is ready in
+ * milliseconds and its pages are read from disk as they are touched.
+ *
+ * Marking cells VISITED or PATH never changes the file. When the file
+ * can be opened for writing the mapping is private (copy-on-write). A
+ * read-only file can only be mapped read-only, so the grid copies each
+ * page of 64 KB cells to the heap the first time a cell in it is set,
+ * and reads that page from the heap from then on. A file is split into
+ * several mappings of at most 1 GB, so grids of more than 2^31 cells can
+ * be addressed.
+ *
+ * Cell bytes are checked as they are read; a byte that is not a CELL
+ * ordinal makes get throw an UncheckedIOException whose cause is a
+ * MazeFormatException.
+ */
+public final class MappedGrid implements CellGrid {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final int PAGE_BITS = 16;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+    private static final Maze.CELL[] CELLS = Maze.CELL.values();
+
+    private final int rows;
+    private final int cols;
+    private final long length;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The pages copied to the heap when a read-only mapping is written
+     * to, or null if the mapping is private.
+     */
+    private final byte[][] pages;
+
+    /**
+     * Maps the cells of a binary maze file whose header was read from
+     * the same channel. The channel may be closed afterwards.
+     *
+     * @param channel an open channel on the file
+     * @param header the header read by BinaryMazeFormat.readHeader
+     * @param writable true to map the cells privately, which needs a
+     *     channel opened for reading and writing; false to map them
+     *     read-only and copy the pages that are written to
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedGrid(FileChannel channel, BinaryMazeFormat.Header header, boolean writable)
+        throws IOException {
+        this.rows = header.getRows();
+        this.cols = header.getCols();
+        this.length = header.getCellCount();
+        int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+        this.segments = new MappedByteBuffer[count];
+        FileChannel.MapMode mode = writable
+            ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << SEGMENT_BITS;
+            long size = Math.min(1L << SEGMENT_BITS, length - offset);
+            segments[i] = channel.map(mode, BinaryMazeFormat.HEADER_SIZE + offset, size);
+        }
+        long pageCount = (length + PAGE_MASK) >>> PAGE_BITS;
+        if (!writable && pageCount > Integer.MAX_VALUE - 8)
+            throw new MazeFormatException("too many cells to map read-only: " + length, 0);
+        this.pages = writable ? null : new byte[(int) pageCount][];
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the value stored at (row, col).
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the cell value at that position
+     * @throws UncheckedIOException if the byte in the file is not a CELL
+     *     ordinal
+     */
+    @Override
+    public Maze.CELL get(int row, int col) {
+        long position = (long) row * cols + col;
+        byte[] page = pages == null ? null : pages[(int) (position >>> PAGE_BITS)];
+        int value = page != null ? page[(int) (position & PAGE_MASK)]
+            : segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+        if (value < 0 || value >= CELLS.length)
+            throw new UncheckedIOException(BinaryMazeFormat.invalidCell(value, position, cols));
+        return CELLS[value];
+    }
+
+    /**
+     * Stores a value at (row, col), in the private mapping or in a heap
+     * copy of its page; the file is never changed.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param cell the value to store
+     */
+    @Override
+    public void set(int row, int col, Maze.CELL cell) {
+        long position = (long) row * cols + col;
+        if (pages == null) {
+            segments[(int) (position >>> SEGMENT_BITS)]
+                .put((int) (position & SEGMENT_MASK), (byte) cell.ordinal());
+            return;
+        }
+        int index = (int) (position >>> PAGE_BITS);
+        byte[] page = pages[index];
+        if (page == null) {
+            // pages never cross a segment, as a segment is a whole number of pages
+            long first = position & ~PAGE_MASK;
+            page = new byte[(int) Math.min(PAGE_MASK + 1, length - first)];
+            segments[(int) (first >>> SEGMENT_BITS)].get((int) (first & SEGMENT_MASK), page);
+            pages[index] = page;
+        }
+        page[(int) (position & PAGE_MASK)] = (byte) cell.ordinal();
+    }
+}
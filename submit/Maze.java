@@ -1,7 +1,14 @@
-import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-//import java.io.IOException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Maze interface. Defines methods to
@@ -17,60 +24,122 @@ public abstract class Maze {
      */
     public enum CELL { WALL, OPEN, VISITED, PATH, GOLDCOIN };
                 /* 0,    1,    2,     3,    4 */
-    
+
+    /**
+     * Row deltas of the eight neighbors of a cell, in up, right,
+     * down, left order, then up-right, down-right, down-left and
+     * up-left. The Neighborhood of the maze says how many of them
+     * the solvers use.
+     */
+    protected static final int[] DROWS = {-1, 0, 1, 0, -1, 1, 1, -1};
+
+    /**
+     * Column deltas of the eight neighbors of a cell, in the same
+     * order as DROWS.
+     */
+    protected static final int[] DCOLS = {0, 1, 0, -1, 1, 1, -1, -1};
+
+    /**
+     * The state of solveIncremental, kept between calls so that setWall
+     * edits are repaired rather than searched again; null until the first
+     * call or after a new grid is read.
+     */
+    private IncrementalSearch incremental;
+
+    /**
+     * The time the last readFile or readBinaryFile took, in nanoseconds.
+     */
+    private long parseNanos;
+
+    /**
+     * The statistics of the last measured operation, or null.
+     */
+    private SolveStats lastStats;
+
+    /**
+     * What the running traverse or pickupGoldCoins reported through
+     * recordSearch: the cells it entered, or -1 if it has not reported,
+     * the length of its path and the peak of its frontier.
+     */
+    private long lastExpanded = -1;
+    private int lastPathLength = -1;
+    private int lastFrontier;
+
+    /**
+     * The cost of stepping into each cell, row-major, or null if every
+     * cell weighs 1. Only solve(SearchStrategy.DIJKSTRA) reads them.
+     */
+    private byte[] weights;
+
+    /**
+     * The moves the solvers may make, FOUR unless set.
+     */
+    private Neighborhood neighborhood = Neighborhood.FOUR;
+
 
     /**
      * Reads a file in and stores the grid for
      * the maze based on the content of the file.
-     * The file contains the size of the maze,
-     * the start position for the 
+     * The file contains the size of the maze
+     * (rows and, optionally, columns) and its grid, in which S marks the start
+     * position and T the target position, then optionally the weights
+     * of the cells.
+     * See MazeParser for the format.
      * 
      * @param inFile name of the file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws MazeFormatException if the file is not a valid maze
+     * @throws IOException if the file cannot be read
      */
-    public void readFile(String inFile) throws FileNotFoundException
+    public void readFile(String inFile) throws IOException
     {
-        String line;
-        int size = 5;
-        Position start = new Position(0,0);
-        Position target = new Position(size-1, size-1);
-        CELL[][] g = null;
-
-        File myObj = new File(inFile);
-        Scanner scan = new Scanner(myObj);
+        long begin = System.nanoTime();
+        MazeParser parser;
+        try (InputStream in = new FileInputStream(inFile)) {
+            parser = new MazeParser(in);
+            parser.parse();
+        }
+        incremental = null;
+        setCellGrid(parser.getGrid());
+        setStartPosition(parser.getStart());
+        setTargetPosition(parser.getTarget());
+        weights = parser.getGrid().getWeights();
+        parseNanos = System.nanoTime() - begin;
+    }
 
-        while (scan.hasNext()) {
-            line = scan.nextLine();
-            if (line.equalsIgnoreCase("size")) {
-                size = scan.nextInt();
-                target = new Position(size-1, size-1);
-            }
-            else if (line.equalsIgnoreCase("grid")) {
-                g = new MazeSolver.CELL[size][size];
-                for (int i = 0; i < size; i++) {
-                    for (int j = 0; j < size; j++) {
-                        String s = scan.next();
-                        if (s.equalsIgnoreCase("S")) {
-                            g[i][j] = MazeSolver.CELL.OPEN;
-                            start = new Position(i, j);
-                        }
-                        else if (s.equalsIgnoreCase("T")) {
-                            g[i][j] = MazeSolver.CELL.OPEN;
-                            target = new Position(i, j);
-                        }
-                        else if (s.equalsIgnoreCase("G")) {
-                            g[i][j] = MazeSolver.CELL.GOLDCOIN;
-                        }
-                        else {
-                            g[i][j] = MazeSolver.CELL.values()[Integer.parseInt(s)];
-                        }
-                    }
-                }
-            }
+    /**
+     * Loads a binary maze file (see BinaryMazeFormat) by memory-mapping
+     * its cells, so the grid is not parsed or copied onto the heap by
+     * implementations that can keep a CellGrid. Marking cells changes
+     * only this maze, never the file. The weights of the cells, if the
+     * file has them, are read onto the heap.
+     * 
+     * @param inFile name of the file
+     * @throws MazeFormatException if the file is not a valid binary maze
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public void readBinaryFile(String inFile) throws IOException
+    {
+        long begin = System.nanoTime();
+        Path path = Paths.get(inFile);
+        FileChannel channel;
+        boolean writable = Files.isWritable(path);
+        if (writable)
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        else
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            BinaryMazeFormat.Header header = BinaryMazeFormat.readHeader(channel);
+            incremental = null;
+            setCellGrid(new MappedGrid(channel, header, writable));
+            setStartPosition(header.getStart());
+            setTargetPosition(header.getTarget());
+            weights = header.hasWeights() ? BinaryMazeFormat.readWeights(channel, header) : null;
         }
-        scan.close();
-        setGrid(g); // might be null
-        setStartPosition(start);    // might be 0,0
-        setTargetPosition(target);
+        finally {
+            channel.close();
+        }
+        parseNanos = System.nanoTime() - begin;
     }
 
     // All of the methods below need to be defined in the MazeSolver class
@@ -184,35 +253,604 @@ public abstract class Maze {
 
     // These are provided for you.
     /**
-     * Returns the size of the grid, it assumes it is a
-     * square grid.
-     * @return lengths of the grid
+     * Returns true if the maze has a grid, that is, if a file was
+     * read successfully or a grid was set.
+     * @return true if there is a grid
+     */
+    public boolean hasGrid()
+    {
+        return getGrid() != null;
+    }
+
+    /**
+     * Returns the value of the cell at (row, col). The default reads
+     * getGrid(); implementations that store the grid in another form
+     * override this together with setCell.
+     * @param row the row index
+     * @param col the column index
+     * @return the CELL value at that position
+     */
+    public CELL getCell(int row, int col)
+    {
+        return getGrid()[row][col];
+    }
+
+    /**
+     * Stores a value in the cell at (row, col). The default writes
+     * into getGrid().
+     * @param row the row index
+     * @param col the column index
+     * @param cell the value to store
+     */
+    public void setCell(int row, int col, CELL cell)
+    {
+        getGrid()[row][col] = cell;
+    }
+
+    /**
+     * Returns the cost of stepping into the cell at (row, col), which
+     * only solve(SearchStrategy.DIJKSTRA) takes into account.
+     * @param row the row index
+     * @param col the column index
+     * @return the weight of the cell, 1 unless the file or setWeight gave
+     * it another
+     */
+    public int getWeight(int row, int col)
+    {
+        if (weights == null || weights.length != getRows() * getCols())
+            return 1;
+        return weights[row * getCols() + col] & 0xFF;
+    }
+
+    /**
+     * Sets the cost of stepping into the cell at (row, col).
+     * @param row the row index
+     * @param col the column index
+     * @param weight the weight, from 1 to PackedGrid.MAX_WEIGHT
+     * @throws IllegalArgumentException if the position is not valid or
+     * the weight is out of range
+     */
+    public void setWeight(int row, int col, int weight)
+    {
+        int rows = getRows();
+        int cols = getCols();
+        if (row < 0 || row >= rows || col < 0 || col >= cols)
+            throw new IllegalArgumentException("Invalid position " + row + ", " + col);
+        if (weight < 1 || weight > PackedGrid.MAX_WEIGHT)
+            throw new IllegalArgumentException("Invalid weight " + weight);
+        if (weights == null || weights.length != rows * cols) {
+            if (weight == 1)
+                return;
+            weights = new byte[rows * cols];
+            Arrays.fill(weights, (byte) 1);
+        }
+        weights[row * cols + col] = (byte) weight;
+    }
+
+    /**
+     * Forgets the weights of the cells, so that every cell weighs 1.
+     * Implementations call it from setGrid and setCellGrid, as the
+     * weights belong to the grid being replaced.
+     */
+    protected void clearWeights()
+    {
+        weights = null;
+    }
+
+    /**
+     * Returns true if the cells of the maze have weights other than 1.
+     * @return true if the maze has weights
+     */
+    public boolean hasWeights()
+    {
+        return weights != null && weights.length == getRows() * getCols();
+    }
+
+    /**
+     * Returns the moves traverse, pickupGoldCoins and every solver may
+     * make on this maze.
+     * @return the neighborhood of the maze
+     */
+    public Neighborhood getNeighborhood()
+    {
+        return neighborhood;
+    }
+
+    /**
+     * Sets the moves traverse, pickupGoldCoins and every solver may make
+     * on this maze: the four orthogonal steps, or the diagonal ones too,
+     * with or without cutting the corners of walls.
+     * @param neighborhood the neighborhood to use
+     */
+    public void setNeighborhood(Neighborhood neighborhood)
+    {
+        if (neighborhood == null)
+            throw new IllegalArgumentException("No neighborhood");
+        this.neighborhood = neighborhood;
+    }
+
+    /**
+     * Returns true if the move from (row, col) in direction dir of
+     * DROWS and DCOLS is a diagonal that passes the corner of a WALL
+     * while the neighborhood forbids it. The cell moved to must be
+     * inside the grid.
+     * @param row the row of the cell moved from
+     * @param col the column of the cell moved from
+     * @param dir the direction index
+     * @return true if the move cuts a corner it may not
+     */
+    protected boolean cutsWallCorner(int row, int col, int dir)
+    {
+        return dir >= 4 && !neighborhood.cutsCorners()
+            && (getCell(row + DROWS[dir], col) == CELL.WALL
+                || getCell(row, col + DCOLS[dir]) == CELL.WALL);
+    }
+
+    /**
+     * Returns the number of rows of the grid. For a square grid this
+     * is also its size.
+     * @return number of rows of the grid
      */
     public int getSize()
+    {
+        return getRows();
+    }
+
+    /**
+     * Returns the number of rows of the grid.
+     * @return number of rows of the grid
+     */
+    public int getRows()
     {
         return getGrid().length;
     }
 
+    /**
+     * Returns the number of columns of the grid.
+     * @return number of columns of the grid
+     */
+    public int getCols()
+    {
+        CELL[][] grid = getGrid();
+        return grid.length == 0 ? 0 : grid[0].length;
+    }
+
     /**
      * Routine simply calls traverse(getStartPosition()). See
-     * that routine for documentation.
+     * that routine for documentation. While SolverInstrumentation is
+     * enabled the call is measured as by traverseWithStats.
      * @return true if it reaches the target position, false otherwise
      */
     public boolean traverse() throws IllegalAccessException
     {
+        if (SolverInstrumentation.isEnabled())
+            return traverseWithStats().isFound();
         return traverse(getStartPosition());
     }
 
     /**
      * Routine simply calls pickupGoldCoins(getStartPosition()). See
-     * that routine for documentation.
+     * that routine for documentation. While SolverInstrumentation is
+     * enabled the call is measured as by pickupGoldCoinsWithStats.
      * @return the number of gold coins picked up
      */
     public int pickupGoldCoins() throws IllegalAccessException
     {
+        if (SolverInstrumentation.isEnabled())
+            return pickupGoldCoinsWithStats().getCoins();
         return pickupGoldCoins(getStartPosition());
     }
 
+    /**
+     * Calls traverse(getStartPosition()), whichever implementation that
+     * is, and measures it: the call is timed, and the path and the cells
+     * entered are those it reports through recordSearch, or are counted
+     * from the marks on the grid if it does not report. The statistics
+     * are published if SolverInstrumentation is enabled.
+     * @return the statistics of the traverse; no coins are reported, as
+     * the marks cover them
+     */
+    public SolveStats traverseWithStats() throws IllegalAccessException
+    {
+        lastExpanded = -1;
+        long begin = System.nanoTime();
+        boolean found = traverse(getStartPosition());
+        long elapsed = System.nanoTime() - begin;
+        if (lastExpanded < 0)
+            return record(countMarks("traverse", found, 0, elapsed));
+        SearchResult result = new SearchResult(found, found ? lastPathLength : -1, lastExpanded);
+        return record(SolveStats.ofSearch("traverse", result, lastFrontier, 0, parseNanos, elapsed));
+    }
+
+    /**
+     * Calls pickupGoldCoins(getStartPosition()), whichever implementation
+     * that is, and measures it as traverseWithStats does. The statistics
+     * are published if SolverInstrumentation is enabled.
+     * @return the statistics of the pickup, with the coins picked up
+     */
+    public SolveStats pickupGoldCoinsWithStats() throws IllegalAccessException
+    {
+        lastExpanded = -1;
+        long begin = System.nanoTime();
+        int coins = pickupGoldCoins(getStartPosition());
+        long elapsed = System.nanoTime() - begin;
+        if (lastExpanded < 0)
+            return record(countMarks("pickupGoldCoins", false, coins, elapsed));
+        return record(SolveStats.ofPickup(lastExpanded, lastFrontier, coins, parseNanos, elapsed));
+    }
+
+    /**
+     * Solves the maze as solve(strategy) does and measures it. The
+     * statistics are published if SolverInstrumentation is enabled.
+     * @param strategy the search algorithm to use
+     * @return the statistics of the search
+     */
+    public SolveStats solveWithStats(SearchStrategy strategy)
+    {
+        solve(strategy, true);
+        return lastStats;
+    }
+
+    /**
+     * Returns the statistics of the last traverse, pickupGoldCoins or
+     * solve that was measured, either with a WithStats method or while
+     * SolverInstrumentation was enabled.
+     * @return the last statistics, or null if nothing was measured
+     */
+    public SolveStats getLastStats()
+    {
+        return lastStats;
+    }
+
+    /**
+     * Returns the time the last readFile or readBinaryFile took.
+     * @return the parse time in nanoseconds, or 0 if no file was read
+     */
+    public long getParseNanos()
+    {
+        return parseNanos;
+    }
+
+    /**
+     * Sets the time the grid of the maze took to open, for a maze built
+     * around a grid read elsewhere, such as a TiledGrid. The statistics
+     * of the operations measured afterwards report it.
+     * @param nanos the parse time in nanoseconds
+     */
+    public void setParseNanos(long nanos)
+    {
+        parseNanos = nanos;
+    }
+
+    /**
+     * Solves the maze from the start position to the target position
+     * with the given strategy. As with traverse, the cells explored are
+     * marked as VISITED and the route found is marked as PATH. While
+     * SolverInstrumentation is enabled the search is also measured.
+     * @param strategy the search algorithm to use
+     * @return the result of the search
+     */
+    public SearchResult solve(SearchStrategy strategy)
+    {
+        return solve(strategy, SolverInstrumentation.isEnabled());
+    }
+
+    /**
+     * Runs a strategy on the PackedGrid of the maze with a SearchState
+     * and marks the maze with what it found. If measured, the search
+     * itself is timed, not the copies to and from the PackedGrid, and
+     * its statistics are recorded with the peak of the frontier it kept
+     * in the state and the coins on its path.
+     * @param strategy the search algorithm to use
+     * @param measured true to record and publish statistics
+     * @return the result of the search
+     */
+    private SearchResult solve(SearchStrategy strategy, boolean measured)
+    {
+        Position start = getStartPosition();
+        Position target = getTargetPosition();
+        if (start == null || target == null
+            || !positionIsValid(start) || !positionIsValid(target)) {
+            if (measured)
+                record(new SolveStats(strategy.name(), false, -1, 0, 0, 0, parseNanos, 0));
+            return SearchResult.notFound(0);
+        }
+        PackedGrid packed = toSearchGrid();
+        SearchState state = new SearchState(packed.indexCount());
+        long begin = System.nanoTime();
+        SearchResult result = strategy.solve(packed,
+            packed.index(start.getRow(), start.getCol()),
+            packed.index(target.getRow(), target.getCol()), state);
+        long elapsed = System.nanoTime() - begin;
+        if (measured) {
+            int coins = 0;
+            for (int i = 0; i < state.getPathCellCount(); i++) {
+                if (packed.getByte(state.getPathCell(i)) == PackedGrid.GOLDCOIN)
+                    coins++;
+            }
+            record(SolveStats.ofSearch(strategy.name(), result, state.getMaxFrontier(), coins,
+                parseNanos, elapsed));
+        }
+        state.apply(packed);
+        applyPackedGrid(packed);
+        return result;
+    }
+
+    /**
+     * Records what the traverse or pickupGoldCoins that is running did,
+     * for traverseWithStats and pickupGoldCoinsWithStats.
+     * Implementations call it once per call, before returning.
+     * @param expanded the number of cells the call entered
+     * @param pathLength the number of steps on the path it marked, or -1
+     * @param peak the largest number of cells on the frontier at once
+     */
+    protected void recordSearch(long expanded, int pathLength, int peak)
+    {
+        lastExpanded = expanded;
+        lastPathLength = pathLength;
+        lastFrontier = peak;
+    }
+
+    /**
+     * Builds the statistics of a traverse or pickupGoldCoins override
+     * that does not call recordSearch, from the marks on the whole grid:
+     * the path is the PATH cells, and the cells it entered are those and
+     * the VISITED ones, including any left by earlier calls. No frontier
+     * is reported.
+     * @param operation the name of the operation
+     * @param found true if the target was reached
+     * @param coins the number of gold coins picked up
+     * @param elapsed the time the call took, in nanoseconds
+     * @return the statistics
+     */
+    private SolveStats countMarks(String operation, boolean found, int coins, long elapsed)
+    {
+        long path = 0;
+        long visited = 0;
+        if (hasGrid()) {
+            int rows = getRows();
+            int cols = getCols();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    CELL cell = getCell(r, c);
+                    if (cell == CELL.PATH)
+                        path++;
+                    else if (cell == CELL.VISITED)
+                        visited++;
+                }
+            }
+        }
+        int pathLength = found ? (int) path - 1 : -1;
+        return new SolveStats(operation, found, pathLength, path + visited, 0,
+            coins, parseNanos, elapsed);
+    }
+
+    /**
+     * Remembers the statistics of an operation and publishes them.
+     * @param stats the statistics
+     * @return stats
+     */
+    private SolveStats record(SolveStats stats)
+    {
+        lastStats = stats;
+        SolverInstrumentation.publish(stats);
+        return stats;
+    }
+
+    /**
+     * Solves the maze from the start position to the target position
+     * with SparseSearch and marks the route found as PATH. Unlike solve,
+     * it never copies the grid and keeps nothing per cell of the maze,
+     * only per cell it reaches, so it suits mazes too large for a
+     * PackedGrid; and it marks no cells VISITED.
+     * @return the result of the search
+     */
+    public SearchResult solveSparse()
+    {
+        Position start = getStartPosition();
+        Position target = getTargetPosition();
+        if (start == null || target == null
+            || !positionIsValid(start) || !positionIsValid(target)) {
+            return SearchResult.notFound(0);
+        }
+        SparseSearch search = new SparseSearch(this);
+        SearchResult result = search.solve(start, target);
+        for (Position p : search.getPath()) {
+            setCell(p.getRow(), p.getCol(), CELL.PATH);
+        }
+        return result;
+    }
+
+    /**
+     * Labels the connected components of the open cells of the maze, so
+     * that reachability and the coins reachable from a cell can be looked
+     * up many times without traversing or marking the maze. Build it
+     * before the maze is traversed, as cells marked VISITED or PATH are
+     * not open.
+     * @return the component index of the current grid
+     */
+    public ComponentIndex indexComponents()
+    {
+        return new ComponentIndex(toSearchGrid());
+    }
+
+    /**
+     * Returns the number of steps between every pair of waypoints, or
+     * DistanceService.UNREACHABLE where there is no path, searching from
+     * the waypoints in parallel. The maze is not marked. To ask many
+     * times, keep a DistanceService on an ImmutableMaze instead.
+     * @param waypoints the positions to measure between
+     * @return the distance matrix
+     */
+    public int[][] distances(List<Position> waypoints)
+    {
+        ImmutableMaze snapshot = new ImmutableMaze(toSearchGrid(),
+            getStartPosition(), getTargetPosition());
+        return new DistanceService(snapshot).distances(waypoints);
+    }
+
+    /**
+     * Plans the shortest walk from the start position that picks up every
+     * gold coin reachable from it and ends at the target, and marks the
+     * cells of the walk as PATH. Nothing is marked if the target cannot
+     * be reached.
+     * @return the tour, with its length and the coins in walking order
+     */
+    public GoldTourPlanner.Tour planGoldTour()
+    {
+        PackedGrid packed = toSearchGrid();
+        ImmutableMaze snapshot = new ImmutableMaze(packed,
+            getStartPosition(), getTargetPosition());
+        GoldTourPlanner.Tour tour = GoldTourPlanner.plan(snapshot);
+        if (tour.isFound()) {
+            tour.markPath(packed);
+            applyPackedGrid(packed);
+        }
+        return tour;
+    }
+
+    /**
+     * Makes the cell at (row, col) a WALL or opens it. If solveIncremental
+     * has been called, its state is told about the change, so the next
+     * call only repairs the part of the search the edit affects. Opening
+     * a cell that is not a WALL leaves it as it is.
+     * @param row the row index
+     * @param col the column index
+     * @param wall true to make the cell a WALL, false to make it OPEN
+     * @return true if the cell changed
+     */
+    public boolean setWall(int row, int col, boolean wall)
+    {
+        if (wall == (getCell(row, col) == CELL.WALL))
+            return false;
+        setCell(row, col, wall ? CELL.WALL : CELL.OPEN);
+        if (incremental != null)
+            incremental.setWall(row, col, wall);
+        return true;
+    }
+
+    /**
+     * Finds a shortest path from the start position to the target
+     * position with IncrementalSearch and marks it as PATH, clearing the
+     * path marked by the previous call. The search keeps its state on the
+     * maze: after walls are changed with setWall, the next call repairs
+     * only the affected region instead of searching from scratch. It
+     * starts over when the start or target position or the neighborhood
+     * has changed. Cells
+     * marked VISITED or PATH count as open.
+     * @return the result of the search; the cells expanded are those of
+     * this call only
+     */
+    public SearchResult solveIncremental()
+    {
+        Position start = getStartPosition();
+        Position target = getTargetPosition();
+        if (start == null || target == null
+            || !positionIsValid(start) || !positionIsValid(target)) {
+            return SearchResult.notFound(0);
+        }
+        if (incremental != null) {
+            PackedGrid own = incremental.getGrid();
+            if (incremental.getStart() != own.index(start.getRow(), start.getCol())
+                || incremental.getTarget() != own.index(target.getRow(), target.getCol())
+                || own.getNeighborhood() != neighborhood) {
+                incremental = null;
+            }
+        }
+        if (incremental == null) {
+            PackedGrid own = PackedGrid.copyOf(toSearchGrid());
+            incremental = new IncrementalSearch(own,
+                own.index(start.getRow(), start.getCol()),
+                own.index(target.getRow(), target.getCol()));
+        }
+        else {
+            markIncrementalPath(false);
+        }
+        SearchResult result = incremental.solve();
+        markIncrementalPath(true);
+        return result;
+    }
+
+    /**
+     * Marks the path of the last incremental search as PATH, or gives
+     * its cells back the values they have in the search's grid.
+     * @param mark true to mark the path, false to clear it
+     */
+    private void markIncrementalPath(boolean mark)
+    {
+        PackedGrid own = incremental.getGrid();
+        for (int i = 0; i < incremental.getPathCellCount(); i++) {
+            int cell = incremental.getPathCell(i);
+            int row = own.rowOf(cell);
+            int col = own.colOf(cell);
+            setCell(row, col, mark ? CELL.PATH : own.get(row, col));
+        }
+    }
+
+    /**
+     * Replaces the grid of the maze with the content of a CellGrid.
+     * The default expands it into a CELL[][] for setGrid;
+     * implementations that store a CellGrid keep it as is.
+     * @param cells the new grid
+     */
+    public void setCellGrid(CellGrid cells)
+    {
+        PackedGrid packed = cells instanceof PackedGrid
+            ? (PackedGrid) cells : PackedGrid.copyOf(cells);
+        setGrid(packed.toCells());
+    }
+
+    /**
+     * Returns the grid as a PackedGrid for the solvers. The default
+     * builds a copy with getCell; implementations that already store
+     * a PackedGrid return it directly.
+     * @return a PackedGrid with the content of the maze
+     */
+    protected PackedGrid toPackedGrid()
+    {
+        int rows = getRows();
+        int cols = getCols();
+        PackedGrid packed = new PackedGrid(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                packed.set(r, c, getCell(r, c));
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Returns toPackedGrid() carrying the weights and the neighborhood of
+     * the maze, for the solvers.
+     * @return a PackedGrid with the content, weights and moves of the maze
+     */
+    private PackedGrid toSearchGrid()
+    {
+        PackedGrid packed = toPackedGrid();
+        packed.setWeights(hasWeights() ? weights : null);
+        packed.setNeighborhood(neighborhood);
+        return packed;
+    }
+
+    /**
+     * Copies the cells of a grid returned by toPackedGrid back into the
+     * maze after a solver has marked it.
+     * @param packed the grid to copy from
+     */
+    protected void applyPackedGrid(PackedGrid packed)
+    {
+        int rows = getRows();
+        int cols = getCols();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                CELL cell = packed.get(r, c);
+                if (getCell(r, c) != cell) {
+                    setCell(r, c, cell);
+                }
+            }
+        }
+    }
+
     /**
      * Converts the board to a string representation that can
      * be printed.
@@ -221,32 +859,34 @@ public abstract class Maze {
     @Override
     public String toString()
     {
-        CELL[][] g = getGrid();
+        int rows = getRows();
+        int cols = getCols();
         StringBuilder result = new StringBuilder("\n");
-        for (int r = 0; r < getSize(); r++) {
+        for (int r = 0; r < rows; r++) {
             result.append("[");
-            for (int c = 0; c < getSize(); c++) {
-                if (g[r][c] == CELL.WALL) {
+            for (int c = 0; c < cols; c++) {
+                CELL cell = getCell(r, c);
+                if (cell == CELL.WALL) {
                     result.append(" + ");
                 }
-                else if (g[r][c] == CELL.OPEN) {
-                    if (getStartPosition().equals(new Position(r,c))) {
+                else if (cell == CELL.OPEN) {
+                    if (getStartPosition().equals(Position.of(r,c))) {
                         result.append(" S ");   // if start use S, if end use T
                     }
-                    else if (getTargetPosition().equals(new Position(r,c))) {
+                    else if (getTargetPosition().equals(Position.of(r,c))) {
                         result.append(" T ");   // if end use T
                     }
                     else {
                         result.append("   ");
                     }
                 }
-                else if (g[r][c] == CELL.VISITED) {
+                else if (cell == CELL.VISITED) {
                     result.append(" x ");
                 }
-                else if (g[r][c] == CELL.PATH) {
+                else if (cell == CELL.PATH) {
                     result.append(" √ ");
                 }
-                else if (g[r][c] == CELL.GOLDCOIN) {
+                else if (cell == CELL.GOLDCOIN) {
                     result.append(" G ");
                 }
             }
@@ -0,0 +1,31 @@
+import java.io.IOException;
+
+/**
+ * MazeFormatException is thrown when a maze file cannot be parsed. The
+ * message names the line where the problem was found.
+ */
+public class MazeFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+
+    /**
+     * Constructs an exception for a problem found on the given line.
+     *
+     * @param message what is wrong with the file
+     * @param line the 1-based line number, or 0 if not tied to a line
+     */
+    public MazeFormatException(String message, int line) {
+        super(line > 0 ? "line " + line + ": " + message : message);
+        this.line = line;
+    }
+
+    /**
+     * Returns the line where the problem was found.
+     *
+     * @return the 1-based line number, or 0 if not tied to a line
+     */
+    public int getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,581 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MazeGenerator builds mazes of any size for tests and benchmarks and
+ * writes them one row at a time, in the text format of MazeParser or the
+ * binary format of BinaryMazeFormat, so a maze never has to fit on the
+ * heap as a grid. The same algorithm, size and seed always give the same
+ * maze.
+ *
+ * The perfect-maze algorithms (BACKTRACKER, KRUSKAL and PRIM) carve a
+ * spanning tree of a lattice of cells at even rows and columns, the cells
+ * in between being the passages. The lattice is kept as bits (which
+ * passages are open, plus two or three bits per cell while carving), and
+ * Kruskal's union-find takes an int per lattice cell: about 1 byte per
+ * cell of the maze at most. RANDOM_FILL and SERPENTINE build each row as
+ * it is written and keep nothing else.
+ *
+ * Gold coins are scattered over the open cells with a separate random
+ * stream, so the coin density does not change the walls.
+ */
+public final class MazeGenerator {
+
+    /**
+     * The layouts the generator can build.
+     */
+    public enum Algorithm {
+        /** A depth-first recursive backtracker: long, winding corridors. */
+        BACKTRACKER,
+        /** Kruskal's algorithm on the lattice edges in random order. */
+        KRUSKAL,
+        /** Randomized Prim's algorithm: many short dead ends. */
+        PRIM,
+        /** Every cell is a WALL with probability the wall density. */
+        RANDOM_FILL,
+        /** One corridor winding across every other row, the longest path. */
+        SERPENTINE;
+
+        /**
+         * Returns the algorithm with the given name, ignoring case.
+         *
+         * @param name the name of an algorithm
+         * @return the algorithm
+         * @throws IllegalArgumentException if no algorithm has that name
+         */
+        public static Algorithm fromName(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.name().equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unknown maze algorithm: " + name);
+        }
+    }
+
+    /**
+     * Receives the rows of a maze in order.
+     */
+    public interface RowSink {
+        /**
+         * Takes the next row. The array is reused for the next row.
+         *
+         * @param row one CELL ordinal per column
+         * @throws IOException if the row cannot be written
+         */
+        void writeRow(byte[] row) throws IOException;
+    }
+
+    private final Algorithm algorithm;
+    private final int rows;
+    private final int cols;
+    private final long seed;
+    private double wallDensity = 0.3;
+    private double coinDensity;
+
+    private final int latticeRows;
+    private final int latticeCols;
+    private long[] right;
+    private long[] down;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param algorithm the layout to build
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param seed the random seed
+     * @throws IllegalArgumentException if the size is not positive or too
+     *     large for the lattice of a perfect maze
+     */
+    public MazeGenerator(Algorithm algorithm, int rows, int cols, long seed) {
+        if (rows < 1 || cols < 1)
+            throw new IllegalArgumentException("Maze size must be positive: " + rows + "x" + cols);
+        this.algorithm = algorithm;
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        this.latticeRows = (rows + 1) / 2;
+        this.latticeCols = (cols + 1) / 2;
+        if ((long) latticeRows * latticeCols > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Maze too large: " + rows + "x" + cols);
+    }
+
+    /**
+     * Sets the probability that a cell is a WALL, for RANDOM_FILL.
+     *
+     * @param density a probability between 0 and 1; 0.3 by default
+     */
+    public void setWallDensity(double density) {
+        if (density < 0 || density > 1)
+            throw new IllegalArgumentException("Wall density must be between 0 and 1: " + density);
+        this.wallDensity = density;
+    }
+
+    /**
+     * Sets the probability that an open cell holds a gold coin.
+     *
+     * @param density a probability between 0 and 1; 0 by default
+     */
+    public void setCoinDensity(double density) {
+        if (density < 0 || density > 1)
+            throw new IllegalArgumentException("Coin density must be between 0 and 1: " + density);
+        this.coinDensity = density;
+    }
+
+    /**
+     * Returns the start position: always the top left corner.
+     *
+     * @return the start position
+     */
+    public Position getStart() {
+        return new Position(0, 0);
+    }
+
+    /**
+     * Returns the target position: the open cell farthest from the start
+     * along the layout, at or next to the bottom of the maze.
+     *
+     * @return the target position
+     */
+    public Position getTarget() {
+        switch (algorithm) {
+            case RANDOM_FILL:
+                return new Position(rows - 1, cols - 1);
+            case SERPENTINE:
+                int last = (rows - 1) & ~1;
+                return new Position(last, (last / 2) % 2 == 0 ? cols - 1 : 0);
+            default:
+                return new Position(2 * (latticeRows - 1), 2 * (latticeCols - 1));
+        }
+    }
+
+    /**
+     * Generates the maze and hands its rows to a sink, from the first row
+     * to the last.
+     *
+     * @param sink the receiver of the rows
+     * @throws IOException if the sink cannot take a row
+     */
+    public void generate(RowSink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom coins = random.split();
+        switch (algorithm) {
+            case BACKTRACKER:
+                carveBacktracker(random);
+                break;
+            case KRUSKAL:
+                carveKruskal(random);
+                break;
+            case PRIM:
+                carvePrim(random);
+                break;
+            default:
+                break;
+        }
+
+        Position start = getStart();
+        Position target = getTarget();
+        byte[] row = new byte[cols];
+        for (int r = 0; r < rows; r++) {
+            switch (algorithm) {
+                case RANDOM_FILL:
+                    for (int c = 0; c < cols; c++) {
+                        row[c] = random.nextDouble() < wallDensity ? PackedGrid.WALL : PackedGrid.OPEN;
+                    }
+                    break;
+                case SERPENTINE:
+                    serpentineRow(r, row);
+                    break;
+                default:
+                    latticeRow(r, row);
+                    break;
+            }
+            if (r == start.getRow())
+                row[start.getCol()] = PackedGrid.OPEN;
+            if (r == target.getRow())
+                row[target.getCol()] = PackedGrid.OPEN;
+            if (coinDensity > 0) {
+                for (int c = 0; c < cols; c++) {
+                    if (row[c] == PackedGrid.OPEN && coins.nextDouble() < coinDensity
+                        && !(r == start.getRow() && c == start.getCol())
+                        && !(r == target.getRow() && c == target.getCol()))
+                        row[c] = PackedGrid.GOLDCOIN;
+                }
+            }
+            sink.writeRow(row);
+        }
+        right = null;
+        down = null;
+    }
+
+    /**
+     * Generates the maze into a new PackedGrid, for mazes that fit on
+     * the heap.
+     *
+     * @return the grid
+     */
+    public PackedGrid toPackedGrid() {
+        final PackedGrid grid = new PackedGrid(rows, cols);
+        try {
+            generate(new RowSink() {
+                private int r;
+
+                public void writeRow(byte[] row) {
+                    int base = grid.index(r++, 0);
+                    for (int c = 0; c < row.length; c++) {
+                        grid.setByte(base + c, row[c]);
+                    }
+                }
+            });
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e); // the sink does no IO
+        }
+        return grid;
+    }
+
+    /**
+     * Writes the maze to a file in the text format, with S at the start
+     * and T at the target.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeText(String file) throws IOException {
+        final Position start = getStart();
+        final Position target = getTarget();
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            String size = rows == cols ? "" + rows : rows + " " + cols;
+            out.write(("size\n" + size + "\ngrid\n").getBytes(StandardCharsets.US_ASCII));
+            final byte[] line = new byte[2 * cols];
+            generate(new RowSink() {
+                private int r;
+
+                public void writeRow(byte[] row) throws IOException {
+                    for (int c = 0; c < cols; c++) {
+                        byte token;
+                        if (r == start.getRow() && c == start.getCol())
+                            token = 'S';
+                        else if (r == target.getRow() && c == target.getCol())
+                            token = 'T';
+                        else if (row[c] == PackedGrid.GOLDCOIN)
+                            token = 'G';
+                        else
+                            token = (byte) ('0' + row[c]);
+                        line[2 * c] = token;
+                        line[2 * c + 1] = c == cols - 1 ? (byte) '\n' : (byte) ' ';
+                    }
+                    out.write(line);
+                    r++;
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the maze to a file in the binary format of BinaryMazeFormat.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(String file) throws IOException {
+        try (final BinaryMazeFormat.Writer writer = new BinaryMazeFormat.Writer(file, rows, cols)) {
+            writer.setStart(getStart());
+            writer.setTarget(getTarget());
+            generate(new RowSink() {
+                public void writeRow(byte[] row) throws IOException {
+                    writer.writeRow(row);
+                }
+            });
+        }
+    }
+
+    /**
+     * Fills a row of a perfect maze from the carved lattice: even rows
+     * hold the lattice cells and the passages to their right, odd rows
+     * the passages down from the row above.
+     *
+     * @param r the row index
+     * @param row the row to fill
+     */
+    private void latticeRow(int r, byte[] row) {
+        int y = r / 2;
+        for (int c = 0; c < cols; c++) {
+            int x = c / 2;
+            boolean open;
+            if (r % 2 == 0)
+                open = c % 2 == 0 || get(right, y * latticeCols + x);
+            else
+                open = c % 2 == 0 && get(down, y * latticeCols + x);
+            row[c] = open ? PackedGrid.OPEN : PackedGrid.WALL;
+        }
+    }
+
+    /**
+     * Fills a row of the serpentine: even rows are open, odd rows are
+     * walls with one gap at alternating ends, and a last odd row is all
+     * walls.
+     *
+     * @param r the row index
+     * @param row the row to fill
+     */
+    private void serpentineRow(int r, byte[] row) {
+        byte fill = r % 2 == 0 ? PackedGrid.OPEN : PackedGrid.WALL;
+        for (int c = 0; c < cols; c++) {
+            row[c] = fill;
+        }
+        if (r % 2 == 1 && r < rows - 1)
+            row[(r / 2) % 2 == 0 ? cols - 1 : 0] = PackedGrid.OPEN;
+    }
+
+    /**
+     * Allocates the passage bits of the lattice, all closed.
+     */
+    private void newLattice() {
+        int words = (latticeRows * latticeCols + 63) >>> 6;
+        right = new long[words];
+        down = new long[words];
+    }
+
+    /**
+     * Returns the lattice neighbor of a cell in a direction, in the
+     * up, right, down, left order of Maze.DROWS and Maze.DCOLS.
+     *
+     * @param cell the lattice cell
+     * @param dir the direction
+     * @return the neighbor, or -1 if it is outside the lattice
+     */
+    private int neighbor(int cell, int dir) {
+        int y = cell / latticeCols;
+        int x = cell - y * latticeCols;
+        switch (dir) {
+            case 0:
+                return y > 0 ? cell - latticeCols : -1;
+            case 1:
+                return x < latticeCols - 1 ? cell + 1 : -1;
+            case 2:
+                return y < latticeRows - 1 ? cell + latticeCols : -1;
+            default:
+                return x > 0 ? cell - 1 : -1;
+        }
+    }
+
+    /**
+     * Opens the passage from a lattice cell in a direction.
+     *
+     * @param cell the lattice cell
+     * @param dir the direction of a neighbor inside the lattice
+     */
+    private void carve(int cell, int dir) {
+        switch (dir) {
+            case 0:
+                set(down, cell - latticeCols);
+                break;
+            case 1:
+                set(right, cell);
+                break;
+            case 2:
+                set(down, cell);
+                break;
+            default:
+                set(right, cell - 1);
+                break;
+        }
+    }
+
+    /**
+     * Carves the lattice with a depth-first walk that steps to a random
+     * unvisited neighbor and backs up at dead ends. Instead of a stack,
+     * each cell keeps in two bits the direction back to the cell it was
+     * entered from.
+     *
+     * @param random the random source
+     */
+    private void carveBacktracker(SplittableRandom random) {
+        newLattice();
+        int cells = latticeRows * latticeCols;
+        long[] visited = new long[(cells + 63) >>> 6];
+        long[] back = new long[(cells + 31) >>> 5];
+        int[] choices = new int[4];
+        int cell = 0;
+        set(visited, 0);
+        while (true) {
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbor(cell, dir);
+                if (next >= 0 && !get(visited, next))
+                    choices[count++] = dir;
+            }
+            if (count > 0) {
+                int dir = choices[random.nextInt(count)];
+                int next = neighbor(cell, dir);
+                carve(cell, dir);
+                set(visited, next);
+                back[next >>> 5] |= (long) ((dir + 2) & 3) << ((next & 31) << 1);
+                cell = next;
+            }
+            else if (cell == 0) {
+                break;
+            }
+            else {
+                cell = neighbor(cell, (int) (back[cell >>> 5] >>> ((cell & 31) << 1)) & 3);
+            }
+        }
+    }
+
+    /**
+     * Carves the lattice with Kruskal's algorithm: every passage, in a
+     * random order, is opened if it joins two cells not yet connected.
+     * The order comes from a seeded permutation of the passage numbers,
+     * so the passages are never stored or shuffled.
+     *
+     * @param random the random source
+     */
+    private void carveKruskal(SplittableRandom random) {
+        newLattice();
+        int cells = latticeRows * latticeCols;
+        int[] parent = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            parent[i] = i;
+        }
+        // Passage 2 * cell goes right from cell, 2 * cell + 1 goes down.
+        long passages = 2L * cells;
+        int bits = 2;
+        while (1L << bits < passages) {
+            bits += 2;
+        }
+        int half = bits / 2;
+        int[] keys = new int[4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt();
+        }
+        int joins = cells - 1;
+        for (long i = 0; i < 1L << bits && joins > 0; i++) {
+            long passage = permute(i, half, keys);
+            if (passage >= passages)
+                continue;
+            int cell = (int) (passage >>> 1);
+            int dir = (passage & 1) == 0 ? 1 : 2;
+            int next = neighbor(cell, dir);
+            if (next < 0)
+                continue;
+            int a = find(parent, cell);
+            int b = find(parent, next);
+            if (a != b) {
+                parent[a] = b;
+                carve(cell, dir);
+                joins--;
+            }
+        }
+    }
+
+    /**
+     * Carves the lattice with randomized Prim's algorithm: a random
+     * frontier cell, next to the carved region, is joined to a random
+     * carved neighbor until no frontier is left.
+     *
+     * @param random the random source
+     */
+    private void carvePrim(SplittableRandom random) {
+        newLattice();
+        int cells = latticeRows * latticeCols;
+        long[] carved = new long[(cells + 63) >>> 6];
+        long[] queued = new long[(cells + 63) >>> 6];
+        int[] frontier = new int[16];
+        int size = 0;
+        int[] choices = new int[4];
+        int cell = 0;
+        while (true) {
+            set(carved, cell);
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbor(cell, dir);
+                if (next >= 0 && !get(carved, next) && !get(queued, next)) {
+                    set(queued, next);
+                    if (size == frontier.length)
+                        frontier = Arrays.copyOf(frontier, size * 2);
+                    frontier[size++] = next;
+                }
+            }
+            if (size == 0)
+                break;
+            int pick = random.nextInt(size);
+            cell = frontier[pick];
+            frontier[pick] = frontier[--size];
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbor(cell, dir);
+                if (next >= 0 && get(carved, next))
+                    choices[count++] = dir;
+            }
+            carve(cell, choices[random.nextInt(count)]);
+        }
+    }
+
+    /**
+     * Returns the root of a cell in a union-find forest, halving the
+     * path on the way.
+     *
+     * @param parent the forest
+     * @param cell the cell
+     * @return the root of its tree
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Maps a number of 2 * half bits to another one with a four-round
+     * Feistel network, which is a permutation of those numbers.
+     *
+     * @param value the number to map
+     * @param half the number of bits of each half
+     * @param keys the round keys
+     * @return the mapped number
+     */
+    private static long permute(long value, int half, int[] keys) {
+        int mask = (int) ((1L << half) - 1);
+        int left = (int) (value >>> half);
+        int rightHalf = (int) value & mask;
+        for (int key : keys) {
+            int h = rightHalf * 0x9E3779B9 ^ key;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            int next = left ^ (h & mask);
+            left = rightHalf;
+            rightHalf = next;
+        }
+        return (long) left << half | rightHalf;
+    }
+
+    /**
+     * Returns a bit of a bitset.
+     *
+     * @param bits the bitset
+     * @param i the bit index
+     * @return true if the bit is set
+     */
+    private static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * Sets a bit of a bitset.
+     *
+     * @param bits the bitset
+     * @param i the bit index
+     */
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+}
@@ -0,0 +1,153 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Test class for MazeGenerator.
+ */
+public class MazeGeneratorTest {
+    private File text;
+    private File binary;
+
+    @Before
+    public void setUp() throws IOException {
+        text = File.createTempFile("maze", ".txt");
+        binary = File.createTempFile("maze", ".mazeb");
+    }
+
+    @After
+    public void tearDown() {
+        text.delete();
+        binary.delete();
+    }
+
+    /**
+     * Returns the number of cells that are not WALL.
+     *
+     * @param grid the grid
+     * @return the number of open cells
+     */
+    private static int countOpen(PackedGrid grid) {
+        int count = 0;
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                if (grid.get(r, c) != Maze.CELL.WALL)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests that the perfect-maze algorithms carve a spanning tree: all
+     * open cells are connected, and there is one passage fewer than
+     * lattice cells, so there is no loop.
+     */
+    @Test
+    public void testPerfectMazes() {
+        MazeGenerator.Algorithm[] perfect = { MazeGenerator.Algorithm.BACKTRACKER,
+            MazeGenerator.Algorithm.KRUSKAL, MazeGenerator.Algorithm.PRIM };
+        int[][] sizes = { { 1, 1 }, { 1, 9 }, { 21, 31 }, { 40, 17 } };
+        for (MazeGenerator.Algorithm algorithm : perfect) {
+            for (int[] size : sizes) {
+                MazeGenerator generator = new MazeGenerator(algorithm, size[0], size[1], 7);
+                PackedGrid grid = generator.toPackedGrid();
+                String message = algorithm + " " + size[0] + "x" + size[1];
+                int lattice = ((size[0] + 1) / 2) * ((size[1] + 1) / 2);
+                assertEquals(message, 2 * lattice - 1, countOpen(grid));
+                assertEquals(message, 1, new ComponentIndex(grid).getComponentCount());
+
+                ImmutableMaze maze = new ImmutableMaze(grid, generator.getStart(), generator.getTarget());
+                assertTrue(message, maze.solve(SearchStrategy.BFS).isFound());
+            }
+        }
+    }
+
+    /**
+     * Tests that the serpentine is a single corridor through every open
+     * cell, from the start to the target.
+     */
+    @Test
+    public void testSerpentine() {
+        int[][] sizes = { { 1, 5 }, { 9, 12 }, { 10, 7 } };
+        for (int[] size : sizes) {
+            MazeGenerator generator = new MazeGenerator(MazeGenerator.Algorithm.SERPENTINE,
+                size[0], size[1], 0);
+            PackedGrid grid = generator.toPackedGrid();
+            ImmutableMaze maze = new ImmutableMaze(grid, generator.getStart(), generator.getTarget());
+            SearchResult result = maze.solve(SearchStrategy.BFS);
+            assertTrue(result.isFound());
+            assertEquals(countOpen(grid) - 1, result.getPathLength());
+        }
+    }
+
+    /**
+     * Tests that the wall and coin densities are roughly honored and that
+     * the coins do not move the walls.
+     */
+    @Test
+    public void testDensities() {
+        MazeGenerator generator = new MazeGenerator(MazeGenerator.Algorithm.RANDOM_FILL, 200, 100, 3);
+        generator.setWallDensity(0.4);
+        PackedGrid plain = generator.toPackedGrid();
+        double walls = 1 - countOpen(plain) / 20000.0;
+        assertEquals(0.4, walls, 0.02);
+
+        generator.setCoinDensity(0.1);
+        PackedGrid withCoins = generator.toPackedGrid();
+        int coins = 0;
+        for (int r = 0; r < 200; r++) {
+            for (int c = 0; c < 100; c++) {
+                assertEquals(plain.get(r, c) == Maze.CELL.WALL, withCoins.get(r, c) == Maze.CELL.WALL);
+                if (withCoins.get(r, c) == Maze.CELL.GOLDCOIN)
+                    coins++;
+            }
+        }
+        assertEquals(0.1, coins / (double) countOpen(plain), 0.02);
+    }
+
+    /**
+     * Tests that the same seed gives the same maze and another seed a
+     * different one.
+     */
+    @Test
+    public void testSeeded() {
+        for (MazeGenerator.Algorithm algorithm : MazeGenerator.Algorithm.values()) {
+            Maze.CELL[][] first = new MazeGenerator(algorithm, 25, 25, 1).toPackedGrid().toCells();
+            Maze.CELL[][] again = new MazeGenerator(algorithm, 25, 25, 1).toPackedGrid().toCells();
+            assertArrayEquals(algorithm.toString(), first, again);
+            if (algorithm != MazeGenerator.Algorithm.SERPENTINE) {
+                Maze.CELL[][] other = new MazeGenerator(algorithm, 25, 25, 2).toPackedGrid().toCells();
+                assertFalse(algorithm.toString(), Arrays.deepEquals(first, other));
+            }
+        }
+    }
+
+    /**
+     * Tests that the text and binary files hold the generated maze, with
+     * its start and target.
+     * @throws IOException
+     */
+    @Test
+    public void testWriteFiles() throws IOException {
+        for (MazeGenerator.Algorithm algorithm : MazeGenerator.Algorithm.values()) {
+            MazeGenerator generator = new MazeGenerator(algorithm, 15, 22, 5);
+            generator.setCoinDensity(0.05);
+            Maze.CELL[][] expected = generator.toPackedGrid().toCells();
+
+            generator.writeText(text.getPath());
+            ImmutableMaze fromText = ImmutableMaze.readFile(text.getPath());
+            assertArrayEquals(algorithm.toString(), expected, fromText.toPackedGrid(null).toCells());
+            assertEquals(generator.getStart(), fromText.getStartPosition());
+            assertEquals(generator.getTarget(), fromText.getTargetPosition());
+
+            generator.writeBinary(binary.getPath());
+            ImmutableMaze fromBinary = ImmutableMaze.readFile(binary.getPath());
+            assertArrayEquals(algorithm.toString(), expected, fromBinary.toPackedGrid(null).toCells());
+            assertEquals(generator.getStart(), fromBinary.getStartPosition());
+            assertEquals(generator.getTarget(), fromBinary.getTargetPosition());
+        }
+    }
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MazeParser reads the text maze format straight from the bytes of a
+ * stream into a PackedGrid. The format is a "size" keyword followed by
+ * the number of rows and, for a grid that is not square, the number of
+ * columns, then a "grid" keyword followed by one whitespace-separated
+ * token per cell in row-major order: a CELL ordinal (0 to 4), S for
+ * the start, T for the target or G for a gold coin. An optional
+ * "weights" keyword after the grid is followed by one number per cell,
+ * from 1 to PackedGrid.MAX_WEIGHT, the cost of stepping into that cell;
+ * without it every cell weighs 1. Keywords and letters are
+ * case-insensitive.
+ *
+ * Tokens are matched byte by byte from a reusable buffer, so no String
+ * is created per cell. Anything that does not fit the format is reported
+ * as a MazeFormatException naming the line where it was found.
+ */
+public class MazeParser {
+    /** The size used when a file has a grid but no size, as before. */
+    private static final int DEFAULT_SIZE = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN = 32;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int tokenLength;
+    private int tokenLine;
+    private boolean pushedBack;
+
+    private PackedGrid grid;
+    private boolean sawWeights;
+    private Position start;
+    private Position target;
+
+    /**
+     * Constructs a parser reading from the given stream. The stream is
+     * read in large blocks, so it does not need to be buffered.
+     *
+     * @param in the stream holding the maze text
+     */
+    public MazeParser(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the whole maze from the stream.
+     *
+     * @throws MazeFormatException if the text is not a valid maze
+     * @throws IOException if the stream cannot be read
+     */
+    public void parse() throws IOException {
+        int rows = DEFAULT_SIZE;
+        int cols = DEFAULT_SIZE;
+        boolean sawSize = false;
+        while (nextToken()) {
+            if (tokenIs("size")) {
+                if (sawSize || grid != null)
+                    throw error("duplicate size");
+                rows = readNumber("size");
+                cols = rows;
+                if (nextToken()) {
+                    // an optional second number is the number of columns
+                    pushedBack = true;
+                    if (isNumber())
+                        cols = readNumber("columns");
+                }
+                sawSize = true;
+            }
+            else if (tokenIs("grid")) {
+                if (grid != null)
+                    throw error("duplicate grid");
+                readGrid(rows, cols);
+            }
+            else if (tokenIs("weights")) {
+                if (grid == null)
+                    throw error("weights before grid");
+                if (sawWeights)
+                    throw error("duplicate weights");
+                readWeights();
+                sawWeights = true;
+            }
+            else {
+                throw error("unexpected '" + tokenText() + "', expected size, grid or weights");
+            }
+        }
+        if (grid == null)
+            throw new MazeFormatException("no grid section", line);
+    }
+
+    /**
+     * Returns the grid read by parse.
+     *
+     * @return the parsed grid
+     */
+    public PackedGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns the start position: the S cell, or (0, 0) if there is none.
+     *
+     * @return the start position
+     */
+    public Position getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the target position: the T cell, or the bottom-right
+     * corner if there is none.
+     *
+     * @return the target position
+     */
+    public Position getTarget() {
+        return target;
+    }
+
+    /**
+     * Reads rows * cols cell tokens into a new grid.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @throws IOException if the cells are missing or invalid
+     */
+    private void readGrid(int rows, int cols) throws IOException {
+        try {
+            grid = new PackedGrid(rows, cols);
+        }
+        catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+        start = Position.of(0, 0);
+        target = Position.of(rows - 1, cols - 1);
+        for (int r = 0; r < rows; r++) {
+            int index = grid.index(r, 0);
+            for (int c = 0; c < cols; c++, index++) {
+                if (!nextToken()) {
+                    throw new MazeFormatException("expected " + rows + " x " + cols
+                        + " cells, grid ends at row " + r + " column " + c, line);
+                }
+                grid.setByte(index, cellValue(r, c));
+            }
+        }
+    }
+
+    /**
+     * Reads one weight token per cell of the grid.
+     *
+     * @throws IOException if the weights are missing or invalid
+     */
+    private void readWeights() throws IOException {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!nextToken()) {
+                    throw new MazeFormatException("expected " + rows + " x " + cols
+                        + " weights, weights end at row " + r + " column " + c, line);
+                }
+                int weight = 0;
+                for (int i = 0; i < tokenLength && weight <= PackedGrid.MAX_WEIGHT; i++) {
+                    int digit = token[i] - '0';
+                    if (digit < 0 || digit > 9) {
+                        weight = -1;
+                        break;
+                    }
+                    weight = weight * 10 + digit;
+                }
+                if (weight < 1 || weight > PackedGrid.MAX_WEIGHT) {
+                    throw error("invalid weight '" + tokenText() + "' at row " + r + " column " + c);
+                }
+                grid.setWeight(r, c, weight);
+            }
+        }
+    }
+
+    /**
+     * Returns the CELL ordinal for the current token, recording the
+     * start or target position if it is S or T.
+     *
+     * @param r the row of the cell
+     * @param c the column of the cell
+     * @return the byte to store in the grid
+     * @throws MazeFormatException if the token is not a valid cell
+     */
+    private byte cellValue(int r, int c) throws MazeFormatException {
+        if (tokenLength == 1) {
+            switch (token[0]) {
+                case 'S': case 's':
+                    start = Position.of(r, c);
+                    return PackedGrid.OPEN;
+                case 'T': case 't':
+                    target = Position.of(r, c);
+                    return PackedGrid.OPEN;
+                case 'G': case 'g':
+                    return PackedGrid.GOLDCOIN;
+                default:
+                    break;
+            }
+        }
+        int value = 0;
+        for (int i = 0; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("invalid cell '" + tokenText() + "' at row " + r + " column " + c);
+            }
+            value = value * 10 + digit;
+            if (value > PackedGrid.GOLDCOIN) {
+                throw error("invalid cell '" + tokenText() + "' at row " + r + " column " + c);
+            }
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Reads the next token as a non-negative number.
+     *
+     * @param what the name of the value, for error messages
+     * @return the number read
+     * @throws IOException if the token is missing or not a number
+     */
+    private int readNumber(String what) throws IOException {
+        if (!nextToken())
+            throw new MazeFormatException("missing value for " + what, line);
+        long value = 0;
+        for (int i = 0; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE / 10)
+                throw error("invalid " + what + " '" + tokenText() + "'");
+            value = value * 10 + digit;
+        }
+        if (value > Integer.MAX_VALUE)
+            throw error("invalid " + what + " '" + tokenText() + "'");
+        return (int) value;
+    }
+
+    /**
+     * Returns true if the current token is made of digits only.
+     *
+     * @return true if the token is a number
+     */
+    private boolean isNumber() {
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] < '0' || token[i] > '9')
+                return false;
+        }
+        return tokenLength > 0;
+    }
+
+    /**
+     * Reads the next whitespace-separated token into the token buffer,
+     * or keeps the current one if it was pushed back.
+     *
+     * @return false at the end of the stream
+     * @throws MazeFormatException if the token is longer than MAX_TOKEN
+     * bytes, as no valid token is
+     * @throws IOException if the stream cannot be read
+     */
+    private boolean nextToken() throws IOException {
+        if (pushedBack) {
+            pushedBack = false;
+            return true;
+        }
+        int b = read();
+        while (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+            if (b == '\n')
+                line++;
+            b = read();
+        }
+        if (b < 0)
+            return false;
+
+        tokenLine = line;
+        tokenLength = 0;
+        while (b >= 0 && b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+            if (tokenLength == MAX_TOKEN)
+                throw error("token '" + tokenText() + "...' longer than " + MAX_TOKEN + " bytes");
+            token[tokenLength++] = (byte) b;
+            b = read();
+        }
+        if (b == '\n')
+            line++;
+        return true;
+    }
+
+    /**
+     * Returns the next byte of the stream, refilling the buffer as needed.
+     *
+     * @return the byte, or -1 at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Returns true if the current token equals the given lower-case
+     * keyword, ignoring case.
+     *
+     * @param keyword the keyword, in lower case
+     * @return true if the token matches
+     */
+    private boolean tokenIs(String keyword) {
+        if (tokenLength != keyword.length())
+            return false;
+        for (int i = 0; i < tokenLength; i++) {
+            if (Character.toLowerCase((char) token[i]) != keyword.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current token as a String, for error messages.
+     *
+     * @return the text of the token
+     */
+    private String tokenText() {
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns an exception for a problem with the current token.
+     *
+     * @param message what is wrong
+     * @return the exception to throw
+     */
+    private MazeFormatException error(String message) {
+        return new MazeFormatException(message, tokenLine);
+    }
+}
@@ -0,0 +1,204 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for MazeParser.
+ */
+public class MazeParserTest {
+
+    /**
+     * Parses the given text.
+     */
+    private static MazeParser parse(String text) throws IOException {
+        MazeParser parser = new MazeParser(
+            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        parser.parse();
+        return parser;
+    }
+
+    /**
+     * Tests parsing the cells, start and target.
+     * @throws IOException
+     */
+    @Test
+    public void testParseCells() throws IOException {
+        MazeParser parser = parse("SIZE\n3\nGrid\ns 0 1\n2 g 3\n4 1 T\n");
+        PackedGrid grid = parser.getGrid();
+        assertEquals(3, grid.getRows());
+        assertEquals(Maze.CELL.OPEN, grid.get(0, 0));
+        assertEquals(Maze.CELL.WALL, grid.get(0, 1));
+        assertEquals(Maze.CELL.VISITED, grid.get(1, 0));
+        assertEquals(Maze.CELL.GOLDCOIN, grid.get(1, 1));
+        assertEquals(Maze.CELL.PATH, grid.get(1, 2));
+        assertEquals(Maze.CELL.GOLDCOIN, grid.get(2, 0));
+        assertEquals(Maze.CELL.OPEN, grid.get(2, 2));
+        assertEquals(new Position(0, 0), parser.getStart());
+        assertEquals(new Position(2, 2), parser.getTarget());
+    }
+
+    /**
+     * Tests the default start and target when there is no S or T.
+     * @throws IOException
+     */
+    @Test
+    public void testDefaultStartAndTarget() throws IOException {
+        MazeParser parser = parse("size 2 grid 1 1 1 1");
+        assertEquals(new Position(0, 0), parser.getStart());
+        assertEquals(new Position(1, 1), parser.getTarget());
+    }
+
+    /**
+     * Tests a size with separate numbers of rows and columns.
+     * @throws IOException
+     */
+    @Test
+    public void testRectangularSize() throws IOException {
+        MazeParser parser = parse("size 2 4\ngrid\nS 1 0 1\n1 1 1 T\n");
+        PackedGrid grid = parser.getGrid();
+        assertEquals(2, grid.getRows());
+        assertEquals(4, grid.getCols());
+        assertEquals(Maze.CELL.WALL, grid.get(0, 2));
+        assertEquals(new Position(1, 3), parser.getTarget());
+
+        GridMazeSolver maze = new GridMazeSolver(grid, parser.getStart(), parser.getTarget());
+        assertEquals(2, maze.getRows());
+        assertEquals(4, maze.getCols());
+        assertTrue(maze.solve(SearchStrategy.BFS).isFound());
+    }
+
+    /**
+     * Tests that text without a grid is reported on the first line.
+     */
+    @Test
+    public void testJunkReportsLine() {
+        try {
+            parse("this file is junk\nshould give an error\n");
+            fail("Expected MazeFormatException");
+        } catch (MazeFormatException e) {
+            assertEquals(1, e.getLine());
+            assertTrue(e.getMessage().contains("'this'"));
+        } catch (IOException e) {
+            fail("Unexpected " + e);
+        }
+    }
+
+    /**
+     * Tests that an invalid cell is reported with its line.
+     */
+    @Test
+    public void testInvalidCell() {
+        try {
+            parse("size\n2\ngrid\n1 1\n1 7\n");
+            fail("Expected MazeFormatException");
+        } catch (MazeFormatException e) {
+            assertEquals(5, e.getLine());
+        } catch (IOException e) {
+            fail("Unexpected " + e);
+        }
+    }
+
+    /**
+     * Tests that a token too long to be valid is reported with its line
+     * instead of being cut short, even when its start would be a valid
+     * number.
+     */
+    @Test
+    public void testTokenTooLong() {
+        String zeros = new String(new char[40]).replace('\0', '0');
+        String[] texts = {
+            "size\n2\ngrid\n1 1\n1 " + zeros + "1\n",
+            "size\n" + zeros + "2\ngrid\n1 1\n1 1\n",
+        };
+        int[] lines = { 5, 2 };
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                parse(texts[i]);
+                fail("Expected MazeFormatException");
+            } catch (MazeFormatException e) {
+                assertEquals(lines[i], e.getLine());
+                assertTrue(e.getMessage(), e.getMessage().contains("longer than 32"));
+            } catch (IOException e) {
+                fail("Unexpected " + e);
+            }
+        }
+    }
+
+    /**
+     * Tests that a grid with too few cells is reported.
+     * @throws IOException
+     */
+    @Test(expected = MazeFormatException.class)
+    public void testTruncatedGrid() throws IOException {
+        parse("size\n3\ngrid\n1 1 1\n1 1\n");
+    }
+
+    /**
+     * Tests that a weights section gives every cell its weight.
+     * @throws IOException
+     */
+    @Test
+    public void testWeights() throws IOException {
+        MazeParser parser = parse("size 2 3\ngrid\nS 1 1\n0 1 T\nweights\n1 9 1\n1 255 2\n");
+        PackedGrid grid = parser.getGrid();
+        assertTrue(grid.hasWeights());
+        assertEquals(9, grid.getWeight(0, 1));
+        assertEquals(255, grid.getWeight(1, 1));
+        assertEquals(255, grid.getMaxWeight());
+        assertFalse(parse("size 2 grid 1 1 1 1").getGrid().hasWeights());
+    }
+
+    /**
+     * Tests that a weight of 0 is reported with its line.
+     */
+    @Test
+    public void testInvalidWeight() {
+        try {
+            parse("size\n2\ngrid\n1 1\n1 1\nweights\n1 1\n0 1\n");
+            fail("Expected MazeFormatException");
+        } catch (MazeFormatException e) {
+            assertEquals(8, e.getLine());
+        } catch (IOException e) {
+            fail("Unexpected " + e);
+        }
+    }
+
+    /**
+     * Tests that weights before the grid are reported.
+     * @throws IOException
+     */
+    @Test(expected = MazeFormatException.class)
+    public void testWeightsBeforeGrid() throws IOException {
+        parse("size 1 weights 2 grid 1");
+    }
+
+    /**
+     * Tests that a missing grid section is reported.
+     * @throws IOException
+     */
+    @Test(expected = MazeFormatException.class)
+    public void testMissingGrid() throws IOException {
+        parse("size\n3\n");
+    }
+
+    /**
+     * Tests that MazeSolver reports a malformed file instead of failing silently.
+     */
+    @Test
+    public void testMazeSolverReportsJunkFile() {
+        PrintStream err = System.err;
+        ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errContent));
+        try {
+            MazeSolver maze = new MazeSolver("mazejunk.txt");
+            assertFalse(maze.hasGrid());
+        } finally {
+            System.setErr(err);
+        }
+        assertTrue(errContent.toString().contains("Invalid maze file mazejunk.txt: line 1"));
+    }
+}
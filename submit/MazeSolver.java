@@ -1,4 +1,5 @@
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * MazeSolver is a class that extends Maze to provide
@@ -19,9 +20,20 @@ public class MazeSolver extends Maze {
             readFile(inputFile);
         } catch (FileNotFoundException e) {
             System.err.println("File not found: " + inputFile);
+        } catch (MazeFormatException e) {
+            System.err.println("Invalid maze file " + inputFile + ": " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Cannot read " + inputFile + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Constructs a MazeSolver without a grid. Used by subclasses that
+     * load or build their grid themselves.
+     */
+    protected MazeSolver() {
+    }
+
     /**
      * Returns the maze grid.
      *
@@ -40,6 +52,7 @@ public class MazeSolver extends Maze {
     @Override
     public void setGrid(CELL[][] g) {
         this.grid = g;
+        clearWeights();
     }
 
     /**
@@ -99,8 +112,8 @@ public class MazeSolver extends Maze {
      * @return true if the position is within bounds, false otherwise
      */
     public boolean positionIsValid(Position p) {
-        int numRows = getSize();
-        int numCols = getSize();
+        int numRows = getRows();
+        int numCols = getCols();
         int row = p.getRow();
         int col = p.getCol();
         return row >= 0 && row < numRows && col >= 0 && col < numCols;
@@ -114,7 +127,7 @@ public class MazeSolver extends Maze {
      */
     public boolean positionIsAvailable(Position p) {
         if (!positionIsValid(p)) return false;
-        CELL cell = getGrid()[p.getRow()][p.getCol()];
+        CELL cell = getCell(p.getRow(), p.getCol());
         return cell == CELL.OPEN || cell == CELL.GOLDCOIN;
     }
 
@@ -126,7 +139,7 @@ public class MazeSolver extends Maze {
      */
     public boolean positionHasGold(Position p) {
         if (!positionIsValid(p)) return false;
-        return getGrid()[p.getRow()][p.getCol()] == CELL.GOLDCOIN;
+        return getCell(p.getRow(), p.getCol()) == CELL.GOLDCOIN;
     }
 
     /**
@@ -139,7 +152,7 @@ public class MazeSolver extends Maze {
         if (!positionIsValid(p)) {
             throw new IllegalAccessException("Invalid position: " + p);
         }
-        getGrid()[p.getRow()][p.getCol()] = CELL.VISITED;
+        setCell(p.getRow(), p.getCol(), CELL.VISITED);
     }
 
     /**
@@ -152,11 +165,18 @@ public class MazeSolver extends Maze {
         if (!positionIsValid(p)) {
             throw new IllegalAccessException("Invalid position: " + p);
         }
-        getGrid()[p.getRow()][p.getCol()] = CELL.PATH;
+        setCell(p.getRow(), p.getCol(), CELL.PATH);
     }
 
     /**
-     * Recursively traverses the maze from the given position to find the target.
+     * Traverses the maze from the given position to find the target using an
+     * iterative depth-first search. The search keeps its frames on an explicit
+     * IntStack of (row, col) pairs, so the depth of the maze is limited by the
+     * heap rather than by the thread's call stack. Neighbors are explored in the
+     * same order as the recursive version (up, right, down, left, then the
+     * diagonals if the Neighborhood allows them), so the cells
+     * marked VISITED are identical. When the target is reached, the cells left
+     * on the stack form the path from the start, and they are marked as PATH.
      *
      * @param p the starting Position for traversal
      * @return true if the target is found, false otherwise
@@ -164,33 +184,119 @@ public class MazeSolver extends Maze {
      */
     @Override
     public boolean traverse(Position p) throws IllegalAccessException {
-        if (p == null)
+        recordSearch(0, -1, 0);
+        if (p == null || !positionIsValid(p))
             return false;
 
-        CELL currentCell = getGrid()[p.getRow()][p.getCol()];
+        CELL currentCell = getCell(p.getRow(), p.getCol());
         if (currentCell == CELL.WALL || currentCell == CELL.VISITED)
             return false;
 
+        IntStack stack = new IntStack();
         markAsVisited(p);
-        if (positionIsTarget(p))
+        long entered = 1;
+        stack.push(p.getRow());
+        stack.push(p.getCol());
+        if (positionIsTarget(p)) {
+            markStackAsPath(stack);
+            recordSearch(entered, 0, stack.peak() / 2);
             return true;
+        }
+
+        int numRows = getRows();
+        int numCols = getCols();
+        int moves = getNeighborhood().moves();
+        int dir = 0;
+        while (!stack.isEmpty()) {
+            int row = stack.get(stack.size() - 2);
+            int col = stack.peek();
 
-        int[] dRows = {-1, 0, 1, 0};
-        int[] dCols = {0, 1, 0, -1};
+            boolean advanced = false;
+            for (; dir < moves; dir++) {
+                int nextRow = row + DROWS[dir];
+                int nextCol = col + DCOLS[dir];
+                if (nextRow < 0 || nextRow >= numRows || nextCol < 0 || nextCol >= numCols
+                    || cutsWallCorner(row, col, dir))
+                    continue;
+                CELL next = getCell(nextRow, nextCol);
+                if (next == CELL.OPEN || next == CELL.GOLDCOIN) {
+                    setCell(nextRow, nextCol, CELL.VISITED);
+                    entered++;
+                    stack.push(nextRow);
+                    stack.push(nextCol);
+                    if (isTarget(nextRow, nextCol)) {
+                        markStackAsPath(stack);
+                        recordSearch(entered, stack.size() / 2 - 1, stack.peak() / 2);
+                        return true;
+                    }
+                    dir = 0;
+                    advanced = true;
+                    break;
+                }
+            }
 
-        for (int i = 0; i < 4; i++) {
-            Position nextPos = new Position(p.getRow() + dRows[i], p.getCol() + dCols[i]);
-            if (positionIsValid(nextPos) && positionIsAvailable(nextPos)) {
-                if (traverse(nextPos))
-                    return true;
+            if (!advanced) {
+                // Dead end: pop this frame and resume the parent with the
+                // direction after the one that led here.
+                int deadCol = stack.pop();
+                int deadRow = stack.pop();
+                if (stack.isEmpty())
+                    break;
+                int parentRow = stack.get(stack.size() - 2);
+                int parentCol = stack.peek();
+                dir = directionOf(deadRow - parentRow, deadCol - parentCol) + 1;
             }
         }
 
+        recordSearch(entered, -1, stack.peak() / 2);
         return false;
     }
 
     /**
-     * Recursively collects gold coins from the given position and marks visited cells.
+     * Returns true if (row, col) is the target position, without
+     * allocating a Position for the comparison.
+     *
+     * @param row the row to check
+     * @param col the column to check
+     * @return true if the cell is the target
+     */
+    private boolean isTarget(int row, int col) {
+        Position target = getTargetPosition();
+        return target != null && target.getRow() == row && target.getCol() == col;
+    }
+
+    /**
+     * Marks every (row, col) pair stored on the stack as PATH.
+     *
+     * @param stack the traversal stack holding the path from the start
+     */
+    private void markStackAsPath(IntStack stack) {
+        for (int i = 0; i < stack.size(); i += 2) {
+            setCell(stack.get(i), stack.get(i + 1), CELL.PATH);
+        }
+    }
+
+    /**
+     * Returns the index in DROWS/DCOLS of the step (dRow, dCol).
+     *
+     * @param dRow the row delta of the step
+     * @param dCol the column delta of the step
+     * @return the direction index, between 0 and 7
+     */
+    private static int directionOf(int dRow, int dCol) {
+        for (int d = 0; d < DROWS.length; d++) {
+            if (DROWS[d] == dRow && DCOLS[d] == dCol)
+                return d;
+        }
+        throw new IllegalArgumentException("Not a unit step: " + dRow + ", " + dCol);
+    }
+
+    /**
+     * Collects the gold coins reachable from the given position and marks
+     * every cell reached as VISITED. The flood fill keeps the cells still
+     * to expand on an IntStack of (row, col) pairs, so it does not recurse
+     * and allocates nothing per cell. It spreads through the moves of the
+     * Neighborhood of the maze.
      *
      * @param p the starting Position to begin collecting gold coins
      * @return the total number of gold coins collected
@@ -198,31 +304,44 @@ public class MazeSolver extends Maze {
      */
     @Override
     public int pickupGoldCoins(Position p) throws IllegalAccessException {
+        recordSearch(0, -1, 0);
         if (!positionIsValid(p))
             return 0;
 
         int coinsCollected = 0;
-        CELL currentCell = getGrid()[p.getRow()][p.getCol()];
-
-        if (currentCell == CELL.GOLDCOIN) {
+        if (getCell(p.getRow(), p.getCol()) == CELL.GOLDCOIN)
             coinsCollected++;
-            getGrid()[p.getRow()][p.getCol()] = CELL.OPEN;
-        }
-
         markAsVisited(p);
+        long entered = 1;
 
-        int[] dRows = {-1, 0, 1, 0};
-        int[] dCols = {0, 1, 0, -1};
-
-        for (int i = 0; i < 4; i++) {
-            Position nextPos = new Position(p.getRow() + dRows[i], p.getCol() + dCols[i]);
-            if (positionIsValid(nextPos) &&
-                (getGrid()[nextPos.getRow()][nextPos.getCol()] == CELL.OPEN ||
-                 getGrid()[nextPos.getRow()][nextPos.getCol()] == CELL.GOLDCOIN)) {
-                coinsCollected += pickupGoldCoins(nextPos);
+        IntStack stack = new IntStack();
+        stack.push(p.getRow());
+        stack.push(p.getCol());
+        int numRows = getRows();
+        int numCols = getCols();
+        int moves = getNeighborhood().moves();
+        while (!stack.isEmpty()) {
+            int col = stack.pop();
+            int row = stack.pop();
+            for (int dir = 0; dir < moves; dir++) {
+                int nextRow = row + DROWS[dir];
+                int nextCol = col + DCOLS[dir];
+                if (nextRow < 0 || nextRow >= numRows || nextCol < 0 || nextCol >= numCols
+                    || cutsWallCorner(row, col, dir))
+                    continue;
+                CELL next = getCell(nextRow, nextCol);
+                if (next == CELL.OPEN || next == CELL.GOLDCOIN) {
+                    if (next == CELL.GOLDCOIN)
+                        coinsCollected++;
+                    setCell(nextRow, nextCol, CELL.VISITED);
+                    entered++;
+                    stack.push(nextRow);
+                    stack.push(nextCol);
+                }
             }
         }
 
+        recordSearch(entered, -1, stack.peak() / 2);
         return coinsCollected;
     }
 }
\ No newline at end of file
@@ -120,7 +120,72 @@ public class MazeSolverTest  {
         maze.setTargetPosition(start); // assuming setTarget is a method
         maze.getGrid()[1][1] = Maze.CELL.OPEN;
         assertTrue(maze.traverse(start));
-        assertEquals(Maze.CELL.VISITED, maze.getGrid()[1][1]);
+        assertEquals(Maze.CELL.PATH, maze.getGrid()[1][1]);
+    }
+
+    /**
+     * Test that traverse marks the cells from start to target as PATH
+     * and leaves the cells it never reached untouched.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTraverseMarksPath() throws IllegalAccessException {
+        maze.setTargetPosition(new Position(1, 1));
+        assertTrue(maze.traverse(new Position(0, 0)));
+        assertEquals(Maze.CELL.PATH, maze.getGrid()[0][0]);
+        assertEquals(Maze.CELL.PATH, maze.getGrid()[0][1]);
+        assertEquals(Maze.CELL.PATH, maze.getGrid()[1][1]);
+        assertEquals(Maze.CELL.OPEN, maze.getGrid()[1][0]);
+    }
+
+    /**
+     * Test that traverse handles a serpentine corridor far deeper than
+     * the call stack would allow a recursive search to go.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTraverseDeepSerpentine() throws IllegalAccessException {
+        int size = 701;
+        Maze.CELL[][] grid = new Maze.CELL[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                boolean open = r % 2 == 0
+                    || (r % 4 == 1 && c == size - 1)
+                    || (r % 4 == 3 && c == 0);
+                grid[r][c] = open ? Maze.CELL.OPEN : Maze.CELL.WALL;
+            }
+        }
+        maze.setGrid(grid);
+        maze.setTargetPosition(new Position(size - 1, size - 1));
+        assertTrue(maze.traverse(new Position(0, 0)));
+        assertEquals(Maze.CELL.PATH, grid[size - 1][size - 1]);
+        assertEquals(Maze.CELL.PATH, grid[1][size - 1]);
+    }
+
+    /**
+     * Test traverse and positionIsValid on a long, narrow strip.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTraverseRectangularGrid() throws IllegalAccessException {
+        Maze.CELL[][] grid = new Maze.CELL[2][50];
+        for (int c = 0; c < 50; c++) {
+            grid[0][c] = Maze.CELL.OPEN;
+            grid[1][c] = c % 2 == 0 ? Maze.CELL.GOLDCOIN : Maze.CELL.WALL;
+        }
+        maze.setGrid(grid);
+        assertEquals(2, maze.getRows());
+        assertEquals(50, maze.getCols());
+        assertTrue(maze.positionIsValid(new Position(1, 49)));
+        assertFalse(maze.positionIsValid(new Position(2, 0)));
+        assertFalse(maze.positionIsValid(new Position(0, 50)));
+        assertEquals(25, maze.pickupGoldCoins(new Position(0, 0)));
+
+        for (int c = 0; c < 50; c++)
+            grid[0][c] = Maze.CELL.OPEN;
+        maze.setTargetPosition(new Position(0, 49));
+        assertTrue(maze.traverse(new Position(0, 0)));
+        assertEquals(Maze.CELL.PATH, grid[0][49]);
     }
 
     /**
@@ -0,0 +1,113 @@
+/**
+ * Neighborhood lists the moves a solver may make from a cell: the four
+ * orthogonal steps, or those and the four diagonal ones. The moves are
+ * the first moves() directions of Maze.DROWS and Maze.DCOLS, orthogonal
+ * first, so a solver loops over them the same way whatever the
+ * neighborhood.
+ *
+ * Searches that count moves (breadth-first, depth-first, the coin flood
+ * fill) count a diagonal move as one step. Searches that weigh their
+ * moves (A*, Dijkstra, IncrementalSearch, SparseSearch) use stepCost:
+ * 1 per step in FOUR, and in the 8-neighborhoods 10 per orthogonal and
+ * 14 per diagonal step, so that their costs are in tenths of a step and
+ * a diagonal costs about the square root of two. Their heuristic is
+ * distance, the Manhattan distance in FOUR and the octile distance in
+ * the others.
+ */
+public enum Neighborhood {
+    /** Up, right, down and left. */
+    FOUR(4, true),
+
+    /** The four orthogonal and the four diagonal neighbors. */
+    EIGHT(8, true),
+
+    /**
+     * The eight neighbors, but a diagonal move is only allowed when
+     * neither of the two cells beside it is a WALL, so paths never cut
+     * the corner of a wall.
+     */
+    EIGHT_NO_CORNER_CUTTING(8, false);
+
+    /** The cost of an orthogonal step in the 8-neighborhoods. */
+    public static final int STRAIGHT_COST = 10;
+    /** The cost of a diagonal step in the 8-neighborhoods. */
+    public static final int DIAGONAL_COST = 14;
+
+    private final int moves;
+    private final boolean cutsCorners;
+
+    Neighborhood(int moves, boolean cutsCorners) {
+        this.moves = moves;
+        this.cutsCorners = cutsCorners;
+    }
+
+    /**
+     * Returns the number of directions a solver may move in: 4 or 8.
+     *
+     * @return the number of moves
+     */
+    public int moves() {
+        return moves;
+    }
+
+    /**
+     * Returns true if a diagonal move may pass the corner of a WALL.
+     *
+     * @return false only for EIGHT_NO_CORNER_CUTTING
+     */
+    public boolean cutsCorners() {
+        return cutsCorners;
+    }
+
+    /**
+     * Returns the cost of a move in a direction, for the searches that
+     * weigh their moves.
+     *
+     * @param dir the direction index, below moves()
+     * @return 1 in FOUR; STRAIGHT_COST or DIAGONAL_COST otherwise
+     */
+    public int stepCost(int dir) {
+        if (moves == 4)
+            return 1;
+        return dir < 4 ? STRAIGHT_COST : DIAGONAL_COST;
+    }
+
+    /**
+     * Returns the cost of the cheapest moves between two cells with no
+     * walls in the way, in the units of stepCost. It never overestimates,
+     * so it is an admissible heuristic.
+     *
+     * @param dRows the difference of the rows of the cells
+     * @param dCols the difference of the columns of the cells
+     * @return the Manhattan distance in FOUR, the octile distance otherwise
+     */
+    public int distance(int dRows, int dCols) {
+        int rows = Math.abs(dRows);
+        int cols = Math.abs(dCols);
+        if (moves == 4)
+            return rows + cols;
+        int diagonal = Math.min(rows, cols);
+        return DIAGONAL_COST * diagonal + STRAIGHT_COST * (Math.max(rows, cols) - diagonal);
+    }
+
+    /**
+     * Returns the neighborhood with the given name, ignoring case; "4"
+     * and "8" name FOUR and EIGHT.
+     *
+     * @param name the name of the neighborhood, such as "eight"
+     * @return the matching neighborhood
+     * @throws IllegalArgumentException if no neighborhood has that name
+     */
+    public static Neighborhood fromName(String name) {
+        if (name.equals("4"))
+            return FOUR;
+        if (name.equals("8"))
+            return EIGHT;
+        for (Neighborhood neighborhood : values()) {
+            if (neighborhood.name().equalsIgnoreCase(name)) {
+                return neighborhood;
+            }
+        }
+        throw new IllegalArgumentException("Unknown neighborhood: " + name);
+    }
+}
@@ -0,0 +1,246 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+/**
+ * Test class for the neighborhoods: diagonal moves, the corner cutting
+ * rule and the octile costs, in every solver.
+ */
+public class NeighborhoodTest {
+
+    /**
+     * Builds a grid from rows of characters: '#' for a WALL, 'G' for a
+     * GOLDCOIN, anything else OPEN.
+     *
+     * @param lines the rows of the grid
+     * @return the grid
+     */
+    private static PackedGrid grid(String... lines) {
+        PackedGrid grid = new PackedGrid(lines.length, lines[0].length());
+        for (int r = 0; r < lines.length; r++) {
+            for (int c = 0; c < lines[r].length(); c++) {
+                char ch = lines[r].charAt(c);
+                grid.set(r, c, ch == '#' ? Maze.CELL.WALL
+                    : ch == 'G' ? Maze.CELL.GOLDCOIN : Maze.CELL.OPEN);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Tests the names, the step costs and the distances.
+     */
+    @Test
+    public void testCosts() {
+        assertEquals(Neighborhood.FOUR, Neighborhood.fromName("4"));
+        assertEquals(Neighborhood.EIGHT, Neighborhood.fromName("8"));
+        assertEquals(Neighborhood.EIGHT_NO_CORNER_CUTTING,
+            Neighborhood.fromName("eight_no_corner_cutting"));
+        assertEquals(1, Neighborhood.FOUR.stepCost(0));
+        assertEquals(10, Neighborhood.EIGHT.stepCost(3));
+        assertEquals(14, Neighborhood.EIGHT.stepCost(4));
+        assertEquals(7, Neighborhood.FOUR.distance(-3, 4));
+        assertEquals(3 * 14 + 10, Neighborhood.EIGHT.distance(-3, 4));
+    }
+
+    /**
+     * Tests that on an open grid diagonal moves shorten the path and A*
+     * expands fewer cells.
+     */
+    @Test
+    public void testOpenGrid() {
+        PackedGrid grid = new PackedGrid(20, 20);
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 20; c++) {
+                grid.set(r, c, Maze.CELL.OPEN);
+            }
+        }
+        int start = grid.index(0, 0);
+        int target = grid.index(19, 19);
+        SearchResult four = SearchStrategy.ASTAR.solve(PackedGrid.copyOf(grid), start, target,
+            new SearchState(grid.indexCount()));
+        grid.setNeighborhood(Neighborhood.EIGHT);
+        SearchResult eight = SearchStrategy.ASTAR.solve(grid, start, target,
+            new SearchState(grid.indexCount()));
+        assertEquals(38, four.getPathLength());
+        assertEquals(19, eight.getPathLength());
+        assertEquals(19 * 14, eight.getPathCost());
+        assertTrue(eight.getNodesExpanded() < four.getNodesExpanded());
+        assertEquals(19, SearchStrategy.BFS.solve(grid, start, target,
+            new SearchState(grid.indexCount())).getPathLength());
+    }
+
+    /**
+     * Tests that a diagonal move past a wall corner is only made when the
+     * neighborhood allows it.
+     */
+    @Test
+    public void testCornerCutting() {
+        PackedGrid grid = grid(".#", "..");
+        int start = grid.index(0, 0);
+        int target = grid.index(1, 1);
+        grid.setNeighborhood(Neighborhood.EIGHT);
+        assertEquals(1, BreadthFirstSearch.solve(PackedGrid.copyOf(grid), start, target).getPathLength());
+        grid.setNeighborhood(Neighborhood.EIGHT_NO_CORNER_CUTTING);
+        assertEquals(2, BreadthFirstSearch.solve(PackedGrid.copyOf(grid), start, target).getPathLength());
+
+        grid = grid(".#", "#.");
+        grid.setNeighborhood(Neighborhood.EIGHT);
+        assertTrue(AStarSearch.solve(PackedGrid.copyOf(grid), start, target).isFound());
+        grid.setNeighborhood(Neighborhood.EIGHT_NO_CORNER_CUTTING);
+        assertFalse(AStarSearch.solve(PackedGrid.copyOf(grid), start, target).isFound());
+        assertEquals(2, new ComponentIndex(grid).getComponentCount());
+        grid.setNeighborhood(Neighborhood.EIGHT);
+        assertEquals(1, new ComponentIndex(grid).getComponentCount());
+    }
+
+    /**
+     * Tests that traverse and pickupGoldCoins follow the neighborhood of
+     * the maze, on a CELL[][] and on a PackedGrid.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testTraverseAndPickup() throws IllegalAccessException {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            boolean diagonal = neighborhood == Neighborhood.EIGHT;
+            Maze[] mazes = {
+                new MazeSolver("maze.txt"),
+                new GridMazeSolver(grid(".#.", "#G#", ".#."), Position.of(0, 0), Position.of(2, 2))
+            };
+            mazes[0].setGrid(grid(".#.", "#G#", ".#.").toCells());
+            mazes[0].setStartPosition(Position.of(0, 0));
+            mazes[0].setTargetPosition(Position.of(2, 2));
+            for (Maze maze : mazes) {
+                maze.setNeighborhood(neighborhood);
+                assertEquals(neighborhood + " " + maze.getClass(), diagonal ? 1 : 0,
+                    maze.pickupGoldCoins());
+            }
+            mazes[0].setGrid(grid(".#.", "#.#", ".#.").toCells());
+            mazes[1] = new GridMazeSolver(grid(".#.", "#.#", ".#."), Position.of(0, 0), Position.of(2, 2));
+            for (Maze maze : mazes) {
+                maze.setNeighborhood(neighborhood);
+                assertEquals(neighborhood + " " + maze.getClass(), diagonal, maze.traverse());
+                if (diagonal)
+                    assertEquals(Maze.CELL.PATH, maze.getCell(1, 1));
+            }
+        }
+    }
+
+    /**
+     * Tests every solver on random grids in the 8-neighborhoods: the
+     * breadth-first searches agree on the fewest moves, and the searches
+     * that weigh their moves agree on the cheapest cost.
+     */
+    @Test
+    public void testSolversAgree() {
+        Random random = new Random(25);
+        for (int round = 0; round < 40; round++) {
+            int rows = 2 + random.nextInt(15);
+            int cols = 2 + random.nextInt(15);
+            PackedGrid grid = new PackedGrid(rows, cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    grid.set(r, c, random.nextInt(3) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                }
+            }
+            grid.set(0, 0, Maze.CELL.OPEN);
+            grid.set(rows - 1, cols - 1, Maze.CELL.OPEN);
+            grid.setNeighborhood(round % 2 == 0 ? Neighborhood.EIGHT
+                : Neighborhood.EIGHT_NO_CORNER_CUTTING);
+            int start = grid.index(0, 0);
+            int target = grid.index(rows - 1, cols - 1);
+
+            SearchResult bfs = solve(SearchStrategy.BFS, grid, start, target);
+            for (SearchStrategy strategy : new SearchStrategy[] { SearchStrategy.DFS,
+                SearchStrategy.BIDIRECTIONAL, SearchStrategy.PARALLEL_BFS }) {
+                SearchResult result = solve(strategy, grid, start, target);
+                assertEquals(strategy.name(), bfs.isFound(), result.isFound());
+                if (strategy != SearchStrategy.DFS)
+                    assertEquals(strategy.name(), bfs.getPathLength(), result.getPathLength());
+            }
+
+            SearchResult astar = solve(SearchStrategy.ASTAR, grid, start, target);
+            assertEquals(bfs.isFound(), astar.isFound());
+            for (SearchStrategy strategy : new SearchStrategy[] { SearchStrategy.JPS,
+                SearchStrategy.DIJKSTRA }) {
+                SearchResult result = solve(strategy, grid, start, target);
+                assertEquals(strategy.name(), astar.isFound(), result.isFound());
+                assertEquals(strategy.name(), astar.getPathCost(), result.getPathCost());
+            }
+            SearchResult incremental = new IncrementalSearch(PackedGrid.copyOf(grid), start, target).solve();
+            assertEquals(astar.getPathCost(), incremental.getPathCost());
+            if (astar.isFound())
+                assertTrue(astar.getPathLength() >= bfs.getPathLength());
+        }
+    }
+
+    /**
+     * Tests that IncrementalSearch repairs its path after walls are added
+     * and removed, without corner cutting, to the cost of a new A*.
+     */
+    @Test
+    public void testIncrementalEdits() {
+        Random random = new Random(8);
+        PackedGrid grid = new PackedGrid(12, 12);
+        for (int r = 0; r < 12; r++) {
+            for (int c = 0; c < 12; c++) {
+                grid.set(r, c, random.nextInt(4) == 0 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+            }
+        }
+        grid.set(0, 0, Maze.CELL.OPEN);
+        grid.set(11, 11, Maze.CELL.OPEN);
+        grid.setNeighborhood(Neighborhood.EIGHT_NO_CORNER_CUTTING);
+        int start = grid.index(0, 0);
+        int target = grid.index(11, 11);
+        IncrementalSearch search = new IncrementalSearch(PackedGrid.copyOf(grid), start, target);
+        for (int edit = 0; edit < 200; edit++) {
+            int r = random.nextInt(12);
+            int c = random.nextInt(12);
+            if ((r == 0 && c == 0) || (r == 11 && c == 11))
+                continue;
+            boolean wall = random.nextBoolean();
+            search.setWall(r, c, wall);
+            grid.set(r, c, wall ? Maze.CELL.WALL : Maze.CELL.OPEN);
+            if (edit % 5 == 0) {
+                SearchResult expected = solve(SearchStrategy.ASTAR, grid, start, target);
+                SearchResult actual = search.solve();
+                assertEquals("edit " + edit, expected.isFound(), actual.isFound());
+                assertEquals("edit " + edit, expected.getPathCost(), actual.getPathCost());
+            }
+        }
+    }
+
+    /**
+     * Tests that Maze.solve and solveSparse use the neighborhood of the
+     * maze.
+     */
+    @Test
+    public void testMazeSolve() {
+        for (Neighborhood neighborhood : Neighborhood.values()) {
+            MazeSolver maze = new MazeSolver("maze0.txt");
+            maze.setNeighborhood(neighborhood);
+            SearchResult astar = maze.solve(SearchStrategy.ASTAR);
+            MazeSolver sparse = new MazeSolver("maze0.txt");
+            sparse.setNeighborhood(neighborhood);
+            SearchResult result = sparse.solveSparse();
+            assertEquals(neighborhood.name(), astar.getPathCost(), result.getPathCost());
+            MazeSolver incremental = new MazeSolver("maze0.txt");
+            incremental.setNeighborhood(neighborhood);
+            assertEquals(neighborhood.name(), astar.getPathCost(),
+                incremental.solveIncremental().getPathCost());
+        }
+    }
+
+    /**
+     * Runs a strategy on a copy of a grid.
+     *
+     * @param strategy the strategy
+     * @param grid the grid, which is not changed
+     * @param start the start index
+     * @param target the target index
+     * @return the result
+     */
+    private static SearchResult solve(SearchStrategy strategy, PackedGrid grid, int start, int target) {
+        return strategy.solve(grid, start, target, new SearchState(grid.indexCount()));
+    }
+}
@@ -0,0 +1,409 @@
+import java.util.Arrays;
+
+/**
+ * PackedGrid stores a maze grid as a flat, row-major byte array with
+ * one byte per cell holding the CELL ordinal. Compared to a CELL[][]
+ * it uses one byte per cell instead of a reference, keeps each row
+ * next to the previous one in memory, and reads a cell with a single
+ * array load.
+ *
+ * The array is surrounded by a one-cell border of WALL sentinels, so
+ * every cell inside the grid has eight neighbors in the array. Solvers
+ * work on int cell indices and step to a neighbor by adding one of the
+ * first moves() neighborOffsets(), as allowed by canMove, without
+ * checking the bounds of the grid. Which neighbors a solver may step to
+ * is the Neighborhood of the grid, FOUR unless it is set.
+ *
+ * A grid may also carry a weight per cell, the cost of stepping into
+ * it, from 1 to MAX_WEIGHT: mud or water cost more than a road. The
+ * weights are kept in a second byte array laid out like the cells,
+ * allocated by the first setWeight; until then every cell weighs 1.
+ * Only weighted searches such as DijkstraSearch read them.
+ */
+public final class PackedGrid implements CellGrid {
+    /** Byte value stored for CELL.WALL. */
+    static final byte WALL = 0;
+    /** Byte value stored for CELL.OPEN. */
+    static final byte OPEN = 1;
+    /** Byte value stored for CELL.VISITED. */
+    static final byte VISITED = 2;
+    /** Byte value stored for CELL.PATH. */
+    static final byte PATH = 3;
+    /** Byte value stored for CELL.GOLDCOIN. */
+    static final byte GOLDCOIN = 4;
+    /** The largest weight a cell can have. */
+    public static final int MAX_WEIGHT = 255;
+
+    private static final Maze.CELL[] CELLS = Maze.CELL.values();
+
+    private final int rows;
+    private final int cols;
+    private final int stride;
+    private final int[] offsets;
+    private final byte[] cells;
+    private byte[] weights;
+    private int maxWeight = 1;
+    private Neighborhood neighborhood = Neighborhood.FOUR;
+    private int moves = 4;
+    private boolean cutsCorners = true;
+
+    /**
+     * Constructs a grid of the given dimensions with every cell set to WALL.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     */
+    public PackedGrid(int rows, int cols) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException("Invalid grid size: " + rows + " x " + cols);
+        }
+        long count = (rows + 2L) * (cols + 2L);
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large: " + rows + " x " + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + 2;
+        this.offsets = new int[Maze.DROWS.length];
+        for (int d = 0; d < offsets.length; d++) {
+            offsets[d] = Maze.DROWS[d] * stride + Maze.DCOLS[d];
+        }
+        this.cells = new byte[(int) count];
+    }
+
+    /**
+     * Builds a packed copy of a CELL[][] grid. Every row must have the
+     * same length as the first one.
+     *
+     * @param g the grid to copy
+     * @return a new PackedGrid with the same content
+     */
+    public static PackedGrid fromCells(Maze.CELL[][] g) {
+        int numRows = g.length;
+        int numCols = numRows == 0 ? 0 : g[0].length;
+        PackedGrid packed = new PackedGrid(numRows, numCols);
+        for (int r = 0; r < numRows; r++) {
+            if (g[r].length != numCols) {
+                throw new IllegalArgumentException("Row " + r + " has " + g[r].length
+                    + " columns, expected " + numCols);
+            }
+            int base = packed.index(r, 0);
+            for (int c = 0; c < numCols; c++) {
+                packed.cells[base + c] = (byte) g[r][c].ordinal();
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Builds a packed copy of any other CellGrid.
+     *
+     * @param g the grid to copy
+     * @return a new PackedGrid with the same content
+     */
+    public static PackedGrid copyOf(CellGrid g) {
+        PackedGrid packed = new PackedGrid(g.getRows(), g.getCols());
+        for (int r = 0; r < packed.rows; r++) {
+            for (int c = 0; c < packed.cols; c++) {
+                packed.set(r, c, g.get(r, c));
+            }
+        }
+        if (g instanceof PackedGrid && ((PackedGrid) g).weights != null) {
+            packed.weights = ((PackedGrid) g).weights.clone();
+            packed.maxWeight = ((PackedGrid) g).maxWeight;
+        }
+        if (g instanceof PackedGrid)
+            packed.setNeighborhood(((PackedGrid) g).neighborhood);
+        return packed;
+    }
+
+    /**
+     * Expands this grid into a newly allocated CELL[][] array.
+     *
+     * @return a 2d grid with the same content as this one
+     */
+    public Maze.CELL[][] toCells() {
+        Maze.CELL[][] g = new Maze.CELL[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            int base = index(r, 0);
+            for (int c = 0; c < cols; c++) {
+                g[r][c] = CELLS[cells[base + c]];
+            }
+        }
+        return g;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the row-major index of (row, col) in the bordered array.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the index of the cell in the backing array
+     */
+    public int index(int row, int col) {
+        return (row + 1) * stride + col + 1;
+    }
+
+    /**
+     * Returns the row of the cell at the given index.
+     *
+     * @param index a cell index returned by index(row, col)
+     * @return the row of that cell
+     */
+    public int rowOf(int index) {
+        return index / stride - 1;
+    }
+
+    /**
+     * Returns the column of the cell at the given index.
+     *
+     * @param index a cell index returned by index(row, col)
+     * @return the column of that cell
+     */
+    public int colOf(int index) {
+        return index % stride - 1;
+    }
+
+    /**
+     * Returns the number of entries in the backing array, border included.
+     * Every cell index is smaller than this value, so it can be used to
+     * size per-cell arrays such as parent links.
+     *
+     * @return one more than the largest cell index
+     */
+    public int indexCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the index deltas of the eight neighbors of a cell, in the
+     * same order as Maze.DROWS and Maze.DCOLS: up, right, down, left,
+     * then the diagonals. Only the first moves() are neighbors in the
+     * neighborhood of the grid. The returned array is shared and must not
+     * be modified.
+     *
+     * @return the neighbor offsets
+     */
+    int[] neighborOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the moves the solvers may make on this grid.
+     *
+     * @return the neighborhood of the grid
+     */
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * Sets the moves the solvers may make on this grid.
+     *
+     * @param neighborhood the neighborhood to use
+     */
+    public void setNeighborhood(Neighborhood neighborhood) {
+        this.neighborhood = neighborhood;
+        this.moves = neighborhood.moves();
+        this.cutsCorners = neighborhood.cutsCorners();
+    }
+
+    /**
+     * Returns the number of directions a solver may move in, the first
+     * ones of neighborOffsets().
+     *
+     * @return 4 or 8
+     */
+    public int moves() {
+        return moves;
+    }
+
+    /**
+     * Returns true unless the move from a cell in a direction is a
+     * diagonal that cuts the corner of a WALL while the neighborhood
+     * forbids it. Whether the cell moved to is open is left to the
+     * caller.
+     *
+     * @param cell the cell index
+     * @param dir the direction index, below moves()
+     * @return true if the move is allowed
+     */
+    public boolean canMove(int cell, int dir) {
+        return dir < 4 || cutsCorners
+            || (cells[cell + Maze.DROWS[dir] * stride] != WALL && cells[cell + Maze.DCOLS[dir]] != WALL);
+    }
+
+    /**
+     * Returns the direction index of the step from one cell to an
+     * adjacent one.
+     *
+     * @param from the index of the first cell
+     * @param to the index of a neighbor of that cell
+     * @return the direction index, between 0 and 7
+     */
+    int directionOf(int from, int to) {
+        int delta = to - from;
+        for (int d = 0; d < offsets.length; d++) {
+            if (offsets[d] == delta) {
+                return d;
+            }
+        }
+        throw new IllegalArgumentException("Cells " + from + " and " + to + " are not adjacent");
+    }
+
+    @Override
+    public Maze.CELL get(int row, int col) {
+        return CELLS[cells[index(row, col)]];
+    }
+
+    @Override
+    public void set(int row, int col, Maze.CELL cell) {
+        cells[index(row, col)] = (byte) cell.ordinal();
+    }
+
+    /**
+     * Returns the raw byte stored at the given cell index.
+     *
+     * @param index the cell index
+     * @return the CELL ordinal stored at that index
+     */
+    public byte getByte(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Stores a raw CELL ordinal at the given cell index.
+     *
+     * @param index the cell index
+     * @param value the CELL ordinal to store
+     */
+    public void setByte(int index, byte value) {
+        cells[index] = value;
+    }
+
+    /**
+     * Returns true if a weight other than 1 was ever set on the grid.
+     *
+     * @return true if the grid has a weight array
+     */
+    public boolean hasWeights() {
+        return weights != null;
+    }
+
+    /**
+     * Returns the cost of stepping into the cell at (row, col).
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the weight of the cell, 1 unless one was set
+     */
+    public int getWeight(int row, int col) {
+        return weightAt(index(row, col));
+    }
+
+    /**
+     * Returns the cost of stepping into the cell at the given index.
+     *
+     * @param index the cell index
+     * @return the weight of the cell, 1 unless one was set
+     */
+    public int weightAt(int index) {
+        return weights == null ? 1 : weights[index] & 0xFF;
+    }
+
+    /**
+     * Sets the cost of stepping into the cell at (row, col).
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param weight the weight, from 1 to MAX_WEIGHT
+     * @throws IllegalArgumentException if the weight is out of range
+     */
+    public void setWeight(int row, int col, int weight) {
+        if (weight < 1 || weight > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Invalid weight " + weight + " at row " + row
+                + " column " + col);
+        }
+        if (weights == null) {
+            if (weight == 1)
+                return;
+            weights = new byte[cells.length];
+            Arrays.fill(weights, (byte) 1);
+        }
+        weights[index(row, col)] = (byte) weight;
+        if (weight > maxWeight)
+            maxWeight = weight;
+    }
+
+    /**
+     * Returns an upper bound on the weights of the grid: the largest
+     * weight ever set, or 1.
+     *
+     * @return the largest weight
+     */
+    public int getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the weights of the grid as a row-major array without the
+     * border, one unsigned byte per cell.
+     *
+     * @return a new array of rows * cols weights, or null if the grid has
+     *     no weights
+     */
+    public byte[] getWeights() {
+        if (weights == null)
+            return null;
+        byte[] result = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(weights, index(r, 0), result, r * cols, cols);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the weights of the grid with a row-major array as returned
+     * by getWeights.
+     *
+     * @param rowMajor rows * cols weights, or null to weigh every cell 1
+     * @throws IllegalArgumentException if the array has the wrong length
+     *     or holds a weight of 0
+     */
+    public void setWeights(byte[] rowMajor) {
+        if (rowMajor == null) {
+            weights = null;
+            maxWeight = 1;
+            return;
+        }
+        if (rowMajor.length != rows * cols) {
+            throw new IllegalArgumentException("Expected " + rows * cols + " weights, got "
+                + rowMajor.length);
+        }
+        byte[] bordered = new byte[cells.length];
+        Arrays.fill(bordered, (byte) 1);
+        int max = 1;
+        for (int r = 0; r < rows; r++) {
+            int base = index(r, 0);
+            for (int c = 0; c < cols; c++) {
+                int weight = rowMajor[r * cols + c] & 0xFF;
+                if (weight == 0)
+                    throw new IllegalArgumentException("Invalid weight 0 at row " + r + " column " + c);
+                bordered[base + c] = (byte) weight;
+                max = Math.max(max, weight);
+            }
+        }
+        weights = bordered;
+        maxWeight = max;
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for PackedGrid and GridMazeSolver.
+ */
+public class PackedGridTest {
+
+    /**
+     * Tests that a grid survives a round trip through the packed form.
+     */
+    @Test
+    public void testRoundTrip() {
+        Maze.CELL[][] cells = {
+            { Maze.CELL.WALL, Maze.CELL.OPEN, Maze.CELL.VISITED },
+            { Maze.CELL.PATH, Maze.CELL.GOLDCOIN, Maze.CELL.OPEN }
+        };
+        PackedGrid grid = PackedGrid.fromCells(cells);
+        assertEquals(2, grid.getRows());
+        assertEquals(3, grid.getCols());
+        assertEquals(Maze.CELL.GOLDCOIN, grid.get(1, 1));
+        assertArrayEquals(cells, grid.toCells());
+    }
+
+    /**
+     * Tests the row-major index helpers.
+     */
+    @Test
+    public void testIndex() {
+        PackedGrid grid = new PackedGrid(4, 7);
+        int index = grid.index(2, 5);
+        assertEquals(2, grid.rowOf(index));
+        assertEquals(5, grid.colOf(index));
+        grid.set(2, 5, Maze.CELL.OPEN);
+        assertEquals(PackedGrid.OPEN, grid.getByte(index));
+        assertEquals(Maze.CELL.WALL, grid.get(2, 4));
+    }
+
+    /**
+     * Tests that a jagged array is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testJaggedGridRejected() {
+        PackedGrid.fromCells(new Maze.CELL[][] {
+            { Maze.CELL.OPEN, Maze.CELL.OPEN },
+            { Maze.CELL.OPEN }
+        });
+    }
+
+    /**
+     * Tests that a packed maze traverses and prints like MazeSolver.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testGridMazeSolverMatchesMazeSolver() throws IllegalAccessException {
+        MazeSolver expected = new MazeSolver("maze.txt");
+        GridMazeSolver actual = new GridMazeSolver("maze.txt");
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.traverse(), actual.traverse());
+        assertArrayEquals(expected.getGrid(), actual.getGrid());
+    }
+
+    /**
+     * Tests that getGrid returns a copy that does not change the maze.
+     */
+    @Test
+    public void testGetGridIsCopy() {
+        GridMazeSolver maze = new GridMazeSolver("m2x2.txt");
+        maze.getGrid()[0][0] = Maze.CELL.WALL;
+        assertEquals(Maze.CELL.OPEN, maze.getCell(0, 0));
+        maze.setCell(0, 0, Maze.CELL.WALL);
+        assertFalse(maze.positionIsAvailable(new Position(0, 0)));
+    }
+
+    /**
+     * Tests that the cells around the grid read as WALL sentinels.
+     */
+    @Test
+    public void testWallBorder() {
+        PackedGrid grid = PackedGrid.fromCells(new Maze.CELL[][] {
+            { Maze.CELL.OPEN }
+        });
+        int cell = grid.index(0, 0);
+        for (int offset : grid.neighborOffsets()) {
+            assertEquals(PackedGrid.WALL, grid.getByte(cell + offset));
+        }
+    }
+
+    /**
+     * Tests that the index-based solvers leave the same grid as MazeSolver
+     * on every sample maze.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testIndexedSolversMatchMazeSolver() throws IllegalAccessException {
+        String[] files = { "maze.txt", "maze0.txt", "maze1.txt", "maze2.txt", "maze3.txt",
+            "maze4.txt", "maze4x.txt", "maze5.txt", "maze6.txt", "maze-dead.txt", "mazeg.txt" };
+        for (String file : files) {
+            MazeSolver expected = new MazeSolver(file);
+            GridMazeSolver actual = new GridMazeSolver(file);
+            assertEquals(file, expected.traverse(), actual.traverse());
+            assertArrayEquals(file, expected.getGrid(), actual.getGrid());
+
+            expected = new MazeSolver(file);
+            actual = new GridMazeSolver(file);
+            assertEquals(file, expected.pickupGoldCoins(), actual.pickupGoldCoins());
+            assertArrayEquals(file, expected.getGrid(), actual.getGrid());
+        }
+    }
+}
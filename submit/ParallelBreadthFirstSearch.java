@@ -0,0 +1,173 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ParallelBreadthFirstSearch is a level-synchronous breadth-first search
+ * that splits each frontier level across the threads of a ForkJoinPool.
+ * Threads claim cells in an AtomicBitSet with compare-and-set instead
+ * of writing VISITED into the shared grid, so the grid is only read
+ * while searching; the thread that claims a cell also records its
+ * parent. The cells of each finished level are recorded in a
+ * SearchState, and once the level holding the target is finished the
+ * shortest path is traced there, giving the same path length as
+ * BreadthFirstSearch.
+ */
+public final class ParallelBreadthFirstSearch {
+    /** Frontier slices at most this long are expanded by a single task. */
+    static final int LEAF_SIZE = 1024;
+
+    private ParallelBreadthFirstSearch() {
+    }
+
+    /**
+     * Searches from start for target on the common ForkJoinPool.
+     *
+     * @param grid the grid to search; it is marked once the search ends
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target) {
+        return solve(grid, start, target, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches from start for target, expanding each level on the given pool.
+     *
+     * @param grid the grid to search; it is marked once the search ends
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param pool the pool that expands the frontier levels
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target, ForkJoinPool pool) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, pool, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches from start for target without changing the grid. Once
+     * each level is expanded its cells are recorded in state, which also
+     * receives the shortest path found.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param pool the pool that expands the frontier levels
+     * @param state a clear state for the search
+     * @return the result of the search
+     */
+    public static SearchResult solve(PackedGrid grid, int start, int target,
+                                     ForkJoinPool pool, SearchState state) {
+        byte first = grid.getByte(start);
+        if (first == PackedGrid.WALL || first == PackedGrid.VISITED)
+            return SearchResult.notFound(0);
+
+        // Cells are claimed concurrently, so the claims and parents live
+        // in a set of this search; the state only sees finished levels.
+        AtomicBitSet visited = new AtomicBitSet(grid.indexCount());
+        int[] parent = new int[grid.indexCount()];
+        visited.set(start);
+        parent[start] = start;
+        state.visit(start, start);
+
+        int[] frontier = { start };
+        int frontierSize = 1;
+        long expanded = 0;
+        boolean found = start == target;
+        while (!found && frontierSize > 0) {
+            state.recordFrontier(frontierSize);
+            Level level = new Level(grid, visited, parent, frontier, frontierSize, target);
+            pool.invoke(new ExpandTask(level, 0, frontierSize));
+            expanded += frontierSize;
+            found = visited.get(target);
+            frontier = level.next;
+            frontierSize = level.nextSize.get();
+            for (int i = 0; i < frontierSize; i++) {
+                state.visit(frontier[i], parent[frontier[i]]);
+            }
+        }
+
+        if (!found)
+            return SearchResult.notFound(expanded);
+        return new SearchResult(true, state.tracePath(start, target), expanded);
+    }
+
+    /**
+     * The shared state of one frontier level: the cells to expand and
+     * the buffer the next level is appended to.
+     */
+    private static final class Level {
+        final PackedGrid grid;
+        final AtomicBitSet visited;
+        final int[] parent;
+        final int[] frontier;
+        final int[] next;
+        final AtomicInteger nextSize = new AtomicInteger();
+        final int target;
+
+        Level(PackedGrid grid, AtomicBitSet visited, int[] parent,
+              int[] frontier, int frontierSize, int target) {
+            this.grid = grid;
+            this.visited = visited;
+            this.parent = parent;
+            this.frontier = frontier;
+            this.target = target;
+            // Each cell is claimed once, so the next level cannot be
+            // larger than one neighbor per move per cell or the whole grid.
+            this.next = new int[(int) Math.min((long) grid.moves() * frontierSize,
+                grid.indexCount())];
+        }
+    }
+
+    /**
+     * Expands the frontier cells in [from, to), splitting the range in
+     * half until it is at most LEAF_SIZE long.
+     */
+    @SuppressWarnings("serial")
+    private static final class ExpandTask extends RecursiveAction {
+        private final Level level;
+        private final int from;
+        private final int to;
+
+        ExpandTask(Level level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(level, from, middle), new ExpandTask(level, middle, to));
+                return;
+            }
+
+            PackedGrid grid = level.grid;
+            int[] offsets = grid.neighborOffsets();
+            int moves = grid.moves();
+            IntStack claimed = new IntStack(moves * (to - from));
+            for (int i = from; i < to; i++) {
+                int cell = level.frontier[i];
+                for (int dir = 0; dir < moves; dir++) {
+                    int next = cell + offsets[dir];
+                    byte value = grid.getByte(next);
+                    if ((value == PackedGrid.OPEN || value == PackedGrid.GOLDCOIN)
+                        && grid.canMove(cell, dir) && level.visited.set(next)) {
+                        level.parent[next] = cell;
+                        claimed.push(next);
+                    }
+                }
+            }
+
+            int offset = level.nextSize.getAndAdd(claimed.size());
+            for (int i = 0; i < claimed.size(); i++) {
+                level.next[offset + i] = claimed.get(i);
+            }
+        }
+    }
+}
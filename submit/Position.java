@@ -8,8 +8,20 @@ it represents, and how to use it.
 @version Apr 22, 2025
 */
 public class Position {
-    private int row;
-    private int col;
+    /**
+     * Positions with a row and a column below this are shared by of.
+     */
+    private static final int CACHE_SIZE = 128;
+
+    /**
+     * The shared positions, filled in as of asks for them. Position is
+     * immutable, so a slot written by two threads at once holds equal
+     * positions either way.
+     */
+    private static final Position[] CACHE = new Position[CACHE_SIZE * CACHE_SIZE];
+
+    private final int row;
+    private final int col;
 
     /**
      * Constructs a Position object with the specified row and column.
@@ -22,6 +34,80 @@ public class Position {
         this.col = col;
     }
 
+    /**
+     * Returns a Position for (row, col). Small coordinates, which every
+     * maze uses, come from a shared cache, so asking for the same cell
+     * again does not allocate; others are new objects.
+     *
+     * @param row the row index of the position
+     * @param col the column index of the position
+     * @return a position equal to new Position(row, col)
+     */
+    public static Position of(int row, int col) {
+        if ((row | col) >= 0 && row < CACHE_SIZE && col < CACHE_SIZE) {
+            int i = row * CACHE_SIZE + col;
+            Position p = CACHE[i];
+            if (p == null) {
+                p = new Position(row, col);
+                CACHE[i] = p;
+            }
+            return p;
+        }
+        return new Position(row, col);
+    }
+
+    /**
+     * Packs a row and a column into one long, the row in the high 32
+     * bits and the column in the low 32 bits, so that sparse searches
+     * can key hash tables by position without allocating.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the packed position
+     */
+    public static long pack(int row, int col) {
+        return (long) row << 32 | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the row of a packed position.
+     *
+     * @param packed a position made by pack
+     * @return its row index
+     */
+    public static int rowOf(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Returns the column of a packed position.
+     *
+     * @param packed a position made by pack
+     * @return its column index
+     */
+    public static int colOf(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Returns the Position of a packed position.
+     *
+     * @param packed a position made by pack
+     * @return the position, from the cache if it is small
+     */
+    public static Position unpack(long packed) {
+        return of(rowOf(packed), colOf(packed));
+    }
+
+    /**
+     * Returns this position packed into a long.
+     *
+     * @return pack(getRow(), getCol())
+     */
+    public long toLong() {
+        return pack(row, col);
+    }
+
     /**
      * Returns the row index of the position.
      *
@@ -56,6 +142,19 @@ public class Position {
         return false;
     }
 
+    /**
+     * Returns a hash code consistent with equals. The row is multiplied by
+     * an odd constant and the high bits folded in, so neighboring cells
+     * do not collide the way row ^ col or 31 * row + col make them.
+     *
+     * @return the hash code of the position
+     */
+    @Override
+    public int hashCode() {
+        int h = row * 0x9E3779B9 + col;
+        return h ^ (h >>> 16);
+    }
+
     /**
      * Returns a string representation of the position in the format (row, col).
      *
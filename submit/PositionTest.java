@@ -77,6 +77,50 @@ public class PositionTest {
         assertEquals(12, pos.getCol());
     }
 
-   
+    /**
+     * Tests that equal positions have equal hash codes and that
+     * positions work as HashSet elements.
+     */
+    @Test
+    public void testHashCode() {
+        assertEquals(new Position(12, 34).hashCode(), new Position(12, 34).hashCode());
+        java.util.Set<Position> set = new java.util.HashSet<Position>();
+        for (int r = 0; r < 50; r++) {
+            for (int c = 0; c < 50; c++) {
+                set.add(new Position(r, c));
+            }
+        }
+        assertEquals(2500, set.size());
+        assertTrue(set.contains(new Position(49, 0)));
+        assertFalse(set.contains(new Position(50, 0)));
+    }
 
-}
\ No newline at end of file
+    /**
+     * Tests that of shares small positions and still makes large ones.
+     */
+    @Test
+    public void testOf() {
+        assertSame(Position.of(3, 4), Position.of(3, 4));
+        assertEquals(new Position(3, 4), Position.of(3, 4));
+        assertEquals(new Position(100000, -2), Position.of(100000, -2));
+    }
+
+    /**
+     * Tests packing positions into longs and back, negative and large
+     * coordinates included.
+     */
+    @Test
+    public void testPack() {
+        int[] values = { 0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        for (int row : values) {
+            for (int col : values) {
+                long packed = Position.pack(row, col);
+                assertEquals(row, Position.rowOf(packed));
+                assertEquals(col, Position.colOf(packed));
+                assertEquals(new Position(row, col), Position.unpack(packed));
+                assertEquals(packed, new Position(row, col).toLong());
+            }
+        }
+        assertNotEquals(Position.pack(1, 2), Position.pack(2, 1));
+    }
+}
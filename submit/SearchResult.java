@@ -0,0 +1,109 @@
+/**
+ * SearchResult reports the outcome of one run of a SearchStrategy:
+ * whether the target was reached, the length of the path that was
+ * marked, its cost, and how many cells the search expanded to find it.
+ * The cost adds, for every step of the path, the weight of the cell
+ * stepped into times the cost of the move in the Neighborhood of the
+ * grid. In FOUR a move costs 1, so the cost is the sum of the weights.
+ * In EIGHT and EIGHT_NO_CORNER_CUTTING an orthogonal move costs
+ * Neighborhood.STRAIGHT_COST (10) and a diagonal one DIAGONAL_COST (14),
+ * so the cost is in tenths of a step: a diagonal path of 3 cells of
+ * weight 1 costs 28. For a search that only counts moves the cost equals
+ * the length in every neighborhood.
+ */
+public class SearchResult {
+    private final boolean found;
+    private final int pathLength;
+    private final int pathCost;
+    private final long nodesExpanded;
+
+    /**
+     * Constructs a result.
+     *
+     * @param found true if the target was reached
+     * @param pathLength the number of steps from start to target, or -1 if not found
+     * @param nodesExpanded the number of cells taken off the frontier
+     */
+    public SearchResult(boolean found, int pathLength, long nodesExpanded) {
+        this(found, pathLength, pathLength, nodesExpanded);
+    }
+
+    /**
+     * Constructs a result for a search on weighted cells.
+     *
+     * @param found true if the target was reached
+     * @param pathLength the number of steps from start to target, or -1 if not found
+     * @param pathCost the cost of the path in the units of the class
+     *     comment, or -1 if not found
+     * @param nodesExpanded the number of cells taken off the frontier
+     */
+    public SearchResult(boolean found, int pathLength, int pathCost, long nodesExpanded) {
+        this.found = found;
+        this.pathLength = pathLength;
+        this.pathCost = pathCost;
+        this.nodesExpanded = nodesExpanded;
+    }
+
+    /**
+     * Returns a result for a search that did not reach the target.
+     *
+     * @param nodesExpanded the number of cells taken off the frontier
+     * @return a result with found set to false
+     */
+    public static SearchResult notFound(long nodesExpanded) {
+        return new SearchResult(false, -1, nodesExpanded);
+    }
+
+    /**
+     * Returns true if the search reached the target.
+     *
+     * @return true if a path was found
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * Returns the number of steps on the path from start to target,
+     * 0 if they are the same cell, or -1 if no path was found.
+     *
+     * @return the length of the path
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns the cost of the path: the weights of the cells after the
+     * start, each times the cost of the move into it (1 in FOUR,
+     * 10 or 14 in the 8-neighborhoods), or -1 if no path was found.
+     *
+     * @return the cost of the path
+     */
+    public int getPathCost() {
+        return pathCost;
+    }
+
+    /**
+     * Returns the number of cells the search expanded.
+     *
+     * @return the number of nodes expanded
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Returns a one-line summary of the result.
+     *
+     * @return a string describing the result
+     */
+    @Override
+    public String toString() {
+        if (!found) {
+            return "no path, nodes expanded: " + nodesExpanded;
+        }
+        String cost = pathCost == pathLength ? "" : ", path cost: " + pathCost;
+        return "path length: " + pathLength + cost + ", nodes expanded: " + nodesExpanded;
+    }
+}
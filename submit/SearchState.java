@@ -0,0 +1,418 @@
+import java.util.Arrays;
+
+/**
+ * SearchState holds everything a search records about the cells of a
+ * PackedGrid (which cells it visited, the parent and cost it gave them
+ * and the path it found) outside the grid, so that the grid is only read
+ * and many searches can run on the same maze, even at the same time,
+ * each with its own state.
+ *
+ * Every cell a search touches is remembered, so reset clears only those
+ * cells: a state can be reused for the next search at a cost
+ * proportional to the work of the last one, not to the size of the grid.
+ * Once a search has touched more than an eighth of the cells, the list
+ * stops growing and reset and apply scan the whole array instead, which
+ * is faster than visiting that many cells in search order.
+ * SearchStatePool keeps states for reuse. A state is used by one search
+ * at a time.
+ *
+ * The state also lends the searches their frontier (queue, stack, heap
+ * or bucket queue), so a reused state reuses its memory too, and getMaxFrontier can
+ * report how large the frontier grew.
+ */
+public final class SearchState {
+    private final int capacity;
+    private final long[] visited;
+    private long[] reached;
+    private int[] parent;
+    private int[] cost;
+    private final int denseLimit;
+    private final IntStack touched = new IntStack();
+    private boolean dense;
+    private final IntStack path = new IntStack();
+    private IntQueue queue;
+    private IntQueue backwardQueue;
+    private IntStack stack;
+    private IntMinHeap heap;
+    private IntBucketQueue buckets;
+    private int frontier;
+
+    /**
+     * Constructs a state for grids whose indexCount() is at most capacity.
+     *
+     * @param capacity the number of cell indices the state can hold
+     */
+    public SearchState(int capacity) {
+        this.capacity = capacity;
+        this.visited = new long[(capacity + 63) >>> 6];
+        this.denseLimit = capacity >>> 3;
+    }
+
+    /**
+     * Returns the number of cell indices the state can hold.
+     *
+     * @return the capacity of the state
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns true if the cell was visited by the search. What visited
+     * means depends on the search, as for the VISITED marks it used to
+     * write into the grid: discovered for breadth-first searches,
+     * expanded for A*.
+     *
+     * @param cell the cell index
+     * @return true if the cell was visited
+     */
+    public boolean isVisited(int cell) {
+        return (visited[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Marks a cell as visited.
+     *
+     * @param cell the cell index
+     * @return true if the cell was not visited before
+     */
+    public boolean visit(int cell) {
+        int word = cell >>> 6;
+        long mask = 1L << cell;
+        long old = visited[word];
+        if ((old & mask) != 0)
+            return false;
+        if (!isReached(cell))
+            touch(cell);
+        visited[word] = old | mask;
+        return true;
+    }
+
+    /**
+     * Marks a cell as visited and records the cell it was reached from.
+     *
+     * @param cell the cell index
+     * @param from the index of its parent; the start is its own parent
+     * @return true if the cell was not visited before
+     */
+    public boolean visit(int cell, int from) {
+        if (!visit(cell))
+            return false;
+        parents()[cell] = from;
+        return true;
+    }
+
+    /**
+     * Returns the parent recorded for a visited or reached cell.
+     *
+     * @param cell the cell index
+     * @return the index of the cell it was reached from
+     */
+    public int parentOf(int cell) {
+        return parent[cell];
+    }
+
+    /**
+     * Returns true if a cost was recorded for the cell with reach.
+     *
+     * @param cell the cell index
+     * @return true if the cell has a cost
+     */
+    public boolean isReached(int cell) {
+        return reached != null && (reached[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Returns the cost recorded for a reached cell.
+     *
+     * @param cell the cell index
+     * @return its cost, or Integer.MAX_VALUE if it was not reached
+     */
+    public int costOf(int cell) {
+        return isReached(cell) ? cost[cell] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Records a cost and a parent for a cell, replacing any earlier ones.
+     * Searches that improve costs, such as A*, use this for the cells on
+     * their open list.
+     *
+     * @param cell the cell index
+     * @param value the cost of the cell
+     * @param from the index of its parent
+     */
+    public void reach(int cell, int value, int from) {
+        if (reached == null) {
+            reached = new long[visited.length];
+            cost = new int[capacity];
+        }
+        if (!isReached(cell) && !isVisited(cell))
+            touch(cell);
+        reached[cell >>> 6] |= 1L << cell;
+        cost[cell] = value;
+        parents()[cell] = from;
+    }
+
+    /**
+     * Adds a cell to the path found by the search. Searches add the
+     * cells from the target back to the start.
+     *
+     * @param cell the cell index
+     */
+    public void addToPath(int cell) {
+        path.push(cell);
+    }
+
+    /**
+     * Follows the parent links from target back to start, adding every
+     * cell to the path.
+     *
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the number of steps on the path
+     */
+    public int tracePath(int start, int target) {
+        int length = 0;
+        int cell = target;
+        while (cell != start) {
+            path.push(cell);
+            cell = parent[cell];
+            length++;
+        }
+        path.push(start);
+        return length;
+    }
+
+    /**
+     * Returns the number of cells on the path, which is one more than
+     * its length, or 0 if no path was found.
+     *
+     * @return the number of path cells
+     */
+    public int getPathCellCount() {
+        return path.size();
+    }
+
+    /**
+     * Returns a cell of the path, counting from the target.
+     *
+     * @param i the position on the path, from 0 to getPathCellCount() - 1
+     * @return the cell index
+     */
+    public int getPathCell(int i) {
+        return path.get(i);
+    }
+
+    /**
+     * Returns the queue of the state, empty. Breadth-first searches keep
+     * their frontier in it.
+     *
+     * @return the queue
+     */
+    public IntQueue queue() {
+        if (queue == null)
+            queue = new IntQueue();
+        else
+            queue.clear();
+        return queue;
+    }
+
+    /**
+     * Returns a second queue, empty, for searches that grow two
+     * frontiers at once, such as BidirectionalSearch.
+     *
+     * @return the second queue
+     */
+    public IntQueue backwardQueue() {
+        if (backwardQueue == null)
+            backwardQueue = new IntQueue();
+        else
+            backwardQueue.clear();
+        return backwardQueue;
+    }
+
+    /**
+     * Returns the stack of the state, empty. Depth-first searches keep
+     * their frontier in it.
+     *
+     * @return the stack
+     */
+    public IntStack stack() {
+        if (stack == null)
+            stack = new IntStack();
+        else
+            stack.clear();
+        return stack;
+    }
+
+    /**
+     * Returns the heap of the state, empty. Best-first searches keep
+     * their open list in it.
+     *
+     * @return the heap
+     */
+    public IntMinHeap heap() {
+        if (heap == null)
+            heap = new IntMinHeap();
+        else
+            heap.clear();
+        return heap;
+    }
+
+    /**
+     * Returns the bucket queue of the state, empty, able to take steps of
+     * at least maxStep. Searches on weighted cells keep their open list
+     * in it.
+     *
+     * @param maxStep the largest weight of a cell
+     * @return the bucket queue
+     */
+    public IntBucketQueue buckets(int maxStep) {
+        if (buckets == null || buckets.maxStep() < maxStep)
+            buckets = new IntBucketQueue(maxStep);
+        else
+            buckets.clear();
+        return buckets;
+    }
+
+    /**
+     * Records the size of a frontier the search keeps itself, for
+     * getMaxFrontier.
+     *
+     * @param size the number of cells on the frontier
+     */
+    public void recordFrontier(int size) {
+        if (size > frontier)
+            frontier = size;
+    }
+
+    /**
+     * Returns the largest number of cells the last search held on its
+     * frontier at once: the peak of the queues, stack, heap and buckets it
+     * borrowed, or the largest size it recorded. For a depth-first search
+     * this is its deepest recursion; heaps count their stale entries.
+     *
+     * @return the peak size of the frontier
+     */
+    public int getMaxFrontier() {
+        int max = frontier;
+        if (stack != null)
+            max = Math.max(max, stack.peak());
+        if (heap != null)
+            max = Math.max(max, heap.peak());
+        if (buckets != null)
+            max = Math.max(max, buckets.peak());
+        int queues = (queue == null ? 0 : queue.peak())
+            + (backwardQueue == null ? 0 : backwardQueue.peak());
+        return Math.max(max, queues);
+    }
+
+    /**
+     * Returns the number of cells the search visited.
+     *
+     * @return the number of visited cells
+     */
+    public int getVisitedCount() {
+        int count = 0;
+        if (dense) {
+            for (long word : visited) {
+                count += Long.bitCount(word);
+            }
+        }
+        else {
+            for (int i = 0; i < touched.size(); i++) {
+                if (isVisited(touched.get(i)))
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the result of the search into a grid: VISITED on the cells
+     * visited, then PATH on the cells of the path, as the searches did
+     * when they marked the grid directly.
+     *
+     * @param grid the grid to mark
+     */
+    public void apply(PackedGrid grid) {
+        if (dense) {
+            for (int w = 0; w < visited.length; w++) {
+                for (long word = visited[w]; word != 0; word &= word - 1) {
+                    grid.setByte(w << 6 | Long.numberOfTrailingZeros(word), PackedGrid.VISITED);
+                }
+            }
+        }
+        else {
+            for (int i = 0; i < touched.size(); i++) {
+                int cell = touched.get(i);
+                if (isVisited(cell))
+                    grid.setByte(cell, PackedGrid.VISITED);
+            }
+        }
+        for (int i = 0; i < path.size(); i++) {
+            grid.setByte(path.get(i), PackedGrid.PATH);
+        }
+    }
+
+    /**
+     * Clears the state for the next search, touching only the cells the
+     * last search used.
+     */
+    public void reset() {
+        if (dense) {
+            Arrays.fill(visited, 0);
+            if (reached != null)
+                Arrays.fill(reached, 0);
+            dense = false;
+        }
+        else {
+            for (int i = 0; i < touched.size(); i++) {
+                int cell = touched.get(i);
+                visited[cell >>> 6] = 0;
+                if (reached != null)
+                    reached[cell >>> 6] = 0;
+            }
+        }
+        touched.clear();
+        path.clear();
+        if (queue != null)
+            queue.clear();
+        if (backwardQueue != null)
+            backwardQueue.clear();
+        if (stack != null)
+            stack.clear();
+        if (heap != null)
+            heap.clear();
+        if (buckets != null)
+            buckets.clear();
+        frontier = 0;
+    }
+
+    /**
+     * Remembers a cell touched for the first time, until the search has
+     * touched so many that scanning the whole array is cheaper.
+     *
+     * @param cell the cell index
+     */
+    private void touch(int cell) {
+        if (dense)
+            return;
+        if (touched.size() == denseLimit)
+            dense = true;
+        else
+            touched.push(cell);
+    }
+
+    /**
+     * Returns the parent array, allocating it the first time a search
+     * records a parent; depth-first searches never do.
+     *
+     * @return the parent array
+     */
+    private int[] parents() {
+        if (parent == null)
+            parent = new int[capacity];
+        return parent;
+    }
+}
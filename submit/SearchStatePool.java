@@ -0,0 +1,45 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * SearchStatePool keeps SearchState objects of one capacity for reuse,
+ * so repeated searches on the same maze do not allocate per-cell arrays.
+ * A released state is reset, which only clears the cells its last search
+ * touched. The pool is thread-safe; it holds at most as many states as
+ * were ever in use at the same time.
+ */
+public final class SearchStatePool {
+    private final int capacity;
+    private final ConcurrentLinkedQueue<SearchState> free = new ConcurrentLinkedQueue<SearchState>();
+
+    /**
+     * Constructs a pool of states for grids with the given indexCount().
+     *
+     * @param capacity the capacity of the states
+     */
+    public SearchStatePool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns a clear state, reusing a released one if there is any.
+     *
+     * @return a state ready for a search
+     */
+    public SearchState acquire() {
+        SearchState state = free.poll();
+        return state != null ? state : new SearchState(capacity);
+    }
+
+    /**
+     * Resets a state and returns it to the pool.
+     *
+     * @param state a state obtained from acquire, no longer used
+     */
+    public void release(SearchState state) {
+        if (state.capacity() != capacity)
+            throw new IllegalArgumentException("State of capacity " + state.capacity()
+                + " does not belong to a pool of capacity " + capacity);
+        state.reset();
+        free.offer(state);
+    }
+}
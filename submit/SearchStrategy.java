@@ -0,0 +1,113 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * SearchStrategy lists the algorithms that Maze.solve can use to go
+ * from the start position to the target position. Every strategy runs
+ * on a PackedGrid and records the cells it explores and the route it
+ * finds in a SearchState, which can be written to the grid as VISITED
+ * and PATH marks. Only DIJKSTRA reads the weights of the cells; the
+ * others count every step as 1.
+ */
+public enum SearchStrategy {
+    /** Depth-first search, the same traversal as Maze.traverse. */
+    DFS {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return DepthFirstSearch.search(grid, start, target, state);
+        }
+    },
+
+    /** Breadth-first search, which marks a shortest path. */
+    BFS {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return BreadthFirstSearch.solve(grid, start, target, state);
+        }
+    },
+
+    /** A* with the Manhattan distance heuristic, which marks a shortest path. */
+    ASTAR {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return AStarSearch.solve(grid, start, target, state);
+        }
+    },
+
+    /** Jump Point Search, an A* that skips straight runs; marks a shortest path. */
+    JPS {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return JumpPointSearch.solve(grid, start, target, state);
+        }
+    },
+
+    /** Breadth-first search from both ends at once; marks a shortest path. */
+    BIDIRECTIONAL {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return BidirectionalSearch.solve(grid, start, target, state);
+        }
+    },
+
+    /** Level-synchronous breadth-first search on the common ForkJoinPool. */
+    PARALLEL_BFS {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return ParallelBreadthFirstSearch.solve(grid, start, target,
+                ForkJoinPool.commonPool(), state);
+        }
+    },
+
+    /** Dijkstra's algorithm on a bucket queue; marks a cheapest path under the cell weights. */
+    DIJKSTRA {
+        @Override
+        public SearchResult solve(PackedGrid grid, int start, int target, SearchState state) {
+            return DijkstraSearch.solve(grid, start, target, state);
+        }
+    };
+
+    /**
+     * Searches the grid from start to target, marking the cells explored
+     * as VISITED and the route found as PATH.
+     *
+     * @param grid the grid to search; it is modified in place
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @return the result of the search
+     */
+    public SearchResult solve(PackedGrid grid, int start, int target) {
+        SearchState state = new SearchState(grid.indexCount());
+        SearchResult result = solve(grid, start, target, state);
+        state.apply(grid);
+        return result;
+    }
+
+    /**
+     * Searches the grid from start to target without changing it,
+     * recording the cells explored and the route found in state.
+     *
+     * @param grid the grid to search; it is only read
+     * @param start the index of the starting cell
+     * @param target the index of the target cell
+     * @param state a clear state whose capacity is at least
+     *     grid.indexCount()
+     * @return the result of the search
+     */
+    public abstract SearchResult solve(PackedGrid grid, int start, int target, SearchState state);
+
+    /**
+     * Returns the strategy with the given name, ignoring case.
+     *
+     * @param name the name of the strategy, such as "bfs"
+     * @return the matching strategy
+     * @throws IllegalArgumentException if no strategy has that name
+     */
+    public static SearchStrategy fromName(String name) {
+        for (SearchStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solver: " + name);
+    }
+}
@@ -0,0 +1,211 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the SearchStrategy solvers and Maze.solve.
+ */
+public class SearchStrategyTest {
+
+    /**
+     * Counts the cells of the maze holding the given value.
+     */
+    private static int count(Maze maze, Maze.CELL value) {
+        int n = 0;
+        for (int r = 0; r < maze.getSize(); r++) {
+            for (int c = 0; c < maze.getSize(); c++) {
+                if (maze.getCell(r, c) == value) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Tests that BFS marks a shortest path on an open maze.
+     */
+    @Test
+    public void testBfsShortestPathOpenMaze() {
+        Maze maze = new MazeSolver("maze.txt");
+        SearchResult result = maze.solve(SearchStrategy.BFS);
+        assertTrue(result.isFound());
+        assertEquals(8, result.getPathLength());
+        assertEquals(9, count(maze, Maze.CELL.PATH));
+        assertEquals(Maze.CELL.PATH, maze.getCell(0, 0));
+        assertEquals(Maze.CELL.PATH, maze.getCell(4, 4));
+    }
+
+    /**
+     * Tests that BFS never returns a longer path than DFS.
+     */
+    @Test
+    public void testBfsNotLongerThanDfs() {
+        String[] files = { "maze.txt", "maze1.txt", "maze2.txt", "maze3.txt",
+            "maze4.txt", "maze5.txt", "maze6.txt" };
+        for (String file : files) {
+            SearchResult dfs = new MazeSolver(file).solve(SearchStrategy.DFS);
+            SearchResult bfs = new GridMazeSolver(file).solve(SearchStrategy.BFS);
+            assertEquals(file, dfs.isFound(), bfs.isFound());
+            if (bfs.isFound()) {
+                assertTrue(file, bfs.getPathLength() <= dfs.getPathLength());
+            }
+        }
+    }
+
+    /**
+     * Tests that solve with DFS marks the same cells as traverse.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testDfsMatchesTraverse() throws IllegalAccessException {
+        MazeSolver expected = new MazeSolver("maze6.txt");
+        MazeSolver actual = new MazeSolver("maze6.txt");
+        assertTrue(expected.traverse());
+        assertTrue(actual.solve(SearchStrategy.DFS).isFound());
+        assertArrayEquals(expected.getGrid(), actual.getGrid());
+    }
+
+    /**
+     * Tests that BFS reports no path when the start is a wall.
+     */
+    @Test
+    public void testBfsNoPath() {
+        Maze maze = new MazeSolver("maze-dead.txt");
+        SearchResult result = maze.solve(SearchStrategy.BFS);
+        assertFalse(result.isFound());
+        assertEquals(-1, result.getPathLength());
+    }
+
+    /**
+     * Tests that the shortest-path strategies find paths as short as BFS
+     * on random grids.
+     */
+    @Test
+    public void testShortestPathSearchesMatchBfs() {
+        java.util.Random random = new java.util.Random(42);
+        SearchStrategy[] shortest = { SearchStrategy.ASTAR, SearchStrategy.JPS,
+            SearchStrategy.BIDIRECTIONAL, SearchStrategy.PARALLEL_BFS };
+        for (int trial = 0; trial < 300; trial++) {
+            int size = 2 + random.nextInt(20);
+            Maze.CELL[][] cells = new Maze.CELL[size][size];
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    cells[r][c] = random.nextInt(10) < 3 ? Maze.CELL.WALL : Maze.CELL.OPEN;
+                }
+            }
+            Position start = new Position(random.nextInt(size), random.nextInt(size));
+            Position target = new Position(random.nextInt(size), random.nextInt(size));
+            SearchResult bfs = new GridMazeSolver(PackedGrid.fromCells(cells), start, target)
+                .solve(SearchStrategy.BFS);
+            for (SearchStrategy strategy : shortest) {
+                GridMazeSolver maze = new GridMazeSolver(PackedGrid.fromCells(cells), start, target);
+                SearchResult result = maze.solve(strategy);
+                assertEquals(strategy + " trial " + trial, bfs.getPathLength(), result.getPathLength());
+                if (result.isFound()) {
+                    assertEquals(result.getPathLength() + 1, count(maze, Maze.CELL.PATH));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that the informed searches expand fewer cells than BFS on an open maze.
+     */
+    @Test
+    public void testInformedSearchesExpandLess() {
+        long bfs = new MazeSolver("maze0.txt").solve(SearchStrategy.BFS).getNodesExpanded();
+        long astar = new MazeSolver("maze0.txt").solve(SearchStrategy.ASTAR).getNodesExpanded();
+        long jps = new MazeSolver("maze0.txt").solve(SearchStrategy.JPS).getNodesExpanded();
+        assertTrue(astar < bfs);
+        assertTrue(jps < bfs);
+    }
+
+    /**
+     * Tests that the bidirectional search explores less than BFS on a
+     * long corridor with side pockets.
+     */
+    @Test
+    public void testBidirectionalExpandsLessOnCorridor() {
+        Maze.CELL[][] cells = new Maze.CELL[9][9];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                cells[r][c] = r == 4 || c % 2 == 0 ? Maze.CELL.OPEN : Maze.CELL.WALL;
+            }
+        }
+        Position start = new Position(4, 0);
+        Position target = new Position(4, 8);
+        SearchResult bfs = new GridMazeSolver(PackedGrid.fromCells(cells), start, target)
+            .solve(SearchStrategy.BFS);
+        SearchResult bidirectional = new GridMazeSolver(PackedGrid.fromCells(cells), start, target)
+            .solve(SearchStrategy.BIDIRECTIONAL);
+        assertEquals(8, bidirectional.getPathLength());
+        assertTrue(bidirectional.getNodesExpanded() < bfs.getNodesExpanded());
+    }
+
+    /**
+     * Tests that the parallel BFS splits large frontiers across several
+     * threads and still finds the BFS path length.
+     */
+    @Test
+    public void testParallelBfsOnLargeGrid() {
+        int size = 1200;
+        java.util.Random random = new java.util.Random(7);
+        Maze.CELL[][] cells = new Maze.CELL[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                cells[r][c] = random.nextInt(10) < 2 ? Maze.CELL.WALL : Maze.CELL.OPEN;
+            }
+        }
+        cells[0][0] = Maze.CELL.OPEN;
+        cells[size - 1][size - 1] = Maze.CELL.OPEN;
+        PackedGrid sequential = PackedGrid.fromCells(cells);
+        PackedGrid parallel = PackedGrid.fromCells(cells);
+        int start = sequential.index(0, 0);
+        int target = sequential.index(size - 1, size - 1);
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            SearchResult expected = BreadthFirstSearch.solve(sequential, start, target);
+            SearchResult actual = ParallelBreadthFirstSearch.solve(parallel, start, target, pool);
+            assertEquals(expected.isFound(), actual.isFound());
+            assertEquals(expected.getPathLength(), actual.getPathLength());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests the atomic bit set used by the parallel BFS.
+     */
+    @Test
+    public void testAtomicBitSet() {
+        AtomicBitSet bits = new AtomicBitSet(130);
+        assertTrue(bits.set(3));
+        assertFalse(bits.set(3));
+        assertTrue(bits.set(129));
+        assertTrue(bits.get(3));
+        assertFalse(bits.get(4));
+        assertEquals(3, bits.nextSetBit(0));
+        assertEquals(129, bits.nextSetBit(4));
+        assertEquals(-1, bits.nextSetBit(130));
+    }
+
+    /**
+     * Tests the ring buffer queue across several growths.
+     */
+    @Test
+    public void testIntQueueWrapsAndGrows() {
+        IntQueue queue = new IntQueue(2);
+        int next = 0;
+        for (int i = 0; i < 100; i++) {
+            queue.add(i);
+            if (i % 3 == 0) {
+                assertEquals(next++, queue.remove());
+            }
+        }
+        while (!queue.isEmpty()) {
+            assertEquals(next++, queue.remove());
+        }
+        assertEquals(100, next);
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * SolveStats records what one traverse, pickupGoldCoins or solve of a
+ * Maze did: whether it reached the target, the length of the path, how
+ * many cells it expanded and how large its frontier grew, the gold coins
+ * it found, and how long it took, with the time the maze took to read.
+ * Maze returns one from each of its measured operations; see
+ * SolverInstrumentation.
+ */
+public final class SolveStats {
+    private final String operation;
+    private final boolean found;
+    private final int pathLength;
+    private final long nodesExpanded;
+    private final int maxFrontier;
+    private final int coins;
+    private final long parseNanos;
+    private final long solveNanos;
+
+    /**
+     * Constructs the statistics of one operation.
+     *
+     * @param operation the name of the operation, such as traverse or BFS
+     * @param found true if the target was reached
+     * @param pathLength the number of steps from start to target, or -1
+     * @param nodesExpanded the number of cells expanded
+     * @param maxFrontier the largest number of cells on the frontier at once
+     * @param coins the number of gold coins found
+     * @param parseNanos the time the maze took to read, in nanoseconds
+     * @param solveNanos the time the operation took, in nanoseconds
+     */
+    public SolveStats(String operation, boolean found, int pathLength, long nodesExpanded,
+                      int maxFrontier, int coins, long parseNanos, long solveNanos) {
+        this.operation = operation;
+        this.found = found;
+        this.pathLength = pathLength;
+        this.nodesExpanded = nodesExpanded;
+        this.maxFrontier = maxFrontier;
+        this.coins = coins;
+        this.parseNanos = parseNanos;
+        this.solveNanos = solveNanos;
+    }
+
+    /**
+     * Returns the statistics of a search that ran to a target, such as
+     * traverse or a solve.
+     *
+     * @param operation the name of the operation, such as traverse or BFS
+     * @param result what the search returned
+     * @param maxFrontier the largest number of cells on the frontier at once
+     * @param coins the number of gold coins on the path
+     * @param parseNanos the time the maze took to read, in nanoseconds
+     * @param solveNanos the time the search took, in nanoseconds
+     * @return the statistics
+     */
+    public static SolveStats ofSearch(String operation, SearchResult result, int maxFrontier,
+                                      int coins, long parseNanos, long solveNanos) {
+        return new SolveStats(operation, result.isFound(), result.getPathLength(),
+            result.getNodesExpanded(), maxFrontier, coins, parseNanos, solveNanos);
+    }
+
+    /**
+     * Returns the statistics of a pickupGoldCoins, which has no target:
+     * it is reported as not found, with a path length of -1.
+     *
+     * @param nodesExpanded the number of cells entered
+     * @param maxFrontier the largest number of cells on the frontier at once
+     * @param coins the number of gold coins picked up
+     * @param parseNanos the time the maze took to read, in nanoseconds
+     * @param solveNanos the time the pickup took, in nanoseconds
+     * @return the statistics
+     */
+    public static SolveStats ofPickup(long nodesExpanded, int maxFrontier, int coins,
+                                      long parseNanos, long solveNanos) {
+        return new SolveStats("pickupGoldCoins", false, -1, nodesExpanded, maxFrontier,
+            coins, parseNanos, solveNanos);
+    }
+
+    /**
+     * Returns the name of the operation: traverse, pickupGoldCoins, or
+     * the name of the SearchStrategy that solved the maze.
+     *
+     * @return the name of the operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns true if the operation reached the target. pickupGoldCoins
+     * has no target and reports false.
+     *
+     * @return true if a path was found
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * Returns the number of steps on the path from start to target, or
+     * -1 if no path was found.
+     *
+     * @return the length of the path
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns the number of cells the operation expanded.
+     *
+     * @return the number of nodes expanded
+     */
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /**
+     * Returns the largest number of cells the operation held on its
+     * frontier at once; for the depth-first traverse this is the deepest
+     * it went. A traverse or pickupGoldCoins override that does not call
+     * Maze.recordSearch reports 0.
+     *
+     * @return the peak size of the frontier
+     */
+    public int getMaxFrontier() {
+        return maxFrontier;
+    }
+
+    /**
+     * Returns the number of gold coins found: the coins picked up by
+     * pickupGoldCoins, the coins on the path for solve, or 0 for
+     * traverse, whose PATH marks cover the coins it walked over.
+     *
+     * @return the number of coins
+     */
+    public int getCoins() {
+        return coins;
+    }
+
+    /**
+     * Returns the time the maze took to read from its file, or 0 if it
+     * was not read from a file.
+     *
+     * @return the parse time in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Returns the time the operation took.
+     *
+     * @return the solve time in nanoseconds
+     */
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+
+    /**
+     * Returns the outcome as a SearchResult.
+     *
+     * @return a result with the same found flag, path length and nodes expanded
+     */
+    public SearchResult toSearchResult() {
+        return new SearchResult(found, pathLength, nodesExpanded);
+    }
+
+    /**
+     * Returns a one-line summary of the statistics.
+     *
+     * @return a string describing the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %s, path length: %d, nodes expanded: %d, max frontier: %d, "
+            + "coins: %d, parse: %.3f ms, solve: %.3f ms", operation, found ? "found" : "not found",
+            pathLength, nodesExpanded, maxFrontier, coins, parseNanos / 1e6, solveNanos / 1e6);
+    }
+}
@@ -0,0 +1,209 @@
+import java.lang.management.ManagementFactory;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * SolverInstrumentation decides whether the plain traverse,
+ * pickupGoldCoins and solve of a Maze are measured, and where the
+ * measurements go. It is off by default, and then each of those calls
+ * costs one read of a volatile flag more than before. It is turned on
+ * with setEnabled or by starting the program with
+ * -Dmaze.instrumentation=true; from then on every operation is measured
+ * as by the WithStats methods of Maze, which time and count the same
+ * calls that would run without it, and each SolveStats is
+ *
+ *  - added to the counters of the SolverStatsMXBean registered as
+ *    Maze:type=SolverStats on the platform MBean server, and
+ *  - committed as a maze.Solve event to any Java Flight Recorder
+ *    recording that has the event enabled.
+ *
+ * The WithStats methods always return their SolveStats, whether or not
+ * instrumentation is enabled.
+ */
+public final class SolverInstrumentation {
+
+    /**
+     * The name the SolverStatsMXBean is registered under.
+     */
+    public static final String OBJECT_NAME = "Maze:type=SolverStats";
+
+    private static final Counters COUNTERS = new Counters();
+    private static volatile boolean enabled;
+    private static boolean registered;
+
+    static {
+        if (Boolean.getBoolean("maze.instrumentation"))
+            setEnabled(true);
+    }
+
+    private SolverInstrumentation() {
+    }
+
+    /**
+     * Returns true if the operations of Maze are measured and published.
+     *
+     * @return true if instrumentation is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns instrumentation on or off. The first time it is turned on the
+     * SolverStatsMXBean is registered; it stays registered, and keeps its
+     * counters, when instrumentation is turned off again.
+     *
+     * @param on true to measure and publish every operation
+     * @throws IllegalStateException if the MXBean cannot be registered
+     */
+    public static synchronized void setEnabled(boolean on) {
+        if (on && !registered) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(COUNTERS, new ObjectName(OBJECT_NAME));
+            }
+            catch (InstanceAlreadyExistsException e) {
+                // Another class loader registered its own counters first.
+            }
+            catch (JMException e) {
+                throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+            }
+            registered = true;
+        }
+        enabled = on;
+    }
+
+    /**
+     * Returns the counters published over JMX.
+     *
+     * @return the SolverStatsMXBean of this program
+     */
+    public static SolverStatsMXBean getCounters() {
+        return COUNTERS;
+    }
+
+    /**
+     * Publishes the statistics of one operation if instrumentation is
+     * enabled, and does nothing otherwise.
+     *
+     * @param stats the statistics to publish
+     */
+    public static void publish(SolveStats stats) {
+        if (!enabled)
+            return;
+        COUNTERS.add(stats);
+        SolveEvent event = new SolveEvent();
+        if (event.isEnabled()) {
+            event.operation = stats.getOperation();
+            event.found = stats.isFound();
+            event.pathLength = stats.getPathLength();
+            event.nodesExpanded = stats.getNodesExpanded();
+            event.maxFrontier = stats.getMaxFrontier();
+            event.coins = stats.getCoins();
+            event.parseTime = stats.getParseNanos();
+            event.solveTime = stats.getSolveNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * The counters behind the SolverStatsMXBean.
+     */
+    static final class Counters implements SolverStatsMXBean {
+        private long solveCount;
+        private long totalNodesExpanded;
+        private long totalSolveNanos;
+        private int maxFrontier;
+        private SolveStats last;
+
+        /**
+         * Adds the statistics of one operation to the counters.
+         *
+         * @param stats the statistics of the operation
+         */
+        synchronized void add(SolveStats stats) {
+            solveCount++;
+            totalNodesExpanded += stats.getNodesExpanded();
+            totalSolveNanos += stats.getSolveNanos();
+            maxFrontier = Math.max(maxFrontier, stats.getMaxFrontier());
+            last = stats;
+        }
+
+        @Override
+        public synchronized long getSolveCount() {
+            return solveCount;
+        }
+
+        @Override
+        public synchronized long getTotalNodesExpanded() {
+            return totalNodesExpanded;
+        }
+
+        @Override
+        public synchronized long getTotalSolveNanos() {
+            return totalSolveNanos;
+        }
+
+        @Override
+        public synchronized int getMaxFrontier() {
+            return maxFrontier;
+        }
+
+        @Override
+        public synchronized String getLastStats() {
+            return last == null ? null : last.toString();
+        }
+
+        @Override
+        public synchronized void reset() {
+            solveCount = 0;
+            totalNodesExpanded = 0;
+            totalSolveNanos = 0;
+            maxFrontier = 0;
+            last = null;
+        }
+    }
+
+    /**
+     * The Flight Recorder event committed for each measured operation.
+     */
+    @Name("maze.Solve")
+    @Label("Maze Solve")
+    @Category("Maze")
+    @Description("A traverse, pickupGoldCoins or solve of a Maze")
+    static final class SolveEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Found")
+        boolean found;
+
+        @Label("Path Length")
+        int pathLength;
+
+        @Label("Nodes Expanded")
+        long nodesExpanded;
+
+        @Label("Max Frontier")
+        int maxFrontier;
+
+        @Label("Coins")
+        int coins;
+
+        @Label("Parse Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseTime;
+
+        @Label("Solve Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long solveTime;
+    }
+}
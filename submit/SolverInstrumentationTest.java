@@ -0,0 +1,258 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test class for SolveStats and SolverInstrumentation.
+ */
+public class SolverInstrumentationTest {
+    private static final String[] FILES = { "maze.txt", "maze0g.txt", "maze1.txt",
+        "maze2.txt", "maze3.txt", "maze-dead.txt", "mazeg.txt" };
+
+    /**
+     * Turns instrumentation off again after each test.
+     */
+    @After
+    public void tearDown() {
+        SolverInstrumentation.setEnabled(false);
+        SolverInstrumentation.getCounters().reset();
+    }
+
+    /**
+     * Counts the cells of a maze holding the given value.
+     *
+     * @param maze the maze
+     * @param cell the value to count
+     * @return the number of cells
+     */
+    private static int count(Maze maze, Maze.CELL cell) {
+        int count = 0;
+        for (Maze.CELL[] row : maze.getGrid()) {
+            for (Maze.CELL value : row) {
+                if (value == cell)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tests that the measured traverse and pickup mark the maze exactly
+     * as the plain ones and report consistent statistics.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testWithStatsMatchesPlain() throws IllegalAccessException {
+        for (String file : FILES) {
+            MazeSolver expected = new MazeSolver(file);
+            boolean found = expected.traverse();
+            MazeSolver measured = new MazeSolver(file);
+            SolveStats stats = measured.traverseWithStats();
+            assertArrayEquals(file, expected.getGrid(), measured.getGrid());
+            assertEquals(file, found, stats.isFound());
+            assertSame(stats, measured.getLastStats());
+            assertTrue(file, measured.getParseNanos() > 0);
+            assertEquals(file, measured.getParseNanos(), stats.getParseNanos());
+            if (found) {
+                assertEquals(file, count(measured, Maze.CELL.PATH) - 1, stats.getPathLength());
+                // the depth-first stack holds the whole path when the target is reached
+                assertTrue(file, stats.getMaxFrontier() >= stats.getPathLength() + 1);
+            }
+            assertTrue(file, stats.getNodesExpanded() >= stats.getMaxFrontier());
+
+            expected = new MazeSolver(file);
+            int coins = expected.pickupGoldCoins();
+            measured = new MazeSolver(file);
+            stats = measured.pickupGoldCoinsWithStats();
+            assertArrayEquals(file, expected.getGrid(), measured.getGrid());
+            assertEquals(file, coins, stats.getCoins());
+            assertEquals(file, count(measured, Maze.CELL.VISITED), stats.getNodesExpanded());
+            assertEquals(file, -1, stats.getPathLength());
+        }
+    }
+
+    /**
+     * Tests that the measured calls report what the call itself did, not
+     * the marks earlier calls left on the grid.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testReportsOnlyTheCall() throws IllegalAccessException {
+        Maze[] mazes = { new MazeSolver("maze.txt"), new GridMazeSolver("maze.txt") };
+        for (Maze maze : mazes) {
+            SolveStats first = maze.traverseWithStats();
+            assertTrue(first.isFound());
+            assertEquals(count(maze, Maze.CELL.PATH) - 1, first.getPathLength());
+            assertEquals(count(maze, Maze.CELL.PATH) + count(maze, Maze.CELL.VISITED),
+                first.getNodesExpanded());
+            // the second call only enters the cells the first one left open
+            SolveStats second = maze.traverseWithStats();
+            assertFalse(second.isFound());
+            assertEquals(-1, second.getPathLength());
+            assertTrue(second.getNodesExpanded() > 0);
+            assertTrue(second.getNodesExpanded()
+                < count(maze, Maze.CELL.PATH) + count(maze, Maze.CELL.VISITED));
+        }
+    }
+
+    /**
+     * Tests that while instrumentation is enabled traverse and
+     * pickupGoldCoins still run the implementation of a subclass that
+     * overrides them, and that its results are what gets measured.
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testMeasuresOverrides() throws IllegalAccessException {
+        final int[] calls = new int[2];
+        MazeSolver maze = new MazeSolver("maze.txt") {
+            @Override
+            public boolean traverse(Position p) throws IllegalAccessException {
+                calls[0]++;
+                return super.traverse(p);
+            }
+
+            @Override
+            public int pickupGoldCoins(Position p) throws IllegalAccessException {
+                calls[1]++;
+                return 7;
+            }
+        };
+        SolverInstrumentation.setEnabled(true);
+        assertTrue(maze.traverse());
+        assertEquals(1, calls[0]);
+        assertEquals("traverse", maze.getLastStats().getOperation());
+        assertEquals(count(maze, Maze.CELL.PATH) - 1, maze.getLastStats().getPathLength());
+        assertEquals(7, maze.pickupGoldCoins());
+        assertEquals(1, calls[1]);
+        assertEquals(7, maze.getLastStats().getCoins());
+        // the override does not report, so its stats come from the marks
+        assertEquals(count(maze, Maze.CELL.PATH) + count(maze, Maze.CELL.VISITED),
+            maze.getLastStats().getNodesExpanded());
+        assertEquals(0, maze.getLastStats().getMaxFrontier());
+
+        GridMazeSolver packed = new GridMazeSolver("maze.txt");
+        GridMazeSolver plain = new GridMazeSolver("maze.txt");
+        packed.setParseNanos(42);
+        assertEquals(2, packed.pickupGoldCoins());
+        assertEquals(42, packed.getLastStats().getParseNanos());
+        SolverInstrumentation.setEnabled(false);
+        assertEquals(2, plain.pickupGoldCoins());
+        assertEquals(plain.toString(), packed.toString());
+        assertEquals(count(packed, Maze.CELL.VISITED), packed.getLastStats().getNodesExpanded());
+        assertTrue(packed.getLastStats().getMaxFrontier() > 0);
+    }
+
+    /**
+     * Tests that solveWithStats reports what solve returns, with the
+     * peak of the frontier the search borrowed from its state.
+     */
+    @Test
+    public void testSolveWithStats() {
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            MazeSolver expected = new MazeSolver("mazeg.txt");
+            SearchResult result = expected.solve(strategy);
+            MazeSolver measured = new MazeSolver("mazeg.txt");
+            SolveStats stats = measured.solveWithStats(strategy);
+            assertArrayEquals(strategy.toString(), expected.getGrid(), measured.getGrid());
+            assertEquals(strategy.name(), stats.getOperation());
+            assertEquals(result.isFound(), stats.isFound());
+            assertEquals(result.getPathLength(), stats.getPathLength());
+            assertEquals(result.getNodesExpanded(), stats.getNodesExpanded());
+            assertTrue(strategy.toString(), stats.getMaxFrontier() > 0);
+        }
+    }
+
+    /**
+     * Tests the peak sizes the containers keep for the frontier.
+     */
+    @Test
+    public void testContainerPeaks() {
+        IntQueue queue = new IntQueue(2);
+        IntStack stack = new IntStack(2);
+        IntMinHeap heap = new IntMinHeap(2);
+        for (int i = 0; i < 40; i++) {
+            queue.add(i);
+            stack.push(i);
+            heap.add(i, i);
+            if (i % 2 == 0) {
+                queue.remove();
+                stack.pop();
+                heap.removeMin();
+            }
+        }
+        assertEquals(20, queue.size());
+        assertEquals(20, queue.peak());
+        assertEquals(20, stack.peak());
+        assertEquals(20, heap.peak());
+        queue.clear();
+        assertEquals(0, queue.peak());
+    }
+
+    /**
+     * Tests that while instrumentation is enabled the plain operations
+     * are measured and published to the MXBean, and that nothing is
+     * published once it is disabled.
+     * @throws IllegalAccessException
+     * @throws JMException
+     */
+    @Test
+    public void testPublishesToMXBean() throws IllegalAccessException, JMException {
+        SolverInstrumentation.setEnabled(true);
+        SolverInstrumentation.getCounters().reset();
+        MazeSolver maze = new MazeSolver("maze1.txt");
+        assertTrue(maze.traverse());
+        maze = new MazeSolver("maze1.txt");
+        maze.solve(SearchStrategy.BFS);
+        assertEquals("BFS", maze.getLastStats().getOperation());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SolverInstrumentation.OBJECT_NAME);
+        assertEquals(2L, server.getAttribute(name, "SolveCount"));
+        assertEquals(maze.getLastStats().toString(), server.getAttribute(name, "LastStats"));
+
+        SolverInstrumentation.setEnabled(false);
+        maze = new MazeSolver("maze1.txt");
+        maze.traverse();
+        assertNull(maze.getLastStats());
+        assertEquals(2L, server.getAttribute(name, "SolveCount"));
+    }
+
+    /**
+     * Tests that a Flight Recorder recording receives a maze.Solve event
+     * for each measured operation.
+     * @throws IOException
+     * @throws IllegalAccessException
+     */
+    @Test
+    public void testCommitsFlightRecorderEvents() throws IOException, IllegalAccessException {
+        File file = File.createTempFile("solve", ".jfr");
+        try {
+            SolverInstrumentation.setEnabled(true);
+            try (Recording recording = new Recording()) {
+                recording.enable("maze.Solve");
+                recording.start();
+                new MazeSolver("mazeg.txt").solveWithStats(SearchStrategy.ASTAR);
+                new MazeSolver("mazeg.txt").pickupGoldCoinsWithStats();
+                recording.stop();
+                recording.dump(file.toPath());
+            }
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+            assertEquals(2, events.size());
+            assertEquals("ASTAR", events.get(0).getString("operation"));
+            assertTrue(events.get(0).getBoolean("found"));
+            assertEquals("pickupGoldCoins", events.get(1).getString("operation"));
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
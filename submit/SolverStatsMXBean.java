@@ -0,0 +1,48 @@
+/**
+ * SolverStatsMXBean is the management interface SolverInstrumentation
+ * registers as Maze:type=SolverStats on the platform MBean server while
+ * instrumentation is enabled, so that jconsole or any JMX client can
+ * watch the solves of a running program.
+ */
+public interface SolverStatsMXBean {
+
+    /**
+     * Returns the number of operations measured since the last reset.
+     *
+     * @return the number of operations
+     */
+    long getSolveCount();
+
+    /**
+     * Returns the number of cells expanded by all measured operations.
+     *
+     * @return the total number of nodes expanded
+     */
+    long getTotalNodesExpanded();
+
+    /**
+     * Returns the time taken by all measured operations.
+     *
+     * @return the total solve time in nanoseconds
+     */
+    long getTotalSolveNanos();
+
+    /**
+     * Returns the largest frontier of any measured operation.
+     *
+     * @return the peak size of the frontier
+     */
+    int getMaxFrontier();
+
+    /**
+     * Returns the summary of the last measured operation.
+     *
+     * @return the string form of its SolveStats, or null if there was none
+     */
+    String getLastStats();
+
+    /**
+     * Sets every counter back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SparseSearch runs A* on any Maze through getCell, for mazes too large
+ * to give every cell a slot in a SearchState, such as a TiledGrid of a
+ * binary file bigger than memory. Everything the search records is kept
+ * per cell it reaches, not per cell of the maze: cells are keyed by
+ * their packed position (Position.pack), the cells already expanded are
+ * a LongHashSet, and a LongIntHashMap gives each cell reached a small
+ * int id that indexes its parent and cost in plain arrays and is what
+ * the IntMinHeap orders. Nothing is boxed. The moves and their costs
+ * are those of the Neighborhood of the maze. The path found is kept; the
+ * maze is only read.
+ */
+public final class SparseSearch {
+    private final Maze maze;
+    private final LongIntHashMap ids = new LongIntHashMap();
+    private final LongHashSet closed = new LongHashSet();
+    private final IntMinHeap open = new IntMinHeap();
+    private final IntStack path = new IntStack();
+    private long[] cells = new long[16];
+    private int[] parent = new int[16];
+    private int[] cost = new int[16];
+    private int count;
+
+    /**
+     * Constructs a search on a maze.
+     *
+     * @param maze the maze to search; it is only read
+     */
+    public SparseSearch(Maze maze) {
+        this.maze = maze;
+    }
+
+    /**
+     * Finds a shortest path from start to target through OPEN and
+     * GOLDCOIN cells, forgetting the previous search. The heap is ordered
+     * as in AStarSearch, so the cells expanded are the same.
+     *
+     * @param start the starting position
+     * @param target the target position
+     * @return the result of the search
+     */
+    public SearchResult solve(Position start, Position target) {
+        ids.clear();
+        closed.clear();
+        open.clear();
+        path.clear();
+        count = 0;
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        if (start.getRow() < 0 || start.getRow() >= rows || start.getCol() < 0
+            || start.getCol() >= cols || !isOpen(start.getRow(), start.getCol()))
+            return SearchResult.notFound(0);
+
+        Neighborhood neighborhood = maze.getNeighborhood();
+        int moves = neighborhood.moves();
+        int targetRow = target.getRow();
+        int targetCol = target.getCol();
+        long targetKey = Position.pack(targetRow, targetCol);
+        int first = reach(start.toLong());
+        cost[first] = 0;
+        parent[first] = first;
+        open.add(AStarSearch.key(0, neighborhood.distance(start.getRow() - targetRow,
+            start.getCol() - targetCol)), first);
+
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            int node = open.removeMin();
+            long cell = cells[node];
+            if (!closed.add(cell))
+                continue; // stale entry, already expanded with a lower g
+            expanded++;
+            if (cell == targetKey) {
+                return new SearchResult(true, tracePath(node), cost[node], expanded);
+            }
+            int row = Position.rowOf(cell);
+            int col = Position.colOf(cell);
+            for (int dir = 0; dir < moves; dir++) {
+                int nextRow = row + Maze.DROWS[dir];
+                int nextCol = col + Maze.DCOLS[dir];
+                if (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols
+                    || !isOpen(nextRow, nextCol) || maze.cutsWallCorner(row, col, dir))
+                    continue;
+                int nextG = cost[node] + neighborhood.stepCost(dir);
+                int next = reach(Position.pack(nextRow, nextCol));
+                if (nextG < cost[next]) {
+                    cost[next] = nextG;
+                    parent[next] = node;
+                    int h = neighborhood.distance(nextRow - targetRow, nextCol - targetCol);
+                    open.add(AStarSearch.key(nextG, h), next);
+                }
+            }
+        }
+        return SearchResult.notFound(expanded);
+    }
+
+    /**
+     * Returns the number of cells the last search reached, which is what
+     * its memory grows with.
+     *
+     * @return the number of cells given an id
+     */
+    public int getReachedCount() {
+        return count;
+    }
+
+    /**
+     * Returns the path found by the last search, from the start to the
+     * target.
+     *
+     * @return the positions of the path, empty if no path was found
+     */
+    public List<Position> getPath() {
+        List<Position> result = new ArrayList<Position>(path.size());
+        for (int i = path.size() - 1; i >= 0; i--) {
+            result.add(Position.unpack(cells[path.get(i)]));
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if a search may enter the cell at (row, col), which
+     * must be inside the maze.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return true if the cell is OPEN or GOLDCOIN
+     */
+    private boolean isOpen(int row, int col) {
+        Maze.CELL cell = maze.getCell(row, col);
+        return cell == Maze.CELL.OPEN || cell == Maze.CELL.GOLDCOIN;
+    }
+
+    /**
+     * Returns the id of a cell, giving it the next id, with no cost yet,
+     * if the search has not reached it before.
+     *
+     * @param cell the packed position of the cell
+     * @return its id
+     */
+    private int reach(long cell) {
+        int id = ids.putIfAbsent(cell, count);
+        if (id == count) {
+            if (count == cells.length) {
+                cells = Arrays.copyOf(cells, count * 2);
+                parent = Arrays.copyOf(parent, count * 2);
+                cost = Arrays.copyOf(cost, count * 2);
+            }
+            cells[count] = cell;
+            cost[count] = Integer.MAX_VALUE;
+            count++;
+        }
+        return id;
+    }
+
+    /**
+     * Follows the parent ids from the target back to the start, keeping
+     * every id on the path.
+     *
+     * @param node the id of the target
+     * @return the number of steps on the path
+     */
+    private int tracePath(int node) {
+        int length = 0;
+        while (parent[node] != node) {
+            path.push(node);
+            node = parent[node];
+            length++;
+        }
+        path.push(node);
+        return length;
+    }
+}
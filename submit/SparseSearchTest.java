@@ -0,0 +1,141 @@
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for SparseSearch and the primitive hash tables it keeps
+ * its records in.
+ */
+public class SparseSearchTest {
+
+    /**
+     * Tests LongHashSet against the positions it is used for, across
+     * several growths and with the value that marks empty slots.
+     */
+    @Test
+    public void testLongHashSet() {
+        LongHashSet set = new LongHashSet(2);
+        for (int r = -50; r < 50; r++) {
+            for (int c = -50; c < 50; c++) {
+                assertTrue(set.add(Position.pack(r, c)));
+            }
+        }
+        assertFalse(set.add(Position.pack(-50, 49)));
+        assertEquals(10000, set.size());
+        assertTrue(set.contains(Position.pack(0, -1)));
+        assertFalse(set.contains(Position.pack(50, 0)));
+
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(10001, set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(Position.pack(0, 0)));
+        assertFalse(set.contains(Long.MIN_VALUE));
+    }
+
+    /**
+     * Tests the lookups and updates of LongIntHashMap.
+     */
+    @Test
+    public void testLongIntHashMap() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, map.putIfAbsent(Position.pack(i, 7 * i), i));
+        }
+        assertEquals(3, map.putIfAbsent(Position.pack(3, 21), 99));
+        map.put(Position.pack(3, 21), 42);
+        assertEquals(42, map.get(Position.pack(3, 21), -1));
+        assertEquals(-1, map.get(Position.pack(21, 3), -1));
+        assertTrue(map.containsKey(Position.pack(4999, 34993)));
+        assertEquals(5000, map.size());
+
+        map.put(Long.MIN_VALUE, 5);
+        assertEquals(5, map.putIfAbsent(Long.MIN_VALUE, 6));
+        assertEquals(5001, map.size());
+        map.clear();
+        assertEquals(-1, map.get(Position.pack(3, 21), -1));
+        assertFalse(map.containsKey(Long.MIN_VALUE));
+    }
+
+    /**
+     * Tests that the sparse search finds paths as short as breadth-first
+     * search, expanding the same cells as A*, and that the path it
+     * reports walks from start to target through open cells.
+     */
+    @Test
+    public void testMatchesAStar() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 30; trial++) {
+            int rows = 1 + random.nextInt(40);
+            int cols = 1 + random.nextInt(40);
+            PackedGrid grid = new PackedGrid(rows, cols);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    grid.set(r, c, random.nextInt(10) < 3 ? Maze.CELL.WALL : Maze.CELL.OPEN);
+                }
+            }
+            grid.set(0, 0, Maze.CELL.OPEN);
+            Position start = Position.of(0, 0);
+            Position target = Position.of(rows - 1, cols - 1);
+            SearchResult bfs = BreadthFirstSearch.solve(PackedGrid.copyOf(grid),
+                grid.index(0, 0), grid.index(rows - 1, cols - 1));
+            SearchResult astar = AStarSearch.solve(PackedGrid.copyOf(grid),
+                grid.index(0, 0), grid.index(rows - 1, cols - 1));
+
+            GridMazeSolver maze = new GridMazeSolver(grid, start, target);
+            SparseSearch search = new SparseSearch(maze);
+            SearchResult result = search.solve(start, target);
+            String message = "trial " + trial;
+            assertEquals(message, bfs.getPathLength(), result.getPathLength());
+            assertEquals(message, astar.getNodesExpanded(), result.getNodesExpanded());
+
+            List<Position> path = search.getPath();
+            if (!result.isFound()) {
+                assertTrue(message, path.isEmpty());
+                continue;
+            }
+            assertEquals(message, result.getPathLength() + 1, path.size());
+            assertEquals(message, start, path.get(0));
+            assertEquals(message, target, path.get(path.size() - 1));
+            for (int i = 0; i < path.size(); i++) {
+                Position p = path.get(i);
+                assertEquals(message, Maze.CELL.OPEN, maze.getCell(p.getRow(), p.getCol()));
+                if (i > 0) {
+                    Position q = path.get(i - 1);
+                    assertEquals(message, 1, Math.abs(p.getRow() - q.getRow())
+                        + Math.abs(p.getCol() - q.getCol()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that solveSparse marks the same number of PATH cells as
+     * solve on the maze files and nothing as VISITED.
+     */
+    @Test
+    public void testSolveSparse() {
+        String[] files = { "maze.txt", "maze1.txt", "maze2.txt", "maze3.txt",
+            "maze-dead.txt", "mazeg.txt" };
+        for (String file : files) {
+            MazeSolver expected = new MazeSolver(file);
+            SearchResult bfs = expected.solve(SearchStrategy.BFS);
+            MazeSolver maze = new MazeSolver(file);
+            SearchResult result = maze.solveSparse();
+            assertEquals(file, bfs.getPathLength(), result.getPathLength());
+            int path = 0;
+            for (Maze.CELL[] row : maze.getGrid()) {
+                for (Maze.CELL cell : row) {
+                    assertNotEquals(file, Maze.CELL.VISITED, cell);
+                    if (cell == Maze.CELL.PATH)
+                        path++;
+                }
+            }
+            assertEquals(file, result.isFound() ? result.getPathLength() + 1 : 0, path);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TiledGrid is a CellGrid over a binary maze file (see BinaryMazeFormat)
+ * that keeps only a bounded number of square tiles of cells on the heap.
+ * A tile is read from the file the first time one of its cells is used,
+ * and the least recently used tile is dropped when the cache is full, so
+ * a grid of any size can be solved with a fixed amount of memory.
+ *
+ * Like MappedGrid, marking cells never changes the maze file: a tile that
+ * was written to is saved to a scratch file when it is dropped, and read
+ * back from there the next time it is needed. revert forgets every change,
+ * so one grid can be solved more than once. The scratch file is deleted
+ * when the grid is closed.
+ *
+ * Unlike MappedGrid this does not rely on the operating system to page
+ * the file, so the heap used is maxTiles * tileSize * tileSize bytes
+ * whatever the size of the file or the address space. A TiledGrid is not
+ * thread-safe.
+ */
+public final class TiledGrid implements CellGrid, Closeable {
+    /** The side of a tile used when none is given. */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final Maze.CELL[] CELLS = Maze.CELL.values();
+
+    /**
+     * A square block of cells, stored row-major with a stride of tileSize
+     * even when it lies on the right or bottom edge of the grid.
+     */
+    private static final class Tile {
+        final long id;
+        final byte[] cells;
+        boolean dirty;
+
+        Tile(long id, int length) {
+            this.id = id;
+            this.cells = new byte[length];
+        }
+    }
+
+    private final FileChannel channel;
+    private final BinaryMazeFormat.Header header;
+    private final int rows;
+    private final int cols;
+    private final int tileBits;
+    private final int tileMask;
+    private final long tileCols;
+    private final int maxTiles;
+    private final LinkedHashMap<Long, Tile> cache;
+    private final Set<Long> spilled = new HashSet<Long>();
+    private FileChannel scratch;
+    private Tile last;
+    private long loads;
+
+    /**
+     * Opens a binary maze file with tiles of DEFAULT_TILE_SIZE cells
+     * on a side.
+     *
+     * @param file the binary maze file
+     * @param maxTiles the largest number of tiles kept in memory
+     * @throws MazeFormatException if the file is not a valid binary maze
+     * @throws IOException if the file cannot be opened
+     */
+    public TiledGrid(String file, int maxTiles) throws IOException {
+        this(file, DEFAULT_TILE_SIZE, maxTiles);
+    }
+
+    /**
+     * Opens a binary maze file.
+     *
+     * @param file the binary maze file
+     * @param tileSize the side of a tile, a power of two
+     * @param maxTiles the largest number of tiles kept in memory, at least 1
+     * @throws MazeFormatException if the file is not a valid binary maze
+     * @throws IOException if the file cannot be opened
+     */
+    public TiledGrid(String file, int tileSize, int maxTiles) throws IOException {
+        if (tileSize <= 0 || Integer.bitCount(tileSize) != 1 || tileSize > 1 << 15)
+            throw new IllegalArgumentException("Tile size must be a power of two up to 32768: " + tileSize);
+        if (maxTiles < 1)
+            throw new IllegalArgumentException("Cache must hold at least one tile: " + maxTiles);
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try {
+            this.header = BinaryMazeFormat.readHeader(channel);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.rows = header.getRows();
+        this.cols = header.getCols();
+        this.tileBits = Integer.numberOfTrailingZeros(tileSize);
+        this.tileMask = tileSize - 1;
+        this.tileCols = ((long) cols + tileMask) >>> tileBits;
+        this.maxTiles = maxTiles;
+        this.cache = new LinkedHashMap<Long, Tile>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the header of the maze file, which holds the start and
+     * target positions.
+     *
+     * @return the header
+     */
+    public BinaryMazeFormat.Header getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of tiles read so far, from the maze file or
+     * the scratch file.
+     *
+     * @return the number of tile loads
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Returns the number of tiles currently held in memory.
+     *
+     * @return the number of cached tiles
+     */
+    public int getCachedTiles() {
+        return cache.size();
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the value stored at (row, col), loading its tile if needed.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the cell value at that position
+     * @throws UncheckedIOException if the tile cannot be read or holds
+     *     an invalid cell
+     */
+    @Override
+    public Maze.CELL get(int row, int col) {
+        return CELLS[tile(row, col).cells[offset(row, col)]];
+    }
+
+    /**
+     * Stores a value at (row, col), loading its tile if needed.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @param cell the value to store
+     * @throws UncheckedIOException if a tile cannot be read or saved
+     */
+    @Override
+    public void set(int row, int col, Maze.CELL cell) {
+        Tile tile = tile(row, col);
+        tile.cells[offset(row, col)] = (byte) cell.ordinal();
+        tile.dirty = true;
+    }
+
+    /**
+     * Forgets every cell stored since the grid was opened, so that it
+     * reads the maze file again. The scratch file is kept and reused.
+     */
+    public void revert() {
+        cache.clear();
+        spilled.clear();
+        last = null;
+    }
+
+    /**
+     * Closes the maze file and deletes the scratch file.
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        revert();
+        try {
+            channel.close();
+        }
+        finally {
+            if (scratch != null)
+                scratch.close();
+        }
+    }
+
+    /**
+     * Returns the offset of a cell inside its tile.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the index into the cells of the tile
+     */
+    private int offset(int row, int col) {
+        return (row & tileMask) << tileBits | (col & tileMask);
+    }
+
+    /**
+     * Returns the tile holding (row, col). Consecutive accesses usually
+     * fall in the same tile, which is returned without a map lookup.
+     *
+     * @param row the row index
+     * @param col the column index
+     * @return the tile, now the most recently used
+     */
+    private Tile tile(int row, int col) {
+        long id = (row >>> tileBits) * tileCols + (col >>> tileBits);
+        Tile tile = last;
+        if (tile != null && tile.id == id)
+            return tile;
+        tile = cache.get(id);
+        if (tile == null) {
+            try {
+                if (cache.size() >= maxTiles)
+                    evict();
+                tile = load(id);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Cannot load tile " + id, e);
+            }
+            cache.put(id, tile);
+        }
+        last = tile;
+        return tile;
+    }
+
+    /**
+     * Drops the least recently used tile, saving it to the scratch file
+     * first if any of its cells were changed.
+     *
+     * @throws IOException if the tile cannot be saved
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<Long, Tile>> eldest = cache.entrySet().iterator();
+        Tile tile = eldest.next().getValue();
+        if (tile.dirty) {
+            if (scratch == null) {
+                Path path = Files.createTempFile("maze-tiles", ".tmp");
+                scratch = FileChannel.open(path, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(tile.cells);
+            long position = tile.id * tile.cells.length;
+            while (buffer.hasRemaining()) {
+                position += scratch.write(buffer, position);
+            }
+            spilled.add(tile.id);
+        }
+        eldest.remove();
+        if (last == tile)
+            last = null;
+    }
+
+    /**
+     * Reads a tile from the scratch file if it was changed and dropped
+     * before, and from the maze file otherwise.
+     *
+     * @param id the tile number, row-major over the tiles of the grid
+     * @return the loaded tile
+     * @throws MazeFormatException if a cell byte is not a CELL ordinal
+     * @throws IOException if the tile cannot be read
+     */
+    private Tile load(long id) throws IOException {
+        int side = tileMask + 1;
+        Tile tile = new Tile(id, side << tileBits);
+        loads++;
+        if (spilled.contains(id)) {
+            readFully(scratch, ByteBuffer.wrap(tile.cells), id * tile.cells.length);
+            tile.dirty = true;
+            return tile;
+        }
+        long firstRow = (id / tileCols) << tileBits;
+        long firstCol = (id % tileCols) << tileBits;
+        int height = (int) Math.min(side, rows - firstRow);
+        int width = (int) Math.min(side, cols - firstCol);
+        for (int r = 0; r < height; r++) {
+            long position = BinaryMazeFormat.HEADER_SIZE + (firstRow + r) * cols + firstCol;
+            readFully(channel, ByteBuffer.wrap(tile.cells, r << tileBits, width), position);
+            for (int c = 0; c < width; c++) {
+                byte value = tile.cells[(r << tileBits) + c];
+                if (value < 0 || value >= CELLS.length)
+                    throw BinaryMazeFormat.invalidCell(value, (firstRow + r) * cols + firstCol + c, cols);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Fills a buffer from a channel starting at the given position.
+     *
+     * @param from the channel to read
+     * @param buffer the buffer to fill
+     * @param position the position in the channel of the first byte
+     * @throws IOException if the channel ends before the buffer is full
+     */
+    private static void readFully(FileChannel from, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = from.read(buffer, position);
+            if (read < 0)
+                throw new IOException("Unexpected end of file at " + position);
+            position += read;
+        }
+    }
+}